@@ -0,0 +1,74 @@
+package com.harington.devops_training.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.ai.chat.ChatClient;
+import org.springframework.ai.chat.ChatResponse;
+import org.springframework.ai.chat.Generation;
+import org.springframework.ai.chat.StreamingChatClient;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Client de chat local, sans appel réseau, activé avec {@code wiki.ai.stub=true}.
+ *
+ * Il remplace le client OpenAI (bean {@link Primary}) pour travailler hors
+ * ligne : la réponse est déterministe (elle reprend la fin du prompt, c'est-à-dire
+ * la question) et le streaming émet un mot toutes les
+ * {@code wiki.ai.stub-token-delay}.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "wiki.ai.stub", havingValue = "true")
+public class StubChatClient implements ChatClient, StreamingChatClient {
+    private final Duration tokenDelay;
+
+    public StubChatClient(@Value("${wiki.ai.stub-token-delay:20ms}") Duration tokenDelay) {
+        this.tokenDelay = tokenDelay;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        return response(answer(prompt));
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.fromIterable(tokens(answer(prompt)))
+                .delayElements(tokenDelay)
+                .map(StubChatClient::response);
+    }
+
+    private static String answer(Prompt prompt) {
+        String content = prompt.getContents();
+        String question = content.substring(content.lastIndexOf('\n') + 1);
+        return "[stub] Réponse locale à la question : " + question;
+    }
+
+    /**
+     * Découpe la réponse en mots en gardant les espaces, comme les morceaux
+     * renvoyés par un vrai modèle.
+     */
+    private static List<String> tokens(String answer) {
+        List<String> tokens = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= answer.length(); i++) {
+            if (i == answer.length() || answer.charAt(i) == ' ') {
+                tokens.add(answer.substring(start, i));
+                start = i;
+            }
+        }
+        return tokens;
+    }
+
+    private static ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(text)));
+    }
+}
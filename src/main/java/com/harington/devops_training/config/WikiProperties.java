@@ -0,0 +1,129 @@
+package com.harington.devops_training.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Paramètres du wiki utilisé par /api/ask-wiki.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "wiki")
+public class WikiProperties {
+    /**
+     * Répertoire racine des fichiers markdown du wiki.
+     */
+    private String dir = "wiki";
+
+    private Watch watch = new Watch();
+
+    private Retrieval retrieval = new Retrieval();
+
+    private AnswerCache answerCache = new AnswerCache();
+
+    private Semantic semantic = new Semantic();
+
+    private Ai ai = new Ai();
+
+    @Data
+    public static class Watch {
+        /**
+         * Active la réindexation incrémentale sur modification des fichiers.
+         */
+        private boolean enabled = true;
+        /**
+         * Sous-répertoires du wiki surveillés (récursivement).
+         */
+        private List<String> dirs = List.of("01-guides", "02-fiches", "03-devops");
+        /**
+         * Délai de calme attendu après la dernière modification avant de
+         * réindexer (regroupe les rafales d'événements d'un éditeur).
+         */
+        private Duration debounce = Duration.ofMillis(500);
+    }
+
+    @Data
+    public static class Retrieval {
+        /**
+         * Nombre maximal de passages envoyés au modèle.
+         */
+        private int topK = 8;
+        /**
+         * Budget (approximatif) de tokens pour l'extrait du wiki inclus dans le
+         * prompt, quelle que soit la taille du wiki.
+         */
+        private int maxContextTokens = 1500;
+        /**
+         * keyword : BM25 seul ; semantic : recherche vectorielle seule ; hybrid :
+         * fusion des deux classements.
+         */
+        private RetrievalMode mode = RetrievalMode.KEYWORD;
+    }
+
+    public enum RetrievalMode {
+        KEYWORD, SEMANTIC, HYBRID
+    }
+
+    @Data
+    public static class AnswerCache {
+        /**
+         * Nombre maximal de réponses gardées en mémoire (les moins récemment
+         * utilisées sont évincées en premier).
+         */
+        private int maxEntries = 500;
+        /**
+         * Durée de vie d'une réponse en cache.
+         */
+        private Duration ttl = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class Semantic {
+        /**
+         * Fournisseur d'embeddings : hash (local, déterministe, sans réseau) ou
+         * openai.
+         */
+        private String provider = "hash";
+        /**
+         * Dimension des vecteurs du fournisseur hash.
+         */
+        private int dimensions = 256;
+        /**
+         * Répertoire des fichiers (float32) où sont stockés les vecteurs des
+         * passages, projetés en mémoire hors du tas Java. Chaque génération a
+         * son propre fichier, à nom unique, supprimé quand elle est remplacée.
+         */
+        private String storeDir = System.getProperty("java.io.tmpdir");
+    }
+
+    @Data
+    public static class Ai {
+        /**
+         * Durée maximale d'une question en cours, attente comprise : au-delà,
+         * les requêtes qui l'attendent échouent (504) et la question suivante
+         * relance un appel. spring.mvc.async.request-timeout doit rester
+         * au-dessus.
+         */
+        private Duration timeout = Duration.ofSeconds(60);
+        /**
+         * Nombre maximal d'appels simultanés au modèle ; les suivants attendent
+         * leur tour (au plus {@code timeout}). C'est aussi le nombre de threads
+         * qui traitent les questions de /api/ask-wiki, hors du pool de Tomcat.
+         */
+        private int maxConcurrentCalls = 8;
+        /**
+         * Questions en attente d'un thread ; au-delà, la requête est refusée
+         * (503).
+         */
+        private int queueCapacity = 200;
+        /**
+         * Durée maximale d'une réponse streamée (/api/ask-wiki/stream), attente
+         * d'une place comprise.
+         */
+        private Duration streamTimeout = Duration.ofMinutes(2);
+    }
+}
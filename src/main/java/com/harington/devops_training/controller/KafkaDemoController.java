@@ -1,24 +1,27 @@
 package com.harington.devops_training.controller;
 
 import java.util.List;
+import java.util.Map;
 
 import com.harington.devops_training.kafka.model.ContractDto;
-import org.apache.kafka.streams.KafkaStreams;
-import org.apache.kafka.streams.StoreQueryParameters;
-import org.apache.kafka.streams.state.QueryableStoreTypes;
-import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+import com.harington.devops_training.kafka.model.WindowedStatsView;
+import com.harington.devops_training.kafka.streams.EligibleCountQueryService;
+import com.harington.devops_training.kafka.streams.EligibleStatsQueryService;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.harington.devops_training.service.ContractService;
@@ -34,7 +37,8 @@ public class KafkaDemoController {
     private final KafkaProducerService producerService;
     private final KafkaConsumerService consumerService;
     private final ContractService contractService;
-    private final StreamsBuilderFactoryBean streamsBuilderFactoryBean;
+    private final EligibleCountQueryService eligibleCountQueryService;
+    private final EligibleStatsQueryService eligibleStatsQueryService;
 
     @GetMapping
     public String kafkaDemoPage(Model model) {
@@ -88,19 +92,88 @@ public class KafkaDemoController {
     }
 
     /**
-     * Endpoint pour interroger le state store (ex: /kafka-demo/state/client-123)
+     * Endpoint pour interroger le state store (ex: /kafka-demo/state/client-123),
+     * quelle que soit l'instance qui détient le client
      */
     @GetMapping("/state/{clientId}")
     @ResponseBody
     public String getEligibleCountForClient(@PathVariable String clientId) {
-        KafkaStreams kafkaStreams = streamsBuilderFactoryBean.getKafkaStreams();
-        if (kafkaStreams == null) {
-            return "KafkaStreams n'est pas disponible (pas encore initialisé ou pas d'instance dans le contexte)";
-        }
-        ReadOnlyKeyValueStore<String, Long> store = kafkaStreams.store(StoreQueryParameters.fromNameAndType(
-                "eligible-contracts-count-store",
-                QueryableStoreTypes.keyValueStore()));
-        Long count = store.get(clientId);
-        return count == null ? "0" : count.toString();
+        return String.valueOf(eligibleCountQueryService.count(clientId));
+    }
+
+    /**
+     * Plusieurs clients en une requête (ex: /kafka-demo/state?clientIds=a,b,c)
+     */
+    @GetMapping("/state")
+    @ResponseBody
+    public Map<String, Long> getEligibleCounts(@RequestParam List<String> clientIds) {
+        return eligibleCountQueryService.counts(clientIds);
+    }
+
+    /**
+     * Clients de from à to inclus (ex: /kafka-demo/state-range?from=a&to=m)
+     */
+    @GetMapping("/state-range")
+    @ResponseBody
+    public Map<String, Long> getEligibleCountRange(@RequestParam String from, @RequestParam String to) {
+        return eligibleCountQueryService.range(from, to);
+    }
+
+    /**
+     * Store local uniquement : appelé par les autres instances de l'application.
+     */
+    @GetMapping("/internal/state")
+    @ResponseBody
+    public Map<String, Long> getLocalEligibleCounts(@RequestParam List<String> clientIds) {
+        return eligibleCountQueryService.localCounts(clientIds);
+    }
+
+    /**
+     * Store local uniquement : appelé par les autres instances de l'application.
+     */
+    @GetMapping("/internal/state-range")
+    @ResponseBody
+    public Map<String, Long> getLocalEligibleCountRange(@RequestParam String from, @RequestParam String to) {
+        return eligibleCountQueryService.localRange(from, to);
+    }
+
+    /**
+     * Contrats éligibles d'un client sur les N dernières minutes
+     * (ex: /kafka-demo/window-stats/client-123?minutes=15&window=hopping)
+     */
+    @GetMapping("/window-stats/{clientId}")
+    @ResponseBody
+    public WindowedStatsView getEligibleWindowStats(@PathVariable String clientId,
+            @RequestParam(defaultValue = "5") int minutes,
+            @RequestParam(defaultValue = EligibleStatsQueryService.TUMBLING) String window) {
+        return eligibleStatsQueryService.lastMinutes(clientId, minutes, window);
+    }
+
+    /**
+     * Store local uniquement : appelé par les autres instances de l'application.
+     */
+    @GetMapping("/internal/window-stats/{clientId}")
+    @ResponseBody
+    public WindowedStatsView getLocalEligibleWindowStats(@PathVariable String clientId,
+            @RequestParam(defaultValue = "5") int minutes,
+            @RequestParam(defaultValue = EligibleStatsQueryService.TUMBLING) String window) {
+        return eligibleStatsQueryService.localLastMinutes(clientId, minutes, window);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ResponseBody
+    public String badRequest(IllegalArgumentException e) {
+        return e.getMessage();
+    }
+
+    /**
+     * KafkaStreams pas démarré ou en rebalance : le client peut réessayer.
+     */
+    @ExceptionHandler(InvalidStateStoreException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ResponseBody
+    public String streamsUnavailable(InvalidStateStoreException e) {
+        return e.getMessage();
     }
 }
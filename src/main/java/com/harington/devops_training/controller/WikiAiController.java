@@ -1,32 +1,87 @@
 package com.harington.devops_training.controller;
 
-import org.springframework.ai.openai.OpenAiChatClient;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
-import java.io.*;
-import java.nio.file.*;
 import java.util.*;
-import com.harington.devops_training.service.WikiService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import com.harington.devops_training.config.WikiProperties;
+import com.harington.devops_training.service.WikiAiService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/api")
 public class WikiAiController {
 
     @Autowired
-    private OpenAiChatClient chatClient;
+    private WikiAiService wikiAiService;
 
     @Autowired
-    private WikiService wikiService;
+    private WikiProperties wikiProperties;
 
+    /**
+     * La réponse est calculée hors du thread Tomcat, qui est rendu au pool
+     * pendant la recherche et l'appel au modèle.
+     */
     @PostMapping("/ask-wiki")
-    public Map<String, String> askWiki(@RequestBody Map<String, String> body) throws IOException {
+    public CompletableFuture<Map<String, String>> askWiki(@RequestBody Map<String, String> body) {
         String question = body.get("question");
-        String wikiContent = wikiService.searchWikiForQuestion("wiki", question);
+        return wikiAiService.askAsync(question).thenApply(answer -> Map.of("answer", answer));
+    }
+
+    /**
+     * Version streamée de /ask-wiki (Server-Sent Events) : un événement
+     * "token" par morceau de réponse, puis un événement "done". Chaque morceau
+     * est envoyé en JSON ({"token": "..."}) pour conserver les espaces et les
+     * retours à la ligne.
+     *
+     * Spring MVC ne borne pas la durée d'une réponse streamée : elle est
+     * limitée ici à {@code wiki.ai.stream-timeout}. Au-delà, ou si les appels
+     * au modèle sont saturés, un événement "failed" ({"error": "..."})
+     * termine le flux.
+     */
+    @GetMapping(value = "/ask-wiki/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Map<String, String>>> askWikiStream(@RequestParam String question) {
+        // une seule échéance pour toute la réponse : le délai, mis en cache,
+        // n'est pas relancé à chaque morceau
+        Mono<Long> deadline = Mono.delay(wikiProperties.getAi().getStreamTimeout()).cache();
+        return wikiAiService.stream(question)
+                .map(token -> ServerSentEvent.builder(Map.of("token", token)).event("token").build())
+                .concatWith(Flux.just(ServerSentEvent.builder(Map.<String, String>of()).event("done").build()))
+                .timeout(deadline, event -> deadline)
+                .onErrorResume(TimeoutException.class, e -> failed("Délai de réponse dépassé, réessayez"))
+                .onErrorResume(RejectedExecutionException.class,
+                        e -> failed("Trop de questions en cours, réessayez dans un instant"));
+    }
 
-        String prompt = "Voici un extrait de la documentation de mon projet :\n" + wikiContent +
-                "\nRéponds à la question suivante uniquement à partir de cette documentation (sois concis) :\n" + question;
-        String answer = chatClient.call(prompt);
-        return Map.of("answer", answer);
+    private static Flux<ServerSentEvent<Map<String, String>>> failed(String error) {
+        return Flux.just(ServerSentEvent.builder(Map.of("error", error)).event("failed").build());
     }
- 
+
+    /**
+     * Trop de questions en cours : le client peut réessayer plus tard.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Map<String, String> tooManyQuestions() {
+        return Map.of("error", "Trop de questions en cours, réessayez dans un instant");
+    }
+
+    /**
+     * Question restée plus de {@code wiki.ai.timeout} en cours (attente
+     * comprise).
+     */
+    @ExceptionHandler(TimeoutException.class)
+    @ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+    public Map<String, String> questionTimedOut() {
+        return Map.of("error", "Délai de réponse dépassé, réessayez");
+    }
+
 }
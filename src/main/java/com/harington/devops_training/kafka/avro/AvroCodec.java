@@ -0,0 +1,174 @@
+package com.harington.devops_training.kafka.avro;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.util.ByteBufferInputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Encodage / décodage binaire Avro d'un type de données, utilisable depuis
+ * plusieurs threads.
+ *
+ * Le schéma est analysé une seule fois et le DatumWriter / DatumReader sont
+ * partagés. Chaque thread réutilise son encodeur, son décodeur et son buffer
+ * de sortie : {@link #encode} ne crée ni flux ni copie du résultat, il
+ * retourne une vue sur le buffer du thread. Cette vue n'est valable que
+ * jusqu'au prochain {@code encode} du même thread (tous codecs confondus) :
+ * l'appelant doit la consommer ou la copier avant.
+ */
+public final class AvroCodec<T> {
+    private static final int INITIAL_CAPACITY = 8192;
+    /**
+     * Au-delà, le buffer agrandi par un gros message n'est pas gardé.
+     */
+    private static final int MAX_RETAINED_CAPACITY = 1 << 20;
+
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    private final Schema schema;
+    private final DatumWriter<T> writer;
+    private final DatumReader<T> reader;
+
+    public AvroCodec(Schema schema, DatumWriter<T> writer, DatumReader<T> reader) {
+        this.schema = schema;
+        this.writer = writer;
+        this.reader = reader;
+    }
+
+    /**
+     * Codec d'enregistrements génériques, écrits et lus avec le même schéma.
+     */
+    public static AvroCodec<GenericRecord> generic(Schema schema) {
+        return generic(schema, schema);
+    }
+
+    /**
+     * Codec d'enregistrements génériques lus depuis {@code writerSchema} (le
+     * schéma des données reçues) vers {@code readerSchema} (celui de
+     * l'application) ; l'écriture utilise {@code readerSchema}.
+     */
+    public static AvroCodec<GenericRecord> generic(Schema writerSchema, Schema readerSchema) {
+        return new AvroCodec<>(readerSchema, new GenericDatumWriter<>(readerSchema),
+                new GenericDatumReader<>(writerSchema, readerSchema));
+    }
+
+    /**
+     * Codec analysant un schéma JSON (une seule fois).
+     */
+    public static AvroCodec<GenericRecord> generic(String schemaJson) {
+        return generic(new Schema.Parser().parse(schemaJson));
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Encode la donnée dans le buffer du thread.
+     *
+     * @return une vue (position 0) sur les octets écrits, valable jusqu'au
+     *         prochain encode du même thread
+     */
+    public ByteBuffer encode(T datum) throws IOException {
+        return encode(null, datum);
+    }
+
+    /**
+     * Encode la donnée à la suite de {@code header} (en-tête de format, par
+     * exemple l'octet magique et l'identifiant de schéma Confluent).
+     *
+     * @return une vue (position 0) sur l'en-tête et les octets écrits, valable
+     *         jusqu'au prochain encode du même thread
+     */
+    public ByteBuffer encode(byte[] header, T datum) throws IOException {
+        Buffers buffers = BUFFERS.get();
+        OutputBuffer out = buffers.output();
+        if (header != null) {
+            out.write(header, 0, header.length);
+        }
+        buffers.encoder = EncoderFactory.get().binaryEncoder(out, buffers.encoder);
+        writer.write(datum, buffers.encoder);
+        buffers.encoder.flush();
+        return out.view();
+    }
+
+    /**
+     * Décode les octets restants de {@code in} (sa position est avancée
+     * jusqu'à la limite).
+     */
+    public T decode(ByteBuffer in) throws IOException {
+        return decode(in, null);
+    }
+
+    /**
+     * Décode les octets restants de {@code in} en réutilisant si possible
+     * {@code reuse} (et les objets qu'il contient).
+     */
+    public T decode(ByteBuffer in, T reuse) throws IOException {
+        Buffers buffers = BUFFERS.get();
+        if (in.hasArray()) {
+            buffers.decoder = DecoderFactory.get().binaryDecoder(in.array(), in.arrayOffset() + in.position(),
+                    in.remaining(), buffers.decoder);
+        } else {
+            buffers.decoder = DecoderFactory.get().binaryDecoder(
+                    new ByteBufferInputStream(List.of(in.slice())), buffers.decoder);
+        }
+        T datum = reader.read(reuse, buffers.decoder);
+        in.position(in.limit());
+        return datum;
+    }
+
+    /**
+     * Copie des octets d'un résultat de {@link #encode}, pour les API qui
+     * attendent un tableau.
+     */
+    public static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private static final class Buffers {
+        private OutputBuffer out = new OutputBuffer();
+        private BinaryEncoder encoder;
+        private BinaryDecoder decoder;
+
+        private OutputBuffer output() {
+            if (out.capacity() > MAX_RETAINED_CAPACITY) {
+                out = new OutputBuffer();
+            } else {
+                out.reset();
+            }
+            return out;
+        }
+    }
+
+    /**
+     * ByteArrayOutputStream dont le contenu est lisible sans copie.
+     */
+    private static final class OutputBuffer extends ByteArrayOutputStream {
+        private OutputBuffer() {
+            super(INITIAL_CAPACITY);
+        }
+
+        private int capacity() {
+            return buf.length;
+        }
+
+        private ByteBuffer view() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+}
@@ -3,17 +3,9 @@ package com.harington.devops_training.kafka.avro;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericRecord;
-import org.apache.avro.io.DatumReader;
-import org.apache.avro.io.DatumWriter;
-import org.apache.avro.io.Decoder;
-import org.apache.avro.io.DecoderFactory;
-import org.apache.avro.io.Encoder;
-import org.apache.avro.io.EncoderFactory;
-import org.apache.avro.specific.SpecificDatumReader;
-import org.apache.avro.specific.SpecificDatumWriter;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 public class AvroExampleUtil {
     public static final String CONTRACT_SCHEMA_JSON = """
@@ -28,29 +20,34 @@ public class AvroExampleUtil {
             }
             """;
 
+    private static final AvroCodec<GenericRecord> CONTRACT_CODEC = AvroCodec.generic(CONTRACT_SCHEMA_JSON);
+
     public static Schema getContractSchema() {
-        return new Schema.Parser().parse(CONTRACT_SCHEMA_JSON);
+        return CONTRACT_CODEC.getSchema();
     }
 
-    public static byte[] serializeContract(String id, double amount, boolean isEligible) throws IOException {
-        Schema schema = getContractSchema();
-        GenericRecord contract = new GenericData.Record(schema);
+    /**
+     * Encode le contrat sans copie : la vue retournée n'est valable que
+     * jusqu'au prochain encodage du thread (voir {@link AvroCodec}).
+     */
+    public static ByteBuffer encodeContract(String id, double amount, boolean isEligible) throws IOException {
+        GenericRecord contract = new GenericData.Record(getContractSchema());
         contract.put("id", id);
         contract.put("amount", amount);
         contract.put("isEligible", isEligible);
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        DatumWriter<GenericRecord> writer = new SpecificDatumWriter<>(schema);
-        Encoder encoder = EncoderFactory.get().binaryEncoder(out, null);
-        writer.write(contract, encoder);
-        encoder.flush();
-        return out.toByteArray();
+        return CONTRACT_CODEC.encode(contract);
+    }
+
+    public static byte[] serializeContract(String id, double amount, boolean isEligible) throws IOException {
+        return AvroCodec.toBytes(encodeContract(id, amount, isEligible));
+    }
+
+    public static GenericRecord deserializeContract(ByteBuffer data) throws IOException {
+        return CONTRACT_CODEC.decode(data);
     }
 
     public static GenericRecord deserializeContract(byte[] data) throws IOException {
-        Schema schema = getContractSchema();
-        DatumReader<GenericRecord> reader = new SpecificDatumReader<>(schema);
-        Decoder decoder = DecoderFactory.get().binaryDecoder(data, null);
-        return reader.read(null, decoder);
+        return deserializeContract(ByteBuffer.wrap(data));
     }
 
     public static void main(String[] args) throws Exception {
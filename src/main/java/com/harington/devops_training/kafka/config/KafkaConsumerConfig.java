@@ -0,0 +1,138 @@
+package com.harington.devops_training.kafka.config;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+
+import com.harington.devops_training.kafka.consumer.KeyOrderedExecutor;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Conteneurs des listeners Kafka. Le conteneur par défaut (un message par
+ * appel) est celui de Spring Boot ; ceux-ci servent aux listeners en mode lot
+ * et en mode parallèle.
+ */
+@Configuration
+@RequiredArgsConstructor
+@Slf4j
+public class KafkaConsumerConfig {
+    /**
+     * Attente maximale des messages en cours d'une partition révoquée, avant de
+     * commiter son offset.
+     */
+    private static final Duration REVOKE_TIMEOUT = Duration.ofSeconds(10);
+
+    private final KafkaProperties kafkaProperties;
+    private final KafkaDemoProperties kafkaDemoProperties;
+
+    /**
+     * Listener appelé avec tous les messages d'un poll (au plus
+     * kafka.demo.consumer.max-poll-records) ; les offsets sont commités une
+     * fois le lot entièrement traité.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> batchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(batchConsumerFactory());
+        factory.setConcurrency(kafkaDemoProperties.getConsumer().getConcurrency());
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        return factory;
+    }
+
+    /**
+     * File de traitement parallèle (ordonnée par clé) du mode parallel. Un
+     * message encore en échec après kafka.demo.consumer.max-attempts
+     * tentatives est publié tel quel dans kafka.demo.consumer.dead-letter-topic
+     * (en-têtes kafka_dlt-* de Spring Kafka), puis commité. Les partitions dont
+     * le commit reste bloqué (envoi dans le topic de rejet impossible) sont
+     * comptées par la jauge kafka.demo.consumer.parallel.blocked.partitions.
+     */
+    @Bean
+    public KeyOrderedExecutor<String, String> contractKeyOrderedExecutor(
+            @Qualifier("stringKafkaTemplate") KafkaTemplate<String, String> stringKafkaTemplate,
+            MeterRegistry meterRegistry) {
+        KafkaDemoProperties.Consumer consumer = kafkaDemoProperties.getConsumer();
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(stringKafkaTemplate,
+                (record, e) -> new TopicPartition(consumer.getDeadLetterTopic(), -1));
+        KeyOrderedExecutor<String, String> executor = new KeyOrderedExecutor<>("contract-parallel",
+                consumer.getParallelism(), consumer.getMaxInFlight(), consumer.getMaxAttempts(),
+                consumer.getRetryBackoff(), recoverer);
+        Gauge.builder("kafka.demo.consumer.parallel.blocked.partitions", executor,
+                KeyOrderedExecutor::blockedPartitions)
+                .description("Partitions dont le commit est arrêté par un message en échec")
+                .register(meterRegistry);
+        Gauge.builder("kafka.demo.consumer.parallel.failed", executor, KeyOrderedExecutor::failed)
+                .description("Messages en échec non commités")
+                .register(meterRegistry);
+        return executor;
+    }
+
+    /**
+     * Listener en lot dont les messages sont traités par
+     * {@link KeyOrderedExecutor} : le conteneur ne commite rien lui-même
+     * (AckMode.MANUAL sans acquittement), les offsets sont commités par le
+     * listener, par l'événement d'inactivité et avant chaque révocation de
+     * partition.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> parallelKafkaListenerContainerFactory(
+            KeyOrderedExecutor<String, String> contractKeyOrderedExecutor) {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(batchConsumerFactory());
+        factory.setConcurrency(kafkaDemoProperties.getConsumer().getConcurrency());
+        factory.setBatchListener(true);
+        ContainerProperties containerProperties = factory.getContainerProperties();
+        containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        // publie un ListenerContainerIdleEvent quand aucun message n'arrive, pour commiter les derniers offsets
+        containerProperties.setIdleEventInterval(1000L);
+        containerProperties.setConsumerRebalanceListener(new ConsumerAwareRebalanceListener() {
+            @Override
+            public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer,
+                    Collection<TopicPartition> partitions) {
+                try {
+                    if (!contractKeyOrderedExecutor.awaitCompletion(partitions, REVOKE_TIMEOUT)) {
+                        log.warn("[ParallelConsumer] Messages encore en cours sur {} : ils seront rejoués",
+                                partitions);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                consumer.commitSync(contractKeyOrderedExecutor.committableOffsets(partitions));
+                contractKeyOrderedExecutor.forget(partitions);
+            }
+
+            @Override
+            public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                contractKeyOrderedExecutor.forget(partitions);
+            }
+        });
+        return factory;
+    }
+
+    private ConsumerFactory<String, String> batchConsumerFactory() {
+        Map<String, Object> configProps = kafkaProperties.buildConsumerProperties(null);
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, kafkaDemoProperties.getConsumer().getMaxPollRecords());
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        return new DefaultKafkaConsumerFactory<>(configProps);
+    }
+}
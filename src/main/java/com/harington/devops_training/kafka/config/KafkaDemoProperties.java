@@ -1,13 +1,250 @@
 package com.harington.devops_training.kafka.config;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 
 @Data
 @Component
 @ConfigurationProperties(prefix = "kafka.demo")
 public class KafkaDemoProperties {
+    public static final String LOW_LATENCY = "low-latency";
+    public static final String BULK_THROUGHPUT = "bulk-throughput";
+
     private String topic;
-    private String pollingGroupPrefix;
+    /**
+     * Nombre de derniers messages gardés par partition pour la section
+     * "polling direct" de la page de démo.
+     */
+    private int pollingWindow = 50;
+
+    /**
+     * Profils de producteur disponibles, par nom. Les deux profils par défaut
+     * peuvent être ajustés (ou d'autres ajoutés) dans application.yml.
+     */
+    private Map<String, ProducerProfile> producerProfiles = defaultProfiles();
+
+    /**
+     * Profil utilisé par chaque KafkaTemplate.
+     */
+    private Templates templates = new Templates();
+
+    private Consumer consumer = new Consumer();
+
+    private Producer producer = new Producer();
+
+    private Avro avro = new Avro();
+
+    private Streams streams = new Streams();
+
+    public enum ConsumerMode {
+        /**
+         * Un appel du listener par message.
+         */
+        SINGLE,
+        /**
+         * Un appel du listener par poll (liste de messages), résultats publiés
+         * et offsets commités une fois par lot.
+         */
+        BATCH,
+        /**
+         * Messages répartis par clé sur plusieurs threads (ordre conservé par
+         * clé), offsets commités jusqu'au plus petit offset encore en cours.
+         */
+        PARALLEL
+    }
+
+    @Data
+    public static class Consumer {
+        /**
+         * Listener actif sur le topic de démo (single, batch ou parallel).
+         */
+        private ConsumerMode mode = ConsumerMode.SINGLE;
+        /**
+         * Nombre maximal de messages par poll en mode batch (max.poll.records).
+         */
+        private int maxPollRecords = 500;
+        /**
+         * Nombre de consumers Kafka (threads de poll) par listener en mode
+         * batch et parallel ; au plus le nombre de partitions du topic.
+         */
+        private int concurrency = 1;
+        /**
+         * Nombre de threads de traitement en mode parallel (une file par
+         * thread, choisie par hachage de la clé).
+         */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        /**
+         * Messages en cours de traitement au maximum en mode parallel ; au-delà,
+         * le poll attend.
+         */
+        private int maxInFlight = 1000;
+        /**
+         * Tentatives de traitement d'un message en mode parallel (la première
+         * comprise) avant sa mise de côté dans {@code deadLetterTopic}.
+         */
+        private int maxAttempts = 3;
+        /**
+         * Attente entre deux tentatives en mode parallel ; la file du message
+         * (et donc sa clé) attend pendant ce temps.
+         */
+        private Duration retryBackoff = Duration.ofSeconds(1);
+        /**
+         * Topic de rejet des messages en échec après {@code maxAttempts}
+         * tentatives en mode parallel. Si l'envoi échoue, le commit de la
+         * partition reste bloqué avant le message.
+         */
+        private String deadLetterTopic = "devops-training-topic-dlt";
+        /**
+         * Nombre de messages conservés pour la page de démo (les plus anciens
+         * sont écrasés).
+         */
+        private int messageLogCapacity = 1024;
+    }
+
+    @Data
+    public static class Templates {
+        /**
+         * Messages texte unitaires de la page de démo.
+         */
+        private String string = LOW_LATENCY;
+        /**
+         * Lots de contrats (List&lt;ContractDto&gt;) envoyés au KStream.
+         */
+        private String contractList = BULK_THROUGHPUT;
+    }
+
+    @Data
+    public static class Producer {
+        private BackPressure backPressure = new BackPressure();
+    }
+
+    @Data
+    public static class BackPressure {
+        /**
+         * true : un envoi attend tant que trop d'octets sont en attente
+         * d'acquittement.
+         */
+        private boolean enabled = false;
+        /**
+         * Octets (estimés) envoyés et non acquittés au-delà desquels les envois
+         * attendent.
+         */
+        private DataSize maxInFlightBytes = DataSize.ofMegabytes(16);
+        /**
+         * Attente maximale d'un envoi ; au-delà, il échoue.
+         */
+        private Duration maxBlock = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Streams {
+        /**
+         * Délai maximal (connexion et réponse) d'une requête transmise à
+         * l'instance qui détient un state store.
+         */
+        private Duration queryTimeout = Duration.ofSeconds(2);
+        /**
+         * Jeton partagé par les instances, envoyé dans l'en-tête
+         * X-Internal-Token des requêtes transmises (/kafka-demo/internal/**).
+         * Vide : ces endpoints sont refusés.
+         */
+        private String internalToken = "";
+
+        private Windows windows = new Windows();
+    }
+
+    /**
+     * Fenêtres des statistiques de contrats éligibles par client.
+     */
+    @Data
+    public static class Windows {
+        /**
+         * Durée des fenêtres fixes (tumbling).
+         */
+        private Duration tumblingSize = Duration.ofMinutes(1);
+        /**
+         * Durée des fenêtres glissantes (hopping), multiple de
+         * hopping-advance.
+         */
+        private Duration hoppingSize = Duration.ofMinutes(5);
+        /**
+         * Écart entre le début de deux fenêtres glissantes.
+         */
+        private Duration hoppingAdvance = Duration.ofMinutes(1);
+        /**
+         * Retard accepté pour un contrat après la fin de sa fenêtre.
+         */
+        private Duration grace = Duration.ofSeconds(30);
+        /**
+         * Durée de conservation des fenêtres dans les stores (au moins la
+         * taille d'une fenêtre plus le retard accepté) ; c'est aussi la plus
+         * longue période interrogeable.
+         */
+        private Duration retention = Duration.ofHours(24);
+    }
+
+    @Data
+    public static class Avro {
+        /**
+         * Topics dont les lots de contrats sont écrits en Avro binaire ; les
+         * autres restent en JSON. La lecture accepte les deux formats.
+         */
+        private List<String> topics = new ArrayList<>();
+        /**
+         * true : registre de schémas en mémoire, sans serveur (profils local et
+         * test uniquement : les identifiants de schéma ne survivent pas au
+         * redémarrage) ; false : registre de
+         * spring.kafka.properties.schema.registry.url.
+         */
+        private boolean mockRegistry = false;
+    }
+
+    /**
+     * Réglages d'envoi d'un producteur Kafka.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ProducerProfile {
+        /**
+         * Attente maximale (ms) pour remplir un lot avant l'envoi.
+         */
+        private int lingerMs;
+        /**
+         * Taille maximale (octets) d'un lot par partition.
+         */
+        private int batchSize;
+        /**
+         * none, gzip, snappy, lz4 ou zstd.
+         */
+        private String compressionType;
+        /**
+         * 0, 1 ou all (all obligatoire avec l'idempotence).
+         */
+        private String acks;
+        private boolean idempotence;
+        /**
+         * Mémoire (octets) des lots en attente d'envoi ; au-delà, send() bloque.
+         */
+        private long bufferMemory;
+    }
+
+    private static Map<String, ProducerProfile> defaultProfiles() {
+        Map<String, ProducerProfile> profiles = new LinkedHashMap<>();
+        // envoi immédiat, compression peu coûteuse en CPU
+        profiles.put(LOW_LATENCY, new ProducerProfile(0, 16_384, "lz4", "1", false, 33_554_432L));
+        // lots pleins et fortement compressés, sans doublons en cas de retry
+        profiles.put(BULK_THROUGHPUT, new ProducerProfile(20, 262_144, "zstd", "all", true, 67_108_864L));
+        return profiles;
+    }
 }
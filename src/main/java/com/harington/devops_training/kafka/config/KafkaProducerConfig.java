@@ -11,23 +11,45 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import com.harington.devops_training.kafka.model.ContractDto;
+import com.harington.devops_training.kafka.serde.ContractListSerde;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Producteurs Kafka de l'application. Chaque KafkaTemplate utilise un profil
+ * d'envoi nommé (kafka.demo.templates.*), défini dans
+ * kafka.demo.producer-profiles : low-latency pour les messages unitaires,
+ * bulk-throughput pour les lots de contrats.
+ *
+ * Les lots de contrats sont sérialisés par {@link ContractListSerde} : JSON,
+ * ou Avro pour les topics de kafka.demo.avro.topics.
+ *
+ * Les métriques des producteurs (kafka.producer.record.send.rate,
+ * record.size.avg, compression.rate.avg, record.retry.rate,
+ * record.retry.total...) sont publiées dans Micrometer par
+ * MicrometerProducerListener.
+ */
 @Configuration
+@RequiredArgsConstructor
 public class KafkaProducerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    private final KafkaDemoProperties kafkaDemoProperties;
+    private final MeterRegistry meterRegistry;
+    private final ContractListSerde contractListSerde;
+
     @Bean
     public ProducerFactory<String, String> stringProducerFactory() {
-        Map<String, Object> configProps = new HashMap<>();
-        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers); // adapte si besoin
+        Map<String, Object> configProps = profileConfig(kafkaDemoProperties.getTemplates().getString());
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        return instrumented(new DefaultKafkaProducerFactory<>(configProps));
     }
 
     @Bean(name = "stringKafkaTemplate")
@@ -37,11 +59,9 @@ public class KafkaProducerConfig {
 
     @Bean
     public ProducerFactory<String, List<ContractDto>> contractListProducerFactory() {
-        Map<String, Object> configProps = new HashMap<>();
-        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers); // adapte si besoin
-        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        Map<String, Object> configProps = profileConfig(kafkaDemoProperties.getTemplates().getContractList());
+        return instrumented(new DefaultKafkaProducerFactory<>(configProps, new StringSerializer(),
+                contractListSerde.serializer()));
     }
 
     @Bean(name = "contractListKafkaTemplate")
@@ -49,12 +69,25 @@ public class KafkaProducerConfig {
         return new KafkaTemplate<>(contractListProducerFactory());
     }
 
-    @Bean
-    public ProducerFactory<String, List<ContractDto>> contractProducerFactory() {
+    private Map<String, Object> profileConfig(String profileName) {
+        KafkaDemoProperties.ProducerProfile profile = kafkaDemoProperties.getProducerProfiles().get(profileName);
+        if (profile == null) {
+            throw new IllegalStateException("Profil de producteur inconnu : '" + profileName + "' (profils : "
+                    + kafkaDemoProperties.getProducerProfiles().keySet() + ")");
+        }
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers); // adapte si besoin
-        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, profile.getLingerMs());
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, profile.getBatchSize());
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, profile.getCompressionType());
+        configProps.put(ProducerConfig.ACKS_CONFIG, profile.getAcks());
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, profile.isIdempotence());
+        configProps.put(ProducerConfig.BUFFER_MEMORY_CONFIG, profile.getBufferMemory());
+        return configProps;
+    }
+
+    private <K, V> DefaultKafkaProducerFactory<K, V> instrumented(DefaultKafkaProducerFactory<K, V> factory) {
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
     }
 }
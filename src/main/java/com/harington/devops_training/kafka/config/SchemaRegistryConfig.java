@@ -0,0 +1,44 @@
+package com.harington.devops_training.kafka.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.confluent.kafka.schemaregistry.client.CachedSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Registre de schémas des sérialiseurs Avro : le registre Confluent de
+ * spring.kafka.properties.schema.registry.url, ou un registre en mémoire avec
+ * kafka.demo.avro.mock-registry (profils local et test). Les deux clients
+ * gardent en cache les schémas et leurs identifiants.
+ *
+ * Sans URL ni mock-registry, le démarrage échoue : un registre en mémoire
+ * attribuerait à chaque redémarrage de nouveaux identifiants de schéma, et les
+ * messages Avro déjà écrits ne seraient plus lisibles.
+ */
+@Configuration
+@Slf4j
+public class SchemaRegistryConfig {
+    /**
+     * Nombre maximal de schémas gardés en cache par sujet.
+     */
+    private static final int SCHEMA_CACHE_CAPACITY = 100;
+
+    @Bean
+    public SchemaRegistryClient schemaRegistryClient(KafkaDemoProperties kafkaDemoProperties,
+            @Value("${spring.kafka.properties.schema.registry.url:}") String schemaRegistryUrl) {
+        if (kafkaDemoProperties.getAvro().isMockRegistry()) {
+            log.info("[Avro] Registre de schémas en mémoire");
+            return new MockSchemaRegistryClient();
+        }
+        if (schemaRegistryUrl.isBlank()) {
+            throw new IllegalStateException("spring.kafka.properties.schema.registry.url absent : configurer le "
+                    + "registre de schémas, ou kafka.demo.avro.mock-registry=true hors production");
+        }
+        log.info("[Avro] Registre de schémas : {}", schemaRegistryUrl);
+        return new CachedSchemaRegistryClient(schemaRegistryUrl, SCHEMA_CACHE_CAPACITY);
+    }
+}
@@ -4,4 +4,12 @@ public class KafkaConstants {
 
     public static final String DEVOPS_TRAINING_STREAMING_TOPIC = "devops-training-kstream-topic";
 
+    public static final String ELIGIBLE_COUNT_STORE = "eligible-contracts-count-store";
+
+    public static final String ELIGIBLE_STATS_TUMBLING_STORE = "eligible-stats-tumbling-store";
+
+    public static final String ELIGIBLE_STATS_HOPPING_STORE = "eligible-stats-hopping-store";
+
+    public static final String INTERNAL_TOKEN_HEADER = "X-Internal-Token";
+
 }
@@ -1,26 +1,27 @@
 package com.harington.devops_training.kafka.consumer;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.math.BigDecimal;
-import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.harington.devops_training.kafka.model.ContractResultDto;
-import org.apache.kafka.clients.consumer.ConsumerConfig;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.apache.kafka.clients.consumer.ConsumerRecords;
-import org.apache.kafka.clients.consumer.KafkaConsumer;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
 import org.springframework.stereotype.Service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.harington.devops_training.kafka.config.KafkaDemoProperties;
-import com.harington.devops_training.kafka.model.ContractDto;
 import com.harington.devops_training.kafka.producer.KafkaProducerService;
+import com.harington.devops_training.kafka.serde.ContractBatchReader;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
@@ -29,53 +30,184 @@ public class KafkaConsumerService {
     private final KafkaDemoProperties kafkaDemoProperties;
     private final KafkaProducerService kafkaProducerService;
 
-    private final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+    private final MessageRingBuffer messages;
     private final ObjectMapper objectMapper;
+    private final ContractBatchReader contractBatchReader;
 
-    @Value("${spring.kafka.bootstrap-servers}")
-    private String bootstrapServers;
-
-    @Value("${spring.kafka.consumer.key-deserializer:org.apache.kafka.common.serialization.StringDeserializer}")
-    private String keyDeserializer;
-
-    @Value("${spring.kafka.consumer.value-deserializer:org.apache.kafka.common.serialization.StringDeserializer}")
-    private String valueDeserializer;
+    private static final String CONSUMER_GROUP = "devops-training-group";
+    private static final String RESULT_TOPIC = "devops-training-result";
+    private static final String RESULT_KEY = "result-batch";
+    private static final BigDecimal RESULT_AMOUNT = BigDecimal.valueOf(10);
 
-    @Value("${spring.kafka.consumer.auto-offset-reset:earliest}")
-    private String autoOffsetReset;
+    private static final String PARALLEL_LISTENER_ID = "contract-parallel-listener";
 
-    private static final String CONSUMER_GROUP = "devops-training-group";
+    private final KeyOrderedExecutor<String, String> keyOrderedExecutor;
+    private final KafkaTopicTailer topicTailer;
+    private final Timer singleProcessingTime;
+    private final Timer batchProcessingTime;
+    private final Timer parallelProcessingTime;
+    private final Counter singleRecords;
+    private final Counter batchRecords;
+    private final Counter parallelRecords;
 
     public KafkaConsumerService(KafkaDemoProperties kafkaDemoProperties, KafkaProducerService kafkaProducerService,
-            ObjectMapper objectMapper) {
+            ObjectMapper objectMapper, ContractBatchReader contractBatchReader, KeyOrderedExecutor<String, String> contractKeyOrderedExecutor,
+            KafkaTopicTailer topicTailer, MeterRegistry meterRegistry) {
         this.kafkaDemoProperties = kafkaDemoProperties;
         this.kafkaProducerService = kafkaProducerService;
         this.objectMapper = objectMapper;
+        this.contractBatchReader = contractBatchReader;
+        this.keyOrderedExecutor = contractKeyOrderedExecutor;
+        this.topicTailer = topicTailer;
+        this.messages = new MessageRingBuffer(kafkaDemoProperties.getConsumer().getMessageLogCapacity());
+        this.singleProcessingTime = processingTimer("single", meterRegistry);
+        this.batchProcessingTime = processingTimer("batch", meterRegistry);
+        this.parallelProcessingTime = processingTimer("parallel", meterRegistry);
+        this.singleRecords = Counter.builder("kafka.demo.consumer.records").tag("mode", "single")
+                .register(meterRegistry);
+        this.batchRecords = Counter.builder("kafka.demo.consumer.records").tag("mode", "batch")
+                .register(meterRegistry);
+        this.parallelRecords = Counter.builder("kafka.demo.consumer.records").tag("mode", "parallel")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Durée de traitement d'un appel du listener (un message en mode single
+     * et parallel, un poll en mode batch), avec son p99.
+     */
+    private static Timer processingTimer(String mode, MeterRegistry meterRegistry) {
+        return Timer.builder("kafka.demo.consumer.processing").tag("mode", mode)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
     }
 
     /**
      * Méthode appelée pour écouter les messages du topic Kafka.
      * Elle traite les messages en lot et publie le résultat sur un autre topic.
+     * Actif quand kafka.demo.consumer.mode vaut single (par défaut).
      *
      * @param record le message reçu du topic Kafka
      */
-    @KafkaListener(topics = "#{@kafkaDemoProperties.topic}", groupId = CONSUMER_GROUP)
+    @KafkaListener(id = "contract-single-listener", topics = "#{@kafkaDemoProperties.topic}",
+            groupId = CONSUMER_GROUP,
+            autoStartup = "#{@kafkaDemoProperties.consumer.mode.name() == 'SINGLE'}")
     public void listen(ConsumerRecord<String, String> record) {
-        String key = record.key();
-        String value = record.value();
+        long start = System.nanoTime();
         int partition = record.partition();
         // Ajout pédagogique : traitement batch JSON
         try {
-            calculateBatchSummaryAndSendResult(value, partition);
+            String resultJson = calculateBatchSummary(record.value(), partition);
+            // Publier le résultat sur le topic résultat
+            kafkaProducerService.sendMessage(RESULT_TOPIC, RESULT_KEY, resultJson);
         } catch (Exception e) {
             log.error("Erreur lors du traitement du batch Kafka : {}", e.getMessage(), e);
             messages.add("[Erreur][partition=" + partition + "] Batch non traité : " + e.getMessage());
         }
-        // ...affichage classique pour la démo...
+        addReceivedMessage(record);
+        singleRecords.increment();
+        singleProcessingTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Variante du listener qui reçoit tous les messages d'un poll. Les
+     * résultats sont envoyés sans attendre chaque accusé de réception, puis
+     * attendus ensemble : les offsets du lot ne sont commités qu'une fois tous
+     * les résultats publiés. Actif quand kafka.demo.consumer.mode vaut batch.
+     *
+     * @param records les messages d'un poll
+     */
+    @KafkaListener(id = "contract-batch-listener", topics = "#{@kafkaDemoProperties.topic}",
+            groupId = CONSUMER_GROUP, containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "#{@kafkaDemoProperties.consumer.mode.name() == 'BATCH'}")
+    public void listenBatch(List<ConsumerRecord<String, String>> records) {
+        long start = System.nanoTime();
+        List<String> results = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, String> record : records) {
+            try {
+                results.add(calculateBatchSummary(record.value(), record.partition()));
+            } catch (Exception e) {
+                log.error("Erreur lors du traitement du batch Kafka : {}", e.getMessage(), e);
+                messages.add("[Erreur][partition=" + record.partition() + "] Batch non traité : " + e.getMessage());
+            }
+            addReceivedMessage(record);
+        }
+        // en cas d'échec d'envoi, l'exception remonte au conteneur et le lot est rejoué
+        kafkaProducerService.sendMessages(RESULT_TOPIC, RESULT_KEY, results).join();
+        batchRecords.increment(records.size());
+        batchProcessingTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.info("[Batch] {} messages traités, {} résultats publiés en {} ms", records.size(), results.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Variante du listener qui répartit les messages d'un poll sur plusieurs
+     * threads, par clé (voir {@link KeyOrderedExecutor}) : l'ordre est conservé
+     * pour une même clé, et le traitement n'est plus limité à un thread par
+     * partition. Chaque message n'est terminé qu'une fois son résultat publié :
+     * un échec est réessayé, puis le message part dans le topic de rejet
+     * (kafka.demo.consumer.dead-letter-topic) ; si ce dernier envoi échoue
+     * aussi, son offset reste non commité (relu au redémarrage).
+     * Actif quand kafka.demo.consumer.mode vaut parallel.
+     *
+     * @param records  les messages d'un poll
+     * @param consumer le consumer Kafka (utilisé sur son propre thread pour
+     *                 commiter)
+     */
+    @KafkaListener(id = PARALLEL_LISTENER_ID, topics = "#{@kafkaDemoProperties.topic}",
+            groupId = CONSUMER_GROUP, containerFactory = "parallelKafkaListenerContainerFactory",
+            autoStartup = "#{@kafkaDemoProperties.consumer.mode.name() == 'PARALLEL'}")
+    public void listenParallel(List<ConsumerRecord<String, String>> records, Consumer<?, ?> consumer)
+            throws InterruptedException {
+        for (ConsumerRecord<String, String> record : records) {
+            keyOrderedExecutor.submit(record, this::processParallel);
+        }
+        commitCompleted(consumer);
+    }
+
+    /**
+     * Commite les offsets terminés quand le listener parallèle ne reçoit plus
+     * de messages (événement publié sur le thread du consumer).
+     */
+    @EventListener(condition = "event.listenerId.startsWith('" + PARALLEL_LISTENER_ID + "')")
+    public void onParallelListenerIdle(ListenerContainerIdleEvent event) {
+        commitCompleted(event.getConsumer());
+    }
+
+    private void commitCompleted(Consumer<?, ?> consumer) {
+        var offsets = keyOrderedExecutor.committableOffsets(consumer.assignment());
+        if (!offsets.isEmpty()) {
+            consumer.commitAsync(offsets, (committed, e) -> {
+                if (e != null) {
+                    log.warn("[ParallelConsumer] Échec du commit de {} : {}", committed, e.getMessage());
+                }
+            });
+        }
+    }
+
+    private void processParallel(ConsumerRecord<String, String> record) {
+        long start = System.nanoTime();
+        try {
+            String resultJson = calculateBatchSummary(record.value(), record.partition());
+            // join() lève une CompletionException si l'envoi échoue : le
+            // KeyOrderedExecutor réessaie, puis met le message de côté
+            kafkaProducerService.sendMessages(RESULT_TOPIC, RESULT_KEY, List.of(resultJson)).join();
+        } catch (IOException e) {
+            log.error("Erreur lors du traitement du batch Kafka : {}", e.getMessage(), e);
+            messages.add("[Erreur][partition=" + record.partition() + "] Batch non traité : " + e.getMessage());
+        }
+        addReceivedMessage(record);
+        parallelRecords.increment();
+        parallelProcessingTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    // ...affichage classique pour la démo...
+    private void addReceivedMessage(ConsumerRecord<String, String> record) {
+        String key = record.key();
+        int partition = record.partition();
         if (key != null) {
-            messages.add("[clé=" + key + ", partition=" + partition + "] " + value);
+            messages.add("[clé=" + key + ", partition=" + partition + "] " + record.value());
         } else {
-            messages.add("[partition=" + partition + "] " + value);
+            messages.add("[partition=" + partition + "] " + record.value());
         }
     }
 
@@ -85,41 +217,17 @@ public class KafkaConsumerService {
      * @return la liste des messages
      */
     public List<String> getMessages() {
-        return new ArrayList<>(messages);
+        return messages.snapshot();
     }
 
     /**
-     * Poll les messages depuis Kafka.
+     * Derniers messages du topic, lus en continu par {@link KafkaTopicTailer}
+     * (réponse immédiate, sans nouveau consumer).
      *
      * @return la liste des messages
      */
     public List<String> pollMessagesFromKafka() {
-        Properties props = new Properties();
-        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        props.put(ConsumerConfig.GROUP_ID_CONFIG,
-                kafkaDemoProperties.getPollingGroupPrefix() + "-" + UUID.randomUUID());
-        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, keyDeserializer);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, valueDeserializer);
-        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, autoOffsetReset);
-
-        List<String> result = new ArrayList<>();
-        try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(props)) {
-            consumer.subscribe(Collections.singletonList(kafkaDemoProperties.getTopic()));
-            ConsumerRecords<String, String> records = consumer.poll(Duration.ofSeconds(10));
-            log.info("[KafkaDemo] Polling direct : {} messages lus depuis le topic {}", records.count(),
-                    kafkaDemoProperties.getTopic());
-            for (ConsumerRecord<String, String> record : records) {
-                String key = record.key();
-                String value = record.value();
-                int partition = record.partition();
-                if (key != null) {
-                    result.add("[clé=" + key + ", partition=" + partition + "] " + value);
-                } else {
-                    result.add("[partition=" + partition + "] " + value);
-                }
-            }
-        }
-        return result;
+        return topicTailer.recentMessages();
     }
 
     /**
@@ -132,40 +240,49 @@ public class KafkaConsumerService {
     }
 
     /**
-     * Traite le batch, logge, ajoute le résumé à messages, et publie le résultat
-     * sur le topic résultat.
+     * Traite le batch, logge, ajoute le résumé à messages, et retourne le
+     * résultat à publier sur le topic résultat.
+     *
+     * Les contrats sont décodés un par un ({@link ContractBatchReader}) et
+     * leurs résultats écrits au fur et à mesure ({@link JsonGenerator}), sans
+     * List&lt;ContractDto&gt; ni liste de résultats intermédiaires. Le JSON
+     * produit et le résumé affiché restent proportionnels à la taille du lot.
      *
-     * @return le JSON envoyé sur le topic résultat
+     * @return le JSON à envoyer sur le topic résultat
      */
-    private void calculateBatchSummaryAndSendResult(String value, int partition)
-            throws JsonProcessingException, JsonMappingException {
-        List<ContractDto> batch = objectMapper.readValue(value, new TypeReference<List<ContractDto>>() {
-        });
+    private String calculateBatchSummary(String value, int partition) throws IOException {
         StringBuilder batchSummary = new StringBuilder();
         batchSummary.append("[Batch][partition=").append(partition).append("] ");
         batchSummary.append("Contrats traités: ");
-        List<ContractResultDto> results = new ArrayList<>();
-        for (ContractDto contract : batch) {
-            boolean isEligible = false;
-            try {
-                int idInt = Integer.parseInt(contract.getId());
-                isEligible = (idInt % 2 == 0);
-            } catch (NumberFormatException e) {
-                // Si l'id n'est pas un nombre, on considère non éligible
+        StringWriter resultJson = new StringWriter();
+        try (JsonGenerator results = objectMapper.getFactory().createGenerator(resultJson)) {
+            results.writeStartArray();
+            int count = contractBatchReader.forEach(value, contract -> {
+                boolean isEligible = false;
+                try {
+                    int idInt = Integer.parseInt(contract.getId());
+                    isEligible = (idInt % 2 == 0);
+                } catch (NumberFormatException e) {
+                    // Si l'id n'est pas un nombre, on considère non éligible
+                }
+                log.debug("[Batch][partition={}] Contrat id={} label='{}' => isEligible={}", partition,
+                        contract.getId(), contract.getLabel(), isEligible);
+                batchSummary.append(contract.getId()).append(":").append(isEligible ? "✔" : "✘").append(", ");
+                // même JSON que ContractResultDto
+                results.writeStartObject();
+                results.writeStringField("contractId", contract.getId());
+                results.writeBooleanField("eligible", isEligible);
+                results.writeNumberField("amount", RESULT_AMOUNT);
+                results.writeEndObject();
+            });
+            results.writeEndArray();
+            // Retirer la dernière virgule
+            if (count > 0) {
+                batchSummary.setLength(batchSummary.length() - 2);
             }
-            log.info("[Batch][partition={}] Contrat id={} label='{}' => isEligible={}", partition, contract.getId(),
-                    contract.getLabel(), isEligible);
-            batchSummary.append(contract.getId()).append(":").append(isEligible ? "✔" : "✘").append(", ");
-            results.add(new ContractResultDto(contract.getId(), isEligible, new BigDecimal(10)));
-        }
-        // Retirer la dernière virgule
-        if (batch.size() > 0) {
-            batchSummary.setLength(batchSummary.length() - 2);
         }
         messages.add(batchSummary.toString());
-        // Publier le résultat sur le topic résultat
-        String resultJson = objectMapper.writeValueAsString(results);
-        kafkaProducerService.sendMessage("devops-training-result", "result-batch", resultJson);
+        return resultJson.toString();
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,232 @@
+package com.harington.devops_training.kafka.consumer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.harington.devops_training.kafka.config.KafkaDemoProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lecteur permanent du topic de démo, qui garde en mémoire les derniers
+ * messages de chaque partition pour la section "polling direct" de
+ * /kafka-demo.
+ *
+ * Un seul KafkaConsumer, sans groupe : les partitions sont assignées
+ * directement ({@code assign}) et lues à partir des
+ * {@code kafka.demo.polling-window} derniers offsets ({@code seek}). Pas de
+ * rebalance, pas de groupe orphelin sur le broker, et la page répond
+ * immédiatement depuis la fenêtre en mémoire. Les nouvelles partitions du
+ * topic sont prises en compte toutes les 30 secondes.
+ *
+ * Tant que le topic n'existe pas, le lecteur ne lit rien : il vérifie de
+ * nouveau après un délai qui double à chaque essai (jusqu'à 30 secondes) et
+ * ne le signale qu'une fois.
+ */
+@Component
+@Slf4j
+public class KafkaTopicTailer implements SmartLifecycle {
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+    private static final long PARTITION_REFRESH_MS = 30_000;
+    private static final long MISSING_TOPIC_INITIAL_DELAY_MS = 1_000;
+
+    private final KafkaProperties kafkaProperties;
+    private final KafkaDemoProperties kafkaDemoProperties;
+    private final Map<Integer, MessageRingBuffer> windows = new ConcurrentSkipListMap<>();
+
+    private volatile boolean running;
+    private volatile KafkaConsumer<String, String> consumer;
+    private Thread thread;
+    /**
+     * Absence du topic déjà signalée (utilisé par le thread de lecture
+     * uniquement).
+     */
+    private boolean missingTopicLogged;
+
+    public KafkaTopicTailer(KafkaProperties kafkaProperties, KafkaDemoProperties kafkaDemoProperties) {
+        this.kafkaProperties = kafkaProperties;
+        this.kafkaDemoProperties = kafkaDemoProperties;
+    }
+
+    /**
+     * Derniers messages lus, partition par partition (du plus ancien au plus
+     * récent dans chaque partition).
+     */
+    public List<String> recentMessages() {
+        List<String> result = new ArrayList<>();
+        windows.values().forEach(window -> result.addAll(window.snapshot()));
+        return result;
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        thread = new Thread(this::run, "kafka-tailer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        KafkaConsumer<String, String> current = consumer;
+        if (current != null) {
+            current.wakeup();
+        }
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(POLL_TIMEOUT.toMillis() * 4);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        while (running) {
+            try (KafkaConsumer<String, String> kafkaConsumer = new KafkaConsumer<>(consumerProperties())) {
+                consumer = kafkaConsumer;
+                tail(kafkaConsumer);
+            } catch (WakeupException e) {
+                // arrêt demandé
+            } catch (RuntimeException e) {
+                if (!running) {
+                    break;
+                }
+                log.warn("[KafkaDemo] Lecture du topic {} interrompue : {} (nouvel essai dans {} s)",
+                        kafkaDemoProperties.getTopic(), e.getMessage(), RETRY_DELAY.toSeconds());
+                sleepBeforeRetry();
+            } finally {
+                consumer = null;
+            }
+        }
+    }
+
+    private void tail(KafkaConsumer<String, String> kafkaConsumer) {
+        List<TopicPartition> assigned = List.of();
+        long nextRefresh = 0;
+        long missingTopicDelay = MISSING_TOPIC_INITIAL_DELAY_MS;
+        while (running) {
+            if (System.currentTimeMillis() >= nextRefresh) {
+                assigned = assign(kafkaConsumer, assigned);
+                if (assigned.isEmpty()) {
+                    topicMissing();
+                    nextRefresh = System.currentTimeMillis() + missingTopicDelay;
+                    missingTopicDelay = Math.min(missingTopicDelay * 2, PARTITION_REFRESH_MS);
+                } else {
+                    missingTopicLogged = false;
+                    nextRefresh = System.currentTimeMillis() + PARTITION_REFRESH_MS;
+                    missingTopicDelay = MISSING_TOPIC_INITIAL_DELAY_MS;
+                }
+            }
+            if (assigned.isEmpty()) {
+                // rien à lire : poll() sans partition assignée échouerait
+                pause(nextRefresh - System.currentTimeMillis());
+                continue;
+            }
+            for (ConsumerRecord<String, String> record : kafkaConsumer.poll(POLL_TIMEOUT)) {
+                window(record.partition()).add(format(record));
+            }
+        }
+    }
+
+    /**
+     * Assigne toutes les partitions du topic ; les nouvelles sont positionnées
+     * sur leurs {@code polling-window} derniers messages.
+     */
+    private List<TopicPartition> assign(KafkaConsumer<String, String> kafkaConsumer, List<TopicPartition> assigned) {
+        String topic = kafkaDemoProperties.getTopic();
+        List<PartitionInfo> infos = kafkaConsumer.partitionsFor(topic);
+        if (infos == null || infos.isEmpty()) {
+            if (!assigned.isEmpty()) {
+                // topic supprimé
+                kafkaConsumer.assign(List.of());
+            }
+            return List.of();
+        }
+        if (infos.size() == assigned.size()) {
+            return assigned;
+        }
+        List<TopicPartition> partitions = infos.stream()
+                .map(info -> new TopicPartition(topic, info.partition()))
+                .toList();
+        List<TopicPartition> added = partitions.stream().filter(tp -> !assigned.contains(tp)).toList();
+        kafkaConsumer.assign(partitions);
+        Map<TopicPartition, Long> beginning = kafkaConsumer.beginningOffsets(added);
+        Map<TopicPartition, Long> end = kafkaConsumer.endOffsets(added);
+        int windowSize = kafkaDemoProperties.getPollingWindow();
+        for (TopicPartition tp : added) {
+            // relecture après reconnexion : la fenêtre repart de zéro pour éviter les doublons
+            windows.remove(tp.partition());
+            kafkaConsumer.seek(tp, Math.max(beginning.get(tp), end.get(tp) - windowSize));
+        }
+        log.info("[KafkaDemo] Lecture continue de {} partition(s) du topic {}", partitions.size(), topic);
+        return partitions;
+    }
+
+    private void topicMissing() {
+        if (!missingTopicLogged) {
+            log.warn("[KafkaDemo] Topic {} introuvable : lecture en attente de sa création",
+                    kafkaDemoProperties.getTopic());
+            missingTopicLogged = true;
+        }
+    }
+
+    private MessageRingBuffer window(int partition) {
+        return windows.computeIfAbsent(partition,
+                p -> new MessageRingBuffer(kafkaDemoProperties.getPollingWindow()));
+    }
+
+    private static String format(ConsumerRecord<String, String> record) {
+        if (record.key() != null) {
+            return "[clé=" + record.key() + ", partition=" + record.partition() + "] " + record.value();
+        }
+        return "[partition=" + record.partition() + "] " + record.value();
+    }
+
+    private Map<String, Object> consumerProperties() {
+        Map<String, Object> props = kafkaProperties.buildConsumerProperties(null);
+        // pas de groupe : aucune adhésion, aucun offset commité
+        props.remove(ConsumerConfig.GROUP_ID_CONFIG);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        return props;
+    }
+
+    private void sleepBeforeRetry() {
+        pause(RETRY_DELAY.toMillis());
+    }
+
+    private void pause(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
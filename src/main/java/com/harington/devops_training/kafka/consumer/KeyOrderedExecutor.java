@@ -0,0 +1,277 @@
+package com.harington.devops_training.kafka.consumer;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Traitement parallèle des messages Kafka, ordonné par clé (même principe que
+ * le "parallel consumer" de Confluent).
+ *
+ * Chaque message est confié à une file ("lane") choisie par hachage de sa clé
+ * (ou de sa partition s'il n'a pas de clé) : deux messages de même clé sont
+ * toujours traités dans l'ordre, par le même thread, tandis que des clés
+ * différentes d'une même partition avancent en parallèle. Le parallélisme
+ * n'est donc plus limité par le nombre de partitions.
+ *
+ * Pour chaque partition, les offsets en cours sont suivis : l'offset
+ * commitable est le plus petit offset encore en cours (ou le suivant du
+ * dernier reçu si tout est terminé). Un redémarrage ne rejoue ainsi que les
+ * messages non terminés (au moins une fois).
+ *
+ * Un message dont le traitement échoue est réessayé sur sa file, au plus
+ * {@code maxAttempts} fois en tout, à {@code retryBackoff} d'intervalle (les
+ * messages suivants de la même file attendent : l'ordre par clé est
+ * conservé). Après la dernière tentative, il est confié au
+ * {@link ConsumerRecordRecoverer} (topic de rejet) et compte alors comme
+ * terminé. Sans recoverer, ou si le recoverer échoue, il n'est pas considéré
+ * comme terminé : son offset reste non commitable, le commit de la partition
+ * s'arrête juste avant lui (partition bloquée, voir
+ * {@link #blockedPartitions()}) et le message est relu après un rebalance ou
+ * un redémarrage (avec les suivants déjà traités, au moins une fois).
+ *
+ * {@link #submit} bloque le thread du consumer quand {@code maxInFlight}
+ * messages sont en cours : c'est la contre-pression vers le poll.
+ * Les méthodes d'offsets sont appelées depuis le thread du consumer Kafka.
+ */
+@Slf4j
+public class KeyOrderedExecutor<K, V> implements AutoCloseable {
+    private final ExecutorService[] lanes;
+    private final Semaphore inFlight;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final ConsumerRecordRecoverer recoverer;
+    private final Map<TopicPartition, PartitionState> partitions = new ConcurrentHashMap<>();
+
+    /**
+     * Sans nouvel essai ni recoverer : un échec bloque le commit de sa
+     * partition.
+     */
+    public KeyOrderedExecutor(String name, int laneCount, int maxInFlight) {
+        this(name, laneCount, maxInFlight, 1, Duration.ZERO, null);
+    }
+
+    public KeyOrderedExecutor(String name, int laneCount, int maxInFlight, int maxAttempts, Duration retryBackoff,
+            ConsumerRecordRecoverer recoverer) {
+        this.lanes = new ExecutorService[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String threadName = name + "-" + i;
+            lanes[i] = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, threadName);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        this.inFlight = new Semaphore(maxInFlight);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoff = retryBackoff;
+        this.recoverer = recoverer;
+    }
+
+    /**
+     * Confie le message à la file de sa clé. Bloque tant que le nombre maximal
+     * de messages en cours est atteint.
+     */
+    public void submit(ConsumerRecord<K, V> record, Consumer<ConsumerRecord<K, V>> handler)
+            throws InterruptedException {
+        inFlight.acquire();
+        TopicPartition tp = new TopicPartition(record.topic(), record.partition());
+        PartitionState state = partitions.computeIfAbsent(tp, p -> new PartitionState());
+        long offset = record.offset();
+        synchronized (state) {
+            state.pending.add(offset);
+            state.highestSubmitted = Math.max(state.highestSubmitted, offset);
+        }
+        int hash = record.key() != null ? record.key().hashCode() : Objects.hash(tp);
+        lanes[Math.floorMod(hash ^ (hash >>> 16), lanes.length)].execute(() -> {
+            boolean failed = true;
+            try {
+                failed = !process(record, handler, tp);
+            } finally {
+                synchronized (state) {
+                    state.pending.remove(offset);
+                    if (failed) {
+                        state.failed.add(offset);
+                    }
+                    if (state.pending.isEmpty()) {
+                        state.notifyAll();
+                    }
+                }
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * Traite le message avec ses nouveaux essais, puis le confie au recoverer.
+     *
+     * @return true si le message est terminé (traité ou mis de côté)
+     */
+    private boolean process(ConsumerRecord<K, V> record, Consumer<ConsumerRecord<K, V>> handler, TopicPartition tp) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                handler.accept(record);
+                return true;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    return recover(record, e, tp);
+                }
+                log.warn("[ParallelConsumer] Échec du traitement de {}@{} (tentative {}/{}), "
+                        + "nouvel essai dans {} ms : {}", tp, record.offset(), attempt, maxAttempts,
+                        retryBackoff.toMillis(), e.getMessage());
+                try {
+                    Thread.sleep(retryBackoff.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    log.warn("[ParallelConsumer] Nouvel essai de {}@{} interrompu, commit bloqué avant cet offset",
+                            tp, record.offset());
+                    return false;
+                }
+            }
+        }
+    }
+
+    private boolean recover(ConsumerRecord<K, V> record, RuntimeException failure, TopicPartition tp) {
+        if (recoverer == null) {
+            log.error("[ParallelConsumer] Échec du traitement de {}@{}, commit bloqué avant cet offset : {}",
+                    tp, record.offset(), failure.getMessage(), failure);
+            return false;
+        }
+        try {
+            recoverer.accept(record, failure);
+            log.error("[ParallelConsumer] Échec du traitement de {}@{} après {} tentatives, "
+                    + "message mis de côté : {}", tp, record.offset(), maxAttempts, failure.getMessage(), failure);
+            return true;
+        } catch (RuntimeException e) {
+            log.error("[ParallelConsumer] Échec du traitement de {}@{} et de sa mise de côté, "
+                    + "commit bloqué avant cet offset : {}", tp, record.offset(), e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Offsets à commiter pour les partitions données : seules celles dont
+     * l'offset commitable a avancé depuis le dernier appel sont retournées.
+     * Le premier message en échec d'une partition borne son offset.
+     */
+    public Map<TopicPartition, OffsetAndMetadata> committableOffsets(Collection<TopicPartition> assignment) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition tp : assignment) {
+            PartitionState state = partitions.get(tp);
+            if (state == null) {
+                continue;
+            }
+            synchronized (state) {
+                long committable = state.highestSubmitted + 1;
+                if (!state.pending.isEmpty()) {
+                    committable = Math.min(committable, state.pending.first());
+                }
+                if (!state.failed.isEmpty()) {
+                    committable = Math.min(committable, state.failed.first());
+                }
+                if (committable > state.lastCommitted) {
+                    state.lastCommitted = committable;
+                    offsets.put(tp, new OffsetAndMetadata(committable));
+                }
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * Attend la fin des messages en cours des partitions données (avant leur
+     * révocation), au plus {@code timeout}. Les messages en échec sont
+     * terminés (ils ne sont plus en cours) mais restent non commités.
+     *
+     * @return false si des messages étaient encore en cours à l'échéance
+     */
+    public boolean awaitCompletion(Collection<TopicPartition> tps, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (TopicPartition tp : tps) {
+            PartitionState state = partitions.get(tp);
+            if (state == null) {
+                continue;
+            }
+            synchronized (state) {
+                while (!state.pending.isEmpty()) {
+                    long remainingMs = (deadline - System.nanoTime()) / 1_000_000;
+                    if (remainingMs <= 0) {
+                        return false;
+                    }
+                    state.wait(remainingMs);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Oublie les partitions révoquées ou perdues : si elles reviennent, le suivi
+     * repart des offsets commités.
+     */
+    public void forget(Collection<TopicPartition> tps) {
+        tps.forEach(partitions::remove);
+    }
+
+    /**
+     * Nombre de messages en cours de traitement.
+     */
+    public int inFlight() {
+        return partitions.values().stream().mapToInt(state -> {
+            synchronized (state) {
+                return state.pending.size();
+            }
+        }).sum();
+    }
+
+    /**
+     * Nombre de messages en échec, non commités, des partitions suivies.
+     */
+    public int failed() {
+        return partitions.values().stream().mapToInt(state -> {
+            synchronized (state) {
+                return state.failed.size();
+            }
+        }).sum();
+    }
+
+    /**
+     * Nombre de partitions dont le commit est arrêté par un message en échec.
+     */
+    public int blockedPartitions() {
+        return (int) partitions.values().stream().filter(state -> {
+            synchronized (state) {
+                return !state.failed.isEmpty();
+            }
+        }).count();
+    }
+
+    @Override
+    public void close() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdownNow();
+        }
+    }
+
+    private static final class PartitionState {
+        private final TreeSet<Long> pending = new TreeSet<>();
+        private final TreeSet<Long> failed = new TreeSet<>();
+        private long highestSubmitted = -1;
+        private long lastCommitted = -1;
+    }
+}
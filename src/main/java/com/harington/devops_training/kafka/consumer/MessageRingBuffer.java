@@ -0,0 +1,64 @@
+package com.harington.devops_training.kafka.consumer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Journal borné des derniers messages affichés sur la page de démo : au-delà
+ * de sa capacité, les plus anciens sont écrasés.
+ *
+ * Sans verrou : chaque écriture réserve un numéro de séquence (un seul
+ * getAndIncrement) puis écrit sa case ; plusieurs threads de consumer peuvent
+ * écrire en même temps. Une lecture ne bloque jamais les écritures : elle
+ * ignore simplement les cases écrasées ou pas encore écrites pendant qu'elle
+ * les parcourt.
+ *
+ * Le tableau est arrondi à une puissance de deux (numéro de case par masque),
+ * mais une lecture ne retourne que les {@code capacity} derniers messages.
+ */
+public class MessageRingBuffer {
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final int capacity;
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    /**
+     * @param capacity nombre de messages conservés
+     */
+    public MessageRingBuffer(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        int size = Integer.highestOneBit(Math.max(1, this.capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public void add(String message) {
+        long sequence = nextSequence.getAndIncrement();
+        slots.set((int) (sequence & mask), new Entry(sequence, message));
+    }
+
+    /**
+     * Copie des messages conservés, du plus ancien au plus récent.
+     */
+    public List<String> snapshot() {
+        long end = nextSequence.get();
+        long start = Math.max(0, end - capacity);
+        List<String> result = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            Entry entry = slots.get((int) (sequence & mask));
+            if (entry != null && entry.sequence() == sequence) {
+                result.add(entry.message());
+            }
+        }
+        return result;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private record Entry(long sequence, String message) {
+    }
+}
@@ -1,23 +1,112 @@
 package com.harington.devops_training.kafka.converter;
 
 import com.harington.devops_training.kafka.model.ContractDto;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
-
-public class ContractConverter {
-//
-//    public static ContractAvro convertToAvro(ContractDto dto) {
-//        return ContractAvro.newBuilder()
-//                .setId(dto.getId())
-//                .setAmount(dto.getAmount())
-//                .setIsEligible(dto.isEligible())
-//                .build();
-//    }
-//
-//    public static List<ContractAvro> convertListToAvro(List<ContractDto> dtos) {
-//        return dtos.stream()
-//                .map(ContractConverter::convertToAvro)
-//                .collect(Collectors.toList());
-//    }
-}
\ No newline at end of file
+
+/**
+ * Conversion entre {@link ContractDto} et les enregistrements Avro génériques
+ * d'un lot de contrats ({@link #BATCH_SCHEMA}).
+ *
+ * Tous les champs sont optionnels, comme dans le DTO. Les dates sont des
+ * {@code int} (logicalType date, jours depuis 1970) et le montant est écrit en
+ * texte décimal, pour garder la précision et l'échelle du BigDecimal.
+ */
+public final class ContractConverter {
+    public static final String BATCH_SCHEMA_JSON = """
+            {
+              "type": "record",
+              "name": "ContractBatch",
+              "namespace": "com.harington.devops_training.kafka.avro",
+              "fields": [
+                {"name": "contracts", "type": {"type": "array", "items": {
+                  "type": "record",
+                  "name": "Contract",
+                  "fields": [
+                    {"name": "id", "type": ["null", "string"], "default": null},
+                    {"name": "label", "type": ["null", "string"], "default": null},
+                    {"name": "description", "type": ["null", "string"], "default": null},
+                    {"name": "startDate", "type": ["null", {"type": "int", "logicalType": "date"}], "default": null},
+                    {"name": "endDate", "type": ["null", {"type": "int", "logicalType": "date"}], "default": null},
+                    {"name": "amount", "type": ["null", "string"], "default": null},
+                    {"name": "isEligible", "type": ["null", "boolean"], "default": null}
+                  ]
+                }}}
+              ]
+            }
+            """;
+
+    public static final Schema BATCH_SCHEMA = new Schema.Parser().parse(BATCH_SCHEMA_JSON);
+    public static final Schema CONTRACTS_SCHEMA = BATCH_SCHEMA.getField("contracts").schema();
+    public static final Schema CONTRACT_SCHEMA = CONTRACTS_SCHEMA.getElementType();
+
+    private ContractConverter() {
+    }
+
+    public static GenericRecord toAvroBatch(List<ContractDto> dtos) {
+        GenericData.Array<GenericRecord> contracts = new GenericData.Array<>(dtos.size(), CONTRACTS_SCHEMA);
+        for (ContractDto dto : dtos) {
+            contracts.add(toAvro(dto));
+        }
+        GenericRecord batch = new GenericData.Record(BATCH_SCHEMA);
+        batch.put("contracts", contracts);
+        return batch;
+    }
+
+    public static GenericRecord toAvro(ContractDto dto) {
+        GenericRecord contract = new GenericData.Record(CONTRACT_SCHEMA);
+        contract.put("id", dto.getId());
+        contract.put("label", dto.getLabel());
+        contract.put("description", dto.getDescription());
+        contract.put("startDate", epochDay(dto.getStartDate()));
+        contract.put("endDate", epochDay(dto.getEndDate()));
+        contract.put("amount", dto.getAmount() == null ? null : dto.getAmount().toString());
+        contract.put("isEligible", dto.getIsEligible());
+        return contract;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static List<ContractDto> toDtoList(GenericRecord batch) {
+        List<GenericRecord> contracts = (List<GenericRecord>) batch.get("contracts");
+        List<ContractDto> dtos = new ArrayList<>(contracts.size());
+        for (GenericRecord contract : contracts) {
+            dtos.add(toDto(contract));
+        }
+        return dtos;
+    }
+
+    /**
+     * Les chaînes lues par Avro sont des {@code Utf8} (éventuellement
+     * réutilisés par le lecteur) : elles sont copiées en String.
+     */
+    public static ContractDto toDto(GenericRecord contract) {
+        Object amount = contract.get("amount");
+        return ContractDto.builder()
+                .id(text(contract.get("id")))
+                .label(text(contract.get("label")))
+                .description(text(contract.get("description")))
+                .startDate(date(contract.get("startDate")))
+                .endDate(date(contract.get("endDate")))
+                .amount(amount == null ? null : new BigDecimal(amount.toString()))
+                .isEligible((Boolean) contract.get("isEligible"))
+                .build();
+    }
+
+    private static Integer epochDay(LocalDate date) {
+        return date == null ? null : (int) date.toEpochDay();
+    }
+
+    private static LocalDate date(Object epochDay) {
+        return epochDay == null ? null : LocalDate.ofEpochDay((Integer) epochDay);
+    }
+
+    private static String text(Object value) {
+        return value == null ? null : value.toString();
+    }
+}
@@ -0,0 +1,8 @@
+package com.harington.devops_training.kafka.model;
+
+/**
+ * Accusé de réception d'un lot de contrats publié sur Kafka : partition et
+ * offset attribués par le broker.
+ */
+public record BatchAck(String batchId, int size, int partition, long offset) {
+}
@@ -0,0 +1,8 @@
+package com.harington.devops_training.kafka.model;
+
+/**
+ * Contrat accompagné de son éligibilité, calculée une seule fois pour tout le
+ * traitement du lot (statistiques et routage).
+ */
+public record ContractVerdict(ContractDto contract, boolean eligible) {
+}
@@ -0,0 +1,20 @@
+package com.harington.devops_training.kafka.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Agrégat des contrats éligibles d'un client sur une fenêtre de temps :
+ * nombre de contrats et somme des montants.
+ */
+public record EligibleStats(long count, BigDecimal amount) {
+    public static final EligibleStats EMPTY = new EligibleStats(0, BigDecimal.ZERO);
+
+    public EligibleStats add(ContractDto contract) {
+        BigDecimal contractAmount = contract.getAmount() == null ? BigDecimal.ZERO : contract.getAmount();
+        return new EligibleStats(count + 1, amount.add(contractAmount));
+    }
+
+    public EligibleStats plus(EligibleStats other) {
+        return new EligibleStats(count + other.count, amount.add(other.amount));
+    }
+}
@@ -0,0 +1,22 @@
+package com.harington.devops_training.kafka.model;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Contrats éligibles d'un client sur une période : total et détail par
+ * fenêtre (de la plus ancienne à la plus récente). Les fenêtres ne se
+ * chevauchent pas et le total est leur somme.
+ *
+ * @param window tumbling ou hopping (une fenêtre glissante sur
+ *               hopping-size / hopping-advance)
+ * @param from   début de la première fenêtre, au plus une fenêtre (tumbling)
+ *               ou un pas (hopping) avant le début demandé
+ */
+public record WindowedStatsView(String clientId, String window, Instant from, Instant to, long count,
+        BigDecimal amount, List<Point> windows) {
+
+    public record Point(Instant start, Instant end, long count, BigDecimal amount) {
+    }
+}
@@ -1,54 +1,92 @@
 package com.harington.devops_training.kafka.producer;
 
+import com.harington.devops_training.kafka.model.BatchAck;
 import com.harington.devops_training.kafka.model.ContractDto;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * Envois Kafka de l'application. Chaque envoi est comptabilisé par
+ * {@link ProducerDeliveryTracker} (latence, échecs, messages en attente) et
+ * les erreurs sont journalisées dès l'échec, y compris asynchrone.
+ */
 @Service
 @RequiredArgsConstructor
 public class KafkaProducerService {
+    /**
+     * Taille moyenne d'un contrat sérialisé en JSON, pour estimer la taille
+     * d'un lot sans le sérialiser.
+     */
+    static final int ESTIMATED_CONTRACT_BYTES = 200;
+
     private final KafkaTemplate<String, String> stringKafkaTemplate;
     private final KafkaTemplate<String, List<ContractDto>> contractListKafkaTemplate;
-
-//    @Value("${spring.kafka.producer.bootstrap-servers}")
-//    private String bootstrapServers;
-//
-//    @Value("${spring.kafka.properties.schema.registry.url}")
-//    private String schemaRegistryUrl;
+    private final ProducerDeliveryTracker deliveryTracker;
 
     public void sendMessage(String topic, String message) {
-        stringKafkaTemplate.send(topic, message);
+        deliveryTracker.track(topic, estimatedBytes(null, message), () -> stringKafkaTemplate.send(topic, message));
     }
 
     public void sendMessage(String topic, String key, String message) {
-        stringKafkaTemplate.send(topic, key, message);
+        send(topic, key, message);
+    }
+
+    /**
+     * Envoie tous les messages sans attendre chaque accusé de réception ; le
+     * résultat se termine quand le dernier est acquitté.
+     */
+    public CompletableFuture<Void> sendMessages(String topic, String key, List<String> messages) {
+        CompletableFuture<?>[] sends = new CompletableFuture<?>[messages.size()];
+        for (int i = 0; i < sends.length; i++) {
+            sends[i] = send(topic, key, messages.get(i));
+        }
+        return CompletableFuture.allOf(sends);
     }
 
     public void sendContracts(String topic, String key, List<ContractDto> contracts) {
-        try {
-            contractListKafkaTemplate.send(topic, key, contracts);
-        } catch (Exception e) {
-            e.printStackTrace();
+        sendContractList(topic, key, contracts);
+    }
+
+    /**
+     * Publie chaque lot une seule fois (clé "batch-1", "batch-2"...) sans
+     * attendre l'accusé de réception d'un lot avant d'envoyer le suivant : le
+     * producteur regroupe les envois en requêtes réseau. Le résultat se termine
+     * quand tous les lots sont acquittés (dans l'ordre des lots). Si un lot est
+     * en erreur, il échoue une fois tous les envois terminés (acquittés ou en
+     * erreur), avec l'erreur de ce lot.
+     */
+    public CompletableFuture<List<BatchAck>> sendContractBatches(String topic, List<List<ContractDto>> batches) {
+        List<CompletableFuture<BatchAck>> acks = new ArrayList<>(batches.size());
+        for (int i = 0; i < batches.size(); i++) {
+            List<ContractDto> batch = batches.get(i);
+            String batchId = "batch-" + (i + 1);
+            acks.add(sendContractList(topic, batchId, batch)
+                    .thenApply(result -> new BatchAck(batchId, batch.size(),
+                            result.getRecordMetadata().partition(), result.getRecordMetadata().offset())));
         }
+        return CompletableFuture.allOf(acks.toArray(CompletableFuture[]::new))
+                .thenApply(done -> acks.stream().map(CompletableFuture::join).toList());
+    }
+
+    private CompletableFuture<SendResult<String, String>> send(String topic, String key, String message) {
+        return deliveryTracker.track(topic, estimatedBytes(key, message),
+                () -> stringKafkaTemplate.send(topic, key, message));
     }
 
-    // public void sendContractsAvro(String topic, String key, List<ContractDto>
-    // contracts) {
-    // Properties props = new Properties();
-    // props.put("bootstrap.servers", bootstrapServers);
-    // props.put("key.serializer",
-    // "org.apache.kafka.common.serialization.StringSerializer");
-    // props.put("value.serializer",
-    // "io.confluent.kafka.serializers.KafkaAvroSerializer");
-    // props.put("schema.registry.url", schemaRegistryUrl);
-
-    // try (KafkaProducer<String, ContractAvro> producer = new
-    // KafkaProducer<>(props)) {
-    // producer.send(new ProducerRecord<>(topic, key, contract));
-    // }
-    // }
+    private CompletableFuture<SendResult<String, List<ContractDto>>> sendContractList(String topic, String key,
+            List<ContractDto> contracts) {
+        long estimatedBytes = (long) contracts.size() * ESTIMATED_CONTRACT_BYTES + estimatedBytes(key, null);
+        return deliveryTracker.track(topic, estimatedBytes,
+                () -> contractListKafkaTemplate.send(topic, key, contracts));
+    }
+
+    private static long estimatedBytes(String key, String message) {
+        return (key == null ? 0 : key.length()) + (message == null ? 0 : message.length());
+    }
 }
@@ -0,0 +1,136 @@
+package com.harington.devops_training.kafka.producer;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.kafka.common.errors.TimeoutException;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import com.harington.devops_training.kafka.config.KafkaDemoProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Suivi des envois Kafka de {@link KafkaProducerService}, à partir du
+ * résultat (asynchrone) de chaque envoi.
+ *
+ * Métriques exposées : kafka.demo.producer.send.latency (histogramme par
+ * topic, de l'appel à l'accusé de réception), kafka.demo.producer.send.failures
+ * (par topic et type d'erreur), kafka.demo.producer.in.flight.records et
+ * kafka.demo.producer.in.flight.bytes.
+ *
+ * Les nouveaux essais ne sont pas visibles ici : le producteur les fait seul,
+ * avant de compléter l'envoi. Ils sont comptés par les métriques du client
+ * Kafka, publiées par MicrometerProducerListener (voir KafkaProducerConfig) :
+ * kafka.producer.record.retry.rate et kafka.producer.record.retry.total, par
+ * client.id.
+ *
+ * Avec {@code kafka.demo.producer.back-pressure.enabled}, un envoi attend
+ * (au plus {@code max-block}) tant que les octets non acquittés dépassent
+ * {@code max-in-flight-bytes}, au lieu de remplir le buffer du producteur.
+ * Les tailles sont estimées avant sérialisation.
+ */
+@Component
+@Slf4j
+public class ProducerDeliveryTracker {
+    private final MeterRegistry meterRegistry;
+    private final boolean backPressure;
+    private final Semaphore inFlightBudget;
+    private final int maxInFlightBytes;
+    private final long maxBlockNanos;
+
+    private final AtomicInteger inFlightRecords = new AtomicInteger();
+    private final AtomicLong inFlightBytes = new AtomicLong();
+    private final Map<String, Timer> latencies = new ConcurrentHashMap<>();
+
+    public ProducerDeliveryTracker(KafkaDemoProperties kafkaDemoProperties, MeterRegistry meterRegistry) {
+        KafkaDemoProperties.BackPressure config = kafkaDemoProperties.getProducer().getBackPressure();
+        this.meterRegistry = meterRegistry;
+        this.backPressure = config.isEnabled();
+        this.maxInFlightBytes = (int) Math.min(Integer.MAX_VALUE, config.getMaxInFlightBytes().toBytes());
+        this.inFlightBudget = new Semaphore(maxInFlightBytes);
+        this.maxBlockNanos = config.getMaxBlock().toNanos();
+        Gauge.builder("kafka.demo.producer.in.flight.records", inFlightRecords, AtomicInteger::get)
+                .description("Messages envoyés et pas encore acquittés")
+                .register(meterRegistry);
+        Gauge.builder("kafka.demo.producer.in.flight.bytes", inFlightBytes, AtomicLong::get)
+                .description("Octets (estimés) envoyés et pas encore acquittés")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Lance l'envoi et comptabilise son résultat. Une erreur levée par
+     * {@code send} avant l'envoi (sérialisation, métadonnées indisponibles...)
+     * est retournée dans le résultat, comme une erreur d'acquittement.
+     */
+    public <V> CompletableFuture<SendResult<String, V>> track(String topic, long estimatedBytes,
+            Supplier<CompletableFuture<SendResult<String, V>>> send) {
+        int permits = (int) Math.min(estimatedBytes, maxInFlightBytes);
+        if (backPressure && !acquire(permits)) {
+            TimeoutException e = new TimeoutException("Plus de " + maxInFlightBytes
+                    + " octets en attente d'acquittement vers " + topic);
+            failed(topic, e);
+            return CompletableFuture.failedFuture(e);
+        }
+        inFlightRecords.incrementAndGet();
+        inFlightBytes.addAndGet(estimatedBytes);
+        long start = System.nanoTime();
+        CompletableFuture<SendResult<String, V>> result;
+        try {
+            result = send.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        return result.whenComplete((sendResult, error) -> {
+            inFlightRecords.decrementAndGet();
+            inFlightBytes.addAndGet(-estimatedBytes);
+            if (backPressure) {
+                inFlightBudget.release(permits);
+            }
+            if (error != null) {
+                failed(topic, error);
+            } else {
+                latency(topic).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    private boolean acquire(int permits) {
+        try {
+            return inFlightBudget.tryAcquire(permits, maxBlockNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void failed(String topic, Throwable error) {
+        Throwable cause = error.getCause() != null ? error.getCause() : error;
+        Counter.builder("kafka.demo.producer.send.failures")
+                .tag("topic", topic)
+                .tag("exception", cause.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+        log.error("[KafkaProducer] Échec de l'envoi vers {} : {}", topic, cause.getMessage(), cause);
+    }
+
+    private Timer latency(String topic) {
+        return latencies.computeIfAbsent(topic, t -> Timer.builder("kafka.demo.producer.send.latency")
+                .description("Durée entre l'envoi et l'accusé de réception du broker")
+                .tag("topic", t)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,130 @@
+package com.harington.devops_training.kafka.serde;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.stereotype.Component;
+
+import com.harington.devops_training.kafka.avro.AvroCodec;
+import com.harington.devops_training.kafka.converter.ContractConverter;
+import com.harington.devops_training.kafka.model.ContractDto;
+
+import io.confluent.kafka.schemaregistry.ParsedSchema;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+
+/**
+ * Sérialisation binaire Avro des lots de contrats, au format des sérialiseurs
+ * Confluent : un octet magique 0, l'identifiant du schéma sur 4 octets dans le
+ * registre de schémas, puis le lot encodé ({@link ContractConverter#BATCH_SCHEMA}).
+ *
+ * Le schéma est enregistré une fois par topic (sujet {@code <topic>-value}).
+ * L'encodage passe par un {@link AvroCodec} partagé, la lecture par un codec
+ * par schéma d'écriture ; chaque thread réutilise en plus l'enregistrement
+ * décodé.
+ */
+@Component
+public class ContractAvroSerde implements Serde<List<ContractDto>> {
+    public static final byte MAGIC_BYTE = 0;
+    private static final int HEADER_SIZE = 5;
+
+    private final SchemaRegistryClient schemaRegistryClient;
+    private final AvroCodec<GenericRecord> writer = AvroCodec.generic(ContractConverter.BATCH_SCHEMA);
+    /**
+     * En-tête (octet magique et identifiant du schéma) de chaque topic.
+     */
+    private final Map<String, byte[]> headers = new ConcurrentHashMap<>();
+    private final Map<Integer, AvroCodec<GenericRecord>> readers = new ConcurrentHashMap<>();
+    private final ThreadLocal<GenericRecord> decoded = new ThreadLocal<>();
+
+    public ContractAvroSerde(SchemaRegistryClient schemaRegistryClient) {
+        this.schemaRegistryClient = schemaRegistryClient;
+    }
+
+    /**
+     * true si le message commence par l'octet magique Avro (un lot JSON
+     * commence par '[' ou un espace).
+     */
+    public static boolean isAvro(byte[] bytes) {
+        return bytes != null && bytes.length >= HEADER_SIZE && bytes[0] == MAGIC_BYTE;
+    }
+
+    @Override
+    public Serializer<List<ContractDto>> serializer() {
+        return this::serialize;
+    }
+
+    @Override
+    public Deserializer<List<ContractDto>> deserializer() {
+        return (topic, bytes) -> deserialize(bytes);
+    }
+
+    public byte[] serialize(String topic, List<ContractDto> contracts) {
+        if (contracts == null) {
+            return null;
+        }
+        byte[] header = headers.computeIfAbsent(topic, this::header);
+        try {
+            // seule copie : le tableau attendu par Kafka
+            return AvroCodec.toBytes(writer.encode(header, ContractConverter.toAvroBatch(contracts)));
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Échec de la sérialisation Avro d'un lot pour " + topic, e);
+        }
+    }
+
+    public List<ContractDto> deserialize(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        if (!isAvro(bytes)) {
+            throw new SerializationException("Octet magique Avro absent");
+        }
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        in.get();
+        int schemaId = in.getInt();
+        GenericRecord batch;
+        try {
+            batch = readers.computeIfAbsent(schemaId, this::reader).decode(in, decoded.get());
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Échec de la lecture Avro d'un lot (schéma " + schemaId + ")", e);
+        }
+        decoded.set(batch);
+        return ContractConverter.toDtoList(batch);
+    }
+
+    private byte[] header(String topic) {
+        int schemaId = register(topic);
+        return ByteBuffer.allocate(HEADER_SIZE).put(MAGIC_BYTE).putInt(schemaId).array();
+    }
+
+    private int register(String topic) {
+        try {
+            return schemaRegistryClient.register(topic + "-value", new AvroSchema(ContractConverter.BATCH_SCHEMA));
+        } catch (IOException | RestClientException e) {
+            throw new SerializationException("Enregistrement du schéma Avro impossible pour " + topic, e);
+        }
+    }
+
+    /**
+     * Lecteur du schéma d'écriture {@code schemaId} vers le schéma courant.
+     */
+    private AvroCodec<GenericRecord> reader(int schemaId) {
+        try {
+            ParsedSchema parsed = schemaRegistryClient.getSchemaById(schemaId);
+            Schema writerSchema = ((AvroSchema) parsed).rawSchema();
+            return AvroCodec.generic(writerSchema, ContractConverter.BATCH_SCHEMA);
+        } catch (IOException | RestClientException e) {
+            throw new SerializationException("Schéma Avro " + schemaId + " introuvable", e);
+        }
+    }
+}
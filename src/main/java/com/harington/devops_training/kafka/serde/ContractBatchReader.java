@@ -0,0 +1,97 @@
+package com.harington.devops_training.kafka.serde;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.harington.devops_training.kafka.model.ContractDto;
+
+/**
+ * Lecture en flux (JsonParser) d'un lot de contrats JSON
+ * ({@code [{"id": ..., "amount": ...}, ...]}).
+ *
+ * {@link #forEach} parcourt le tableau avec le JsonParser et décode les
+ * contrats un par un : un seul ContractDto décodé à la fois (le JSON du lot
+ * reste, lui, entièrement en mémoire), et le traitement commence dès le
+ * premier contrat. Chaque contrat est décodé par
+ * l'ObjectMapper de l'application ({@link ObjectReader} de ContractDto) : les
+ * règles de lecture (champs inconnus, formats de date de JavaTimeModule...)
+ * sont celles de {@code objectMapper.readValue}, utilisé avant ce lecteur, et
+ * restent définies au même endroit.
+ */
+@Component
+public class ContractBatchReader {
+    private final JsonFactory jsonFactory;
+    private final ObjectReader contractReader;
+
+    public ContractBatchReader(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.contractReader = objectMapper.readerFor(ContractDto.class);
+    }
+
+    /**
+     * Traitement d'un contrat du lot.
+     */
+    @FunctionalInterface
+    public interface ContractHandler {
+        void accept(ContractDto contract) throws IOException;
+    }
+
+    /**
+     * Décode le lot contrat par contrat.
+     *
+     * @return le nombre de contrats lus
+     */
+    public int forEach(String json, ContractHandler handler) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            return read(parser, handler);
+        }
+    }
+
+    /**
+     * Décode le lot contrat par contrat.
+     *
+     * @return le nombre de contrats lus
+     */
+    public int forEach(byte[] json, ContractHandler handler) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            return read(parser, handler);
+        }
+    }
+
+    /**
+     * Décode le lot complet (un {@link ContractDto} par contrat), pour les
+     * traitements qui ont besoin de la liste entière.
+     */
+    public List<ContractDto> readList(byte[] json) throws IOException {
+        List<ContractDto> contracts = new ArrayList<>();
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            read(parser, contracts::add);
+        }
+        return contracts;
+    }
+
+    private int read(JsonParser parser, ContractHandler handler) throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "Tableau de contrats attendu");
+        }
+        int count = 0;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            // s'arrête sur la fin de l'objet : nextToken() passe au contrat suivant
+            handler.accept(contractReader.readValue(parser));
+            count++;
+        }
+        if (parser.currentToken() != JsonToken.END_ARRAY) {
+            throw new JsonParseException(parser, "Contrat attendu (objet JSON)");
+        }
+        return count;
+    }
+}
@@ -0,0 +1,63 @@
+package com.harington.devops_training.kafka.serde;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.harington.devops_training.kafka.model.ContractDto;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Un contrat en JSON (même format que l'ObjectMapper de l'application).
+ *
+ * Le contrat est écrit directement en octets UTF-8, dans les buffers
+ * recyclés de Jackson : pas de String intermédiaire à réencoder, une seule
+ * copie (le tableau remis à Kafka). Une erreur lève une
+ * {@link SerializationException} au lieu de produire un message null ; côté
+ * Kafka Streams, elle est confiée au ProductionExceptionHandler (topic de
+ * rejet).
+ */
+@Component
+public class ContractJsonSerde implements Serde<ContractDto> {
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+
+    public ContractJsonSerde(ObjectMapper objectMapper) {
+        this.writer = objectMapper.writerFor(ContractDto.class);
+        this.reader = objectMapper.readerFor(ContractDto.class);
+    }
+
+    @Override
+    public Serializer<ContractDto> serializer() {
+        return (topic, contract) -> {
+            if (contract == null) {
+                return null;
+            }
+            try {
+                return writer.writeValueAsBytes(contract);
+            } catch (IOException e) {
+                throw new SerializationException("Échec de la sérialisation du contrat " + contract.getId()
+                        + " pour " + topic, e);
+            }
+        };
+    }
+
+    @Override
+    public Deserializer<ContractDto> deserializer() {
+        return (topic, bytes) -> {
+            if (bytes == null) {
+                return null;
+            }
+            try {
+                return reader.readValue(bytes);
+            } catch (IOException e) {
+                throw new SerializationException("Contrat JSON invalide sur " + topic, e);
+            }
+        };
+    }
+}
@@ -1,8 +1,10 @@
 package com.harington.devops_training.kafka.serde;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harington.devops_training.kafka.config.KafkaDemoProperties;
 import com.harington.devops_training.kafka.model.ContractDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.Serde;
@@ -10,16 +12,36 @@ import org.apache.kafka.common.serialization.Serializer;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Lots de contrats en JSON, ou en Avro ({@link ContractAvroSerde}) pour les
+ * topics listés dans {@code kafka.demo.avro.topics}. La lecture détecte le
+ * format de chaque message : un topic peut passer de JSON à Avro sans
+ * attendre que les anciens messages aient expiré.
+ *
+ * Chaque lot décodé est compté dans kafka.demo.serde.batches.decoded (par
+ * topic et format) : comparé au nombre de messages lus, il montre si une
+ * topologie désérialise plusieurs fois le même message.
+ */
 @Component
 @RequiredArgsConstructor
 
 public class ContractListSerde implements Serde<List<ContractDto>> {
     private final ObjectMapper objectMapper;
+    private final ContractBatchReader contractBatchReader;
+    private final ContractAvroSerde contractAvroSerde;
+    private final KafkaDemoProperties kafkaDemoProperties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> decodedCounters = new ConcurrentHashMap<>();
 
     @Override
     public Serializer<List<ContractDto>> serializer() {
         return (topic, data) -> {
+            if (kafkaDemoProperties.getAvro().getTopics().contains(topic)) {
+                return contractAvroSerde.serialize(topic, data);
+            }
             try {
                 return objectMapper.writeValueAsBytes(data);
             } catch (Exception e) {
@@ -34,11 +56,24 @@ public class ContractListSerde implements Serde<List<ContractDto>> {
             try {
                 if (bytes == null)
                     return null;
-                return objectMapper.readValue(bytes, new TypeReference<List<ContractDto>>() {
-                });
+                if (ContractAvroSerde.isAvro(bytes)) {
+                    decoded(topic, "avro").increment();
+                    return contractAvroSerde.deserialize(bytes);
+                }
+                decoded(topic, "json").increment();
+                return contractBatchReader.readList(bytes);
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
         };
     }
+
+    private Counter decoded(String topic, String format) {
+        return decodedCounters.computeIfAbsent(topic + '|' + format,
+                k -> Counter.builder("kafka.demo.serde.batches.decoded")
+                        .description("Lots de contrats désérialisés")
+                        .tag("topic", String.valueOf(topic))
+                        .tag("format", format)
+                        .register(meterRegistry));
+    }
 }
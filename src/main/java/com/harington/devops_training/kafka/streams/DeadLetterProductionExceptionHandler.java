@@ -0,0 +1,153 @@
+package com.harington.devops_training.kafka.streams;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.streams.errors.ProductionExceptionHandler;
+import org.springframework.kafka.core.KafkaOperations;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Gestion des erreurs d'écriture de la topologie Kafka Streams : un message
+ * impossible à sérialiser est publié dans le topic de rejet
+ * ({@value #DEFAULT_DEAD_LETTER_TOPIC}, ou {@value #DEAD_LETTER_TOPIC_CONFIG})
+ * avec l'erreur en en-têtes, puis la topologie continue. L'envoi dans le
+ * topic de rejet est attendu (au plus {@value #DEAD_LETTER_TIMEOUT_CONFIG},
+ * {@value #DEFAULT_DEAD_LETTER_TIMEOUT_MS} ms par défaut) : s'il échoue
+ * (topic absent, droits, délai dépassé), le traitement s'arrête plutôt que de
+ * perdre le message. Les autres erreurs d'envoi arrêtent aussi le traitement
+ * (comportement par défaut).
+ *
+ * Activé par
+ * {@code spring.kafka.streams.properties.default.production.exception.handler}.
+ * Kafka Streams crée lui-même l'instance (une par thread) : le KafkaTemplate
+ * d'envoi et l'ObjectMapper de l'application lui sont passés dans la
+ * configuration de Kafka Streams ({@value #DEAD_LETTER_TEMPLATE_CONFIG},
+ * {@value #OBJECT_MAPPER_CONFIG}, voir KstreamProcessAndRoute). Le producteur
+ * appartient donc à Spring, qui le ferme à l'arrêt. Sans KafkaTemplate, le
+ * message n'est pas perdu : le traitement s'arrête.
+ */
+@Slf4j
+public class DeadLetterProductionExceptionHandler implements ProductionExceptionHandler {
+    public static final String DEAD_LETTER_TOPIC_CONFIG = "dead.letter.topic";
+    public static final String DEAD_LETTER_TEMPLATE_CONFIG = "dead.letter.template";
+    public static final String OBJECT_MAPPER_CONFIG = "dead.letter.object.mapper";
+    public static final String DEAD_LETTER_TIMEOUT_CONFIG = "dead.letter.send.timeout.ms";
+    public static final String DEFAULT_DEAD_LETTER_TOPIC = "contracts-dlt";
+    public static final long DEFAULT_DEAD_LETTER_TIMEOUT_MS = 10_000;
+
+    public static final String HEADER_TOPIC = "dlt-original-topic";
+    public static final String HEADER_EXCEPTION = "dlt-exception";
+    public static final String HEADER_MESSAGE = "dlt-exception-message";
+    public static final String HEADER_VALUE_TYPE = "dlt-value-type";
+
+    private String deadLetterTopic = DEFAULT_DEAD_LETTER_TOPIC;
+    private long sendTimeoutMs = DEFAULT_DEAD_LETTER_TIMEOUT_MS;
+    private KafkaOperations<byte[], byte[]> template;
+    private ObjectMapper objectMapper;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void configure(Map<String, ?> configs) {
+        Object topic = configs.get(DEAD_LETTER_TOPIC_CONFIG);
+        if (topic != null) {
+            deadLetterTopic = topic.toString();
+        }
+        Object timeout = configs.get(DEAD_LETTER_TIMEOUT_CONFIG);
+        if (timeout != null) {
+            sendTimeoutMs = Long.parseLong(timeout.toString());
+        }
+        if (configs.get(DEAD_LETTER_TEMPLATE_CONFIG) instanceof KafkaOperations<?, ?> operations) {
+            template = (KafkaOperations<byte[], byte[]>) operations;
+        } else {
+            log.warn("[KStream][DLT] Pas de KafkaTemplate ({}) : pas de topic de rejet",
+                    DEAD_LETTER_TEMPLATE_CONFIG);
+        }
+        objectMapper = configs.get(OBJECT_MAPPER_CONFIG) instanceof ObjectMapper mapper ? mapper
+                : new ObjectMapper().findAndRegisterModules();
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public ProductionExceptionHandlerResponse handleSerializationException(ProducerRecord record, Exception exception) {
+        if (template == null) {
+            log.error("[KStream] Message vers {} impossible à sérialiser : {}", record.topic(), exception.getMessage(),
+                    exception);
+            return ProductionExceptionHandlerResponse.FAIL;
+        }
+        log.error("[KStream][DLT] Message vers {} impossible à sérialiser, envoyé dans {} : {}",
+                record.topic(), deadLetterTopic, exception.getMessage(), exception);
+        ProducerRecord<byte[], byte[]> rejected = new ProducerRecord<>(deadLetterTopic, null, record.timestamp(),
+                payload(record.key()), payload(record.value()));
+        Headers headers = rejected.headers();
+        headers.add(HEADER_TOPIC, bytes(record.topic()));
+        headers.add(HEADER_EXCEPTION, bytes(exception.getClass().getName()));
+        headers.add(HEADER_MESSAGE, bytes(exception.getMessage()));
+        if (record.value() != null) {
+            headers.add(HEADER_VALUE_TYPE, bytes(record.value().getClass().getName()));
+        }
+        return send(rejected);
+    }
+
+    @Override
+    public ProductionExceptionHandlerResponse handle(ProducerRecord<byte[], byte[]> record, Exception exception) {
+        log.error("[KStream] Échec de l'envoi vers {} : {}", record.topic(), exception.getMessage(), exception);
+        return ProductionExceptionHandlerResponse.FAIL;
+    }
+
+    /**
+     * Attend l'accusé du topic de rejet : sans lui, continuer perdrait le
+     * message. Les erreurs de sérialisation sont rares, l'attente ne pèse pas
+     * sur le débit.
+     */
+    private ProductionExceptionHandlerResponse send(ProducerRecord<byte[], byte[]> rejected) {
+        try {
+            template.send(rejected).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+            return ProductionExceptionHandlerResponse.CONTINUE;
+        } catch (ExecutionException e) {
+            log.error("[KStream][DLT] Échec de l'envoi dans {}, arrêt du traitement : {}", deadLetterTopic,
+                    e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            log.error("[KStream][DLT] Pas d'accusé de {} après {} ms, arrêt du traitement", deadLetterTopic,
+                    sendTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("[KStream][DLT] Envoi dans {} interrompu, arrêt du traitement", deadLetterTopic);
+        }
+        return ProductionExceptionHandlerResponse.FAIL;
+    }
+
+    /**
+     * Clé ou valeur non sérialisée, en JSON (même ObjectMapper que
+     * l'application). Si l'objet ne se sérialise pas non plus en JSON, le
+     * message est envoyé sans contenu : les en-têtes décrivent l'erreur et le
+     * type de la valeur.
+     */
+    private byte[] payload(Object value) {
+        if (value == null || value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        if (value instanceof String text) {
+            return bytes(text);
+        }
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            log.warn("[KStream][DLT] {} non convertible en JSON : {}", value.getClass().getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,274 @@
+package com.harington.devops_training.kafka.streams;
+
+import static com.harington.devops_training.kafka.constants.KafkaConstants.ELIGIBLE_COUNT_STORE;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.StreamsMetadata;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.state.HostInfo;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import com.harington.devops_training.kafka.config.KafkaDemoProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Requêtes sur le nombre de contrats éligibles par client
+ * ({@code eligible-contracts-count-store}), quelle que soit l'instance de
+ * l'application qui détient la clé.
+ *
+ * Chaque instance annonce son adresse HTTP par {@code application.server}.
+ * Pour une clé, {@link KafkaStreams#queryMetadataForKey} donne l'instance
+ * active : le store local répond directement, sinon la requête est
+ * transmise à l'instance propriétaire (endpoints
+ * {@code /kafka-demo/internal/...}, qui ne lisent que le store local), puis
+ * à ses répliques standby si elle ne répond pas. Les requêtes multi-clés
+ * sont regroupées par instance (un appel HTTP par instance) ; une requête
+ * par intervalle interroge chaque instance active du store, ou une réplique
+ * de ses partitions. Une instance sans réponse ni réplique joignable donne
+ * une {@link InvalidStateStoreException} (503).
+ *
+ * Sans {@code application.server} (une seule instance), tout est lu
+ * localement.
+ */
+@Service
+@Slf4j
+public class EligibleCountQueryService {
+    private static final Serializer<String> KEY_SERIALIZER = Serdes.String().serializer();
+    private static final ParameterizedTypeReference<Map<String, Long>> COUNTS = new ParameterizedTypeReference<>() {
+    };
+
+    private final StreamsBuilderFactoryBean streamsBuilderFactoryBean;
+    private final RestClient restClient;
+
+    private volatile CachedStore cachedStore;
+
+    public EligibleCountQueryService(StreamsBuilderFactoryBean streamsBuilderFactoryBean,
+            KafkaDemoProperties kafkaDemoProperties, RestClient.Builder restClientBuilder) {
+        this.streamsBuilderFactoryBean = streamsBuilderFactoryBean;
+        this.restClient = StreamsQuerySupport.restClient(restClientBuilder, kafkaDemoProperties.getStreams());
+    }
+
+    /**
+     * Nombre de contrats éligibles du client (0 s'il n'en a aucun).
+     */
+    public long count(String clientId) {
+        return counts(List.of(clientId)).getOrDefault(clientId, 0L);
+    }
+
+    /**
+     * Nombres de contrats éligibles des clients donnés ; les clients sans
+     * contrat éligible sont absents du résultat.
+     */
+    public Map<String, Long> counts(Collection<String> clientIds) {
+        KafkaStreams streams = kafkaStreams();
+        HostInfo self = localHost();
+        Map<String, Long> result = new LinkedHashMap<>();
+        if (self == null) {
+            result.putAll(localCounts(clientIds));
+            return result;
+        }
+        List<String> local = new ArrayList<>();
+        Map<Owner, List<String>> remote = new HashMap<>();
+        for (String clientId : clientIds) {
+            KeyQueryMetadata metadata = streams.queryMetadataForKey(ELIGIBLE_COUNT_STORE, clientId, KEY_SERIALIZER);
+            if (metadata == null || KeyQueryMetadata.NOT_AVAILABLE.equals(metadata)) {
+                throw new InvalidStateStoreException(
+                        "Propriétaire de la clé " + clientId + " inconnu (rebalance en cours)");
+            }
+            if (self.equals(metadata.activeHost())) {
+                local.add(clientId);
+            } else {
+                remote.computeIfAbsent(new Owner(metadata.activeHost(), metadata.standbyHosts()),
+                        owner -> new ArrayList<>()).add(clientId);
+            }
+        }
+        if (!local.isEmpty()) {
+            result.putAll(localCounts(local));
+        }
+        remote.forEach((owner, keys) -> result.putAll(remoteCounts(owner, keys)));
+        return result;
+    }
+
+    /**
+     * Nombres de contrats éligibles des clients de {@code from} à {@code to}
+     * (inclus), sur toutes les instances, triés par client.
+     *
+     * Chaque instance active est interrogée pour ses partitions ; si elle ne
+     * répond pas, ses partitions sont lues sur une instance qui en porte une
+     * réplique standby (éventuellement celle-ci, déjà lue localement).
+     */
+    public Map<String, Long> range(String from, String to) {
+        KafkaStreams streams = kafkaStreams();
+        HostInfo self = localHost();
+        Map<String, Long> result = new TreeMap<>(localRange(from, to));
+        if (self == null) {
+            return result;
+        }
+        Collection<StreamsMetadata> instances = streams.streamsMetadataForStore(ELIGIBLE_COUNT_STORE);
+        StreamsMetadata local = null;
+        for (StreamsMetadata metadata : instances) {
+            if (self.equals(metadata.hostInfo())) {
+                local = metadata;
+            }
+        }
+        for (StreamsMetadata metadata : instances) {
+            if (self.equals(metadata.hostInfo()) || metadata.topicPartitions().isEmpty()) {
+                continue;
+            }
+            result.putAll(remoteRange(metadata, instances, local, from, to));
+        }
+        return result;
+    }
+
+    /**
+     * Lecture du store local uniquement (clés dont cette instance est
+     * propriétaire).
+     */
+    public Map<String, Long> localCounts(Collection<String> clientIds) {
+        ReadOnlyKeyValueStore<String, Long> store = localStore();
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (String clientId : clientIds) {
+            Long count = store.get(clientId);
+            if (count != null) {
+                result.put(clientId, count);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Intervalle de clés du store local uniquement.
+     */
+    public Map<String, Long> localRange(String from, String to) {
+        Map<String, Long> result = new TreeMap<>();
+        try (KeyValueIterator<String, Long> it = localStore().range(from, to)) {
+            it.forEachRemaining(entry -> result.put(entry.key, entry.value));
+        }
+        return result;
+    }
+
+    /**
+     * Interroge l'instance active puis, si elle ne répond pas, ses standby.
+     */
+    private Map<String, Long> remoteCounts(Owner owner, List<String> clientIds) {
+        String keys = String.join(",", clientIds);
+        RestClientException lastError = null;
+        List<HostInfo> hosts = new ArrayList<>();
+        hosts.add(owner.active());
+        hosts.addAll(owner.standbys());
+        for (HostInfo host : hosts) {
+            try {
+                return get(host, "/kafka-demo/internal/state?clientIds={keys}", keys);
+            } catch (RestClientException e) {
+                log.warn("[KStream][Query] Instance {} injoignable : {}", host, e.getMessage());
+                lastError = e;
+            }
+        }
+        throw new InvalidStateStoreException("Aucune instance ne répond pour " + keys, lastError);
+    }
+
+    /**
+     * Intervalle de clés des partitions actives d'une instance, lu sur
+     * l'instance puis, si elle ne répond pas, sur une instance qui porte une
+     * réplique de toutes ces partitions.
+     */
+    private Map<String, Long> remoteRange(StreamsMetadata owner, Collection<StreamsMetadata> instances,
+            StreamsMetadata local, String from, String to) {
+        Set<TopicPartition> partitions = owner.topicPartitions();
+        if (local != null && local.standbyTopicPartitions().containsAll(partitions)) {
+            // ces partitions ont déjà été lues dans le store local (standby)
+            try {
+                return get(owner.hostInfo(), "/kafka-demo/internal/state-range?from={from}&to={to}", from, to);
+            } catch (RestClientException e) {
+                log.warn("[KStream][Query] Instance {} injoignable, réplique locale utilisée : {}",
+                        owner.hostInfo(), e.getMessage());
+                return Map.of();
+            }
+        }
+        List<HostInfo> hosts = new ArrayList<>();
+        hosts.add(owner.hostInfo());
+        for (StreamsMetadata candidate : instances) {
+            if (candidate != owner && candidate != local
+                    && candidate.standbyTopicPartitions().containsAll(partitions)) {
+                hosts.add(candidate.hostInfo());
+            }
+        }
+        RestClientException lastError = null;
+        for (HostInfo host : hosts) {
+            try {
+                return get(host, "/kafka-demo/internal/state-range?from={from}&to={to}", from, to);
+            } catch (RestClientException e) {
+                log.warn("[KStream][Query] Instance {} injoignable : {}", host, e.getMessage());
+                lastError = e;
+            }
+        }
+        throw new InvalidStateStoreException("Aucune instance ne répond pour les partitions " + partitions,
+                lastError);
+    }
+
+    private Map<String, Long> get(HostInfo host, String path, Object... params) {
+        Map<String, Long> body = restClient.get()
+                .uri(StreamsQuerySupport.baseUrl(host) + path, params)
+                .retrieve()
+                .body(COUNTS);
+        return body == null ? Map.of() : body;
+    }
+
+    /**
+     * Handle du store local, créé une fois par instance KafkaStreams (il suit
+     * lui-même les partitions assignées au fil des rebalances). Les répliques
+     * standby sont incluses, pour répondre à la place d'une instance active
+     * injoignable.
+     */
+    private ReadOnlyKeyValueStore<String, Long> localStore() {
+        KafkaStreams streams = kafkaStreams();
+        CachedStore cached = cachedStore;
+        if (cached != null && cached.streams() == streams) {
+            return cached.store();
+        }
+        ReadOnlyKeyValueStore<String, Long> store = streams.store(
+                StoreQueryParameters.fromNameAndType(ELIGIBLE_COUNT_STORE, QueryableStoreTypes.<String, Long>keyValueStore())
+                        .enableStaleStores());
+        cachedStore = new CachedStore(streams, store);
+        return store;
+    }
+
+    private KafkaStreams kafkaStreams() {
+        return StreamsQuerySupport.kafkaStreams(streamsBuilderFactoryBean);
+    }
+
+    private HostInfo localHost() {
+        return StreamsQuerySupport.localHost(streamsBuilderFactoryBean);
+    }
+
+    /**
+     * Instance active et standby des clés transmises ensemble.
+     */
+    private record Owner(HostInfo active, Set<HostInfo> standbys) {
+    }
+
+    private record CachedStore(KafkaStreams streams, ReadOnlyKeyValueStore<String, Long> store) {
+    }
+}
@@ -0,0 +1,185 @@
+package com.harington.devops_training.kafka.streams;
+
+import static com.harington.devops_training.kafka.constants.KafkaConstants.ELIGIBLE_STATS_HOPPING_STORE;
+import static com.harington.devops_training.kafka.constants.KafkaConstants.ELIGIBLE_STATS_TUMBLING_STORE;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.state.HostInfo;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyWindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import com.harington.devops_training.kafka.config.KafkaDemoProperties;
+import com.harington.devops_training.kafka.model.EligibleStats;
+import com.harington.devops_training.kafka.model.WindowedStatsView;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Requêtes sur les statistiques par fenêtre des contrats éligibles
+ * (KstreamWindowedStats) : "contrats éligibles du client sur les N dernières
+ * minutes".
+ *
+ * Comme pour {@link EligibleCountQueryService}, la requête est lue dans le
+ * store local si cette instance détient le client, sinon transmise à
+ * l'instance propriétaire (puis à ses standby). La période est limitée à la
+ * rétention des stores.
+ */
+@Service
+@Slf4j
+public class EligibleStatsQueryService {
+    public static final String TUMBLING = "tumbling";
+    public static final String HOPPING = "hopping";
+
+    private static final Serializer<String> KEY_SERIALIZER = Serdes.String().serializer();
+
+    private final StreamsBuilderFactoryBean streamsBuilderFactoryBean;
+    private final KafkaDemoProperties.Windows windows;
+    private final RestClient restClient;
+    private final Map<String, CachedStore> stores = new ConcurrentHashMap<>();
+
+    public EligibleStatsQueryService(StreamsBuilderFactoryBean streamsBuilderFactoryBean,
+            KafkaDemoProperties kafkaDemoProperties, RestClient.Builder restClientBuilder) {
+        this.streamsBuilderFactoryBean = streamsBuilderFactoryBean;
+        this.windows = kafkaDemoProperties.getStreams().getWindows();
+        this.restClient = StreamsQuerySupport.restClient(restClientBuilder, kafkaDemoProperties.getStreams());
+    }
+
+    /**
+     * Contrats éligibles du client sur les {@code minutes} dernières minutes.
+     *
+     * La période est pavée de fenêtres qui ne se chevauchent pas, à partir de
+     * la fenêtre qui contient maintenant − {@code minutes} : toutes les
+     * fenêtres fixes, et une fenêtre glissante sur hopping-size / hopping-advance
+     * (un contrat n'est donc compté qu'une fois). La première fenêtre commence
+     * au plus une fenêtre (tumbling) ou un pas (hopping) avant maintenant −
+     * {@code minutes} : les contrats de ce début de fenêtre sont inclus, et
+     * {@link WindowedStatsView#from()} donne le début réel de la période. Le
+     * total est la somme des fenêtres, dont le détail est joint.
+     *
+     * @param window {@link #TUMBLING} ou {@link #HOPPING}
+     */
+    public WindowedStatsView lastMinutes(String clientId, int minutes, String window) {
+        String storeName = storeName(window);
+        HostInfo self = StreamsQuerySupport.localHost(streamsBuilderFactoryBean);
+        if (self != null) {
+            KeyQueryMetadata metadata = StreamsQuerySupport.kafkaStreams(streamsBuilderFactoryBean)
+                    .queryMetadataForKey(storeName, clientId, KEY_SERIALIZER);
+            if (metadata == null || KeyQueryMetadata.NOT_AVAILABLE.equals(metadata)) {
+                throw new InvalidStateStoreException(
+                        "Propriétaire de la clé " + clientId + " inconnu (rebalance en cours)");
+            }
+            if (!self.equals(metadata.activeHost())) {
+                return remote(metadata, clientId, minutes, window);
+            }
+        }
+        return localLastMinutes(clientId, minutes, window);
+    }
+
+    /**
+     * Lecture du store local uniquement.
+     */
+    public WindowedStatsView localLastMinutes(String clientId, int minutes, String window) {
+        return lastMinutes(localStore(storeName(window)), clientId, minutes, window, Instant.now());
+    }
+
+    WindowedStatsView lastMinutes(ReadOnlyWindowStore<String, EligibleStats> store, String clientId, int minutes,
+            String window, Instant to) {
+        boolean tumbling = TUMBLING.equals(window);
+        long size = (tumbling ? windows.getTumblingSize() : windows.getHoppingSize()).toMillis();
+        long advance = tumbling ? size : windows.getHoppingAdvance().toMillis();
+        long maxMinutes = Math.max(1, windows.getRetention().toMinutes());
+        long requestedFrom = to.minus(Duration.ofMinutes(Math.min(Math.max(minutes, 1), maxMinutes))).toEpochMilli();
+        // les fenêtres commencent à un multiple de advance : la dernière qui
+        // contient requestedFrom ouvre la période, puis une fenêtre sur
+        // size / advance
+        long from = requestedFrom - Math.floorMod(requestedFrom, advance);
+
+        List<WindowedStatsView.Point> points = new ArrayList<>();
+        EligibleStats total = EligibleStats.EMPTY;
+        try (WindowStoreIterator<EligibleStats> it = store.fetch(clientId, Instant.ofEpochMilli(from), to)) {
+            while (it.hasNext()) {
+                var entry = it.next();
+                if ((entry.key - from) % size != 0) {
+                    continue;
+                }
+                Instant start = Instant.ofEpochMilli(entry.key);
+                points.add(new WindowedStatsView.Point(start, start.plusMillis(size), entry.value.count(),
+                        entry.value.amount()));
+                total = total.plus(entry.value);
+            }
+        }
+        return new WindowedStatsView(clientId, window, Instant.ofEpochMilli(from), to, total.count(),
+                total.amount(), points);
+    }
+
+    private WindowedStatsView remote(KeyQueryMetadata metadata, String clientId, int minutes, String window) {
+        List<HostInfo> hosts = new ArrayList<>();
+        hosts.add(metadata.activeHost());
+        hosts.addAll(metadata.standbyHosts());
+        RestClientException lastError = null;
+        for (HostInfo host : hosts) {
+            try {
+                WindowedStatsView view = restClient.get()
+                        .uri(StreamsQuerySupport.baseUrl(host)
+                                + "/kafka-demo/internal/window-stats/{clientId}?minutes={minutes}&window={window}",
+                                clientId, minutes, window)
+                        .retrieve()
+                        .body(WindowedStatsView.class);
+                if (view != null) {
+                    return view;
+                }
+            } catch (RestClientException e) {
+                log.warn("[KStream][Query] Instance {} injoignable : {}", host, e.getMessage());
+                lastError = e;
+            }
+        }
+        throw new InvalidStateStoreException("Aucune instance ne répond pour " + clientId, lastError);
+    }
+
+    /**
+     * Handle du store local, gardé par instance KafkaStreams ; les répliques
+     * standby sont incluses.
+     */
+    private ReadOnlyWindowStore<String, EligibleStats> localStore(String storeName) {
+        KafkaStreams streams = StreamsQuerySupport.kafkaStreams(streamsBuilderFactoryBean);
+        CachedStore cached = stores.get(storeName);
+        if (cached != null && cached.streams() == streams) {
+            return cached.store();
+        }
+        ReadOnlyWindowStore<String, EligibleStats> store = streams.store(StoreQueryParameters
+                .fromNameAndType(storeName, QueryableStoreTypes.<String, EligibleStats>windowStore())
+                .enableStaleStores());
+        stores.put(storeName, new CachedStore(streams, store));
+        return store;
+    }
+
+    private static String storeName(String window) {
+        if (TUMBLING.equals(window)) {
+            return ELIGIBLE_STATS_TUMBLING_STORE;
+        }
+        if (HOPPING.equals(window)) {
+            return ELIGIBLE_STATS_HOPPING_STORE;
+        }
+        throw new IllegalArgumentException("Fenêtre inconnue : '" + window + "' (tumbling ou hopping)");
+    }
+
+    private record CachedStore(KafkaStreams streams, ReadOnlyWindowStore<String, EligibleStats> store) {
+    }
+}
@@ -2,20 +2,35 @@ package com.harington.devops_training.kafka.streams;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.harington.devops_training.kafka.model.ContractDto;
+import com.harington.devops_training.kafka.model.ContractVerdict;
+import com.harington.devops_training.kafka.serde.ContractJsonSerde;
 import com.harington.devops_training.kafka.serde.ContractListSerde;
 import com.harington.devops_training.service.ContractEligibilityService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.Topology;
 import org.apache.kafka.streams.kstream.*;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafkaStreams;
+import org.springframework.kafka.annotation.KafkaStreamsDefaultConfiguration;
+import org.springframework.kafka.config.KafkaStreamsConfiguration;
+import org.springframework.kafka.config.KafkaStreamsInfrastructureCustomizer;
+import org.springframework.kafka.config.StreamsBuilderFactoryBeanConfigurer;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 
 import static com.harington.devops_training.kafka.constants.KafkaConstants.DEVOPS_TRAINING_STREAMING_TOPIC;
+import static com.harington.devops_training.kafka.constants.KafkaConstants.ELIGIBLE_COUNT_STORE;
 
 @Configuration
 @EnableKafkaStreams
@@ -25,6 +40,7 @@ public class KstreamProcessAndRoute {
     private final ObjectMapper objectMapper;
     private final ContractEligibilityService eligibilityService;
     private final ContractListSerde contractListSerde;
+    private final ContractJsonSerde contractJsonSerde;
 
     /**
      * Imagine que tu as une boîte aux lettres (topic Kafka) où plein de gens
@@ -45,20 +61,25 @@ public class KstreamProcessAndRoute {
      * travail du facteur !)
      */
     @Bean
-    public KStream<String, List<ContractDto>> processAndRouteContracts(StreamsBuilder builder) {
-        // 1. Le facteur ouvre la boîte aux lettres et prend chaque enveloppe
-        KStream<String, List<ContractDto>> contractListStream = builder.stream(
-                DEVOPS_TRAINING_STREAMING_TOPIC,
-                Consumed.with(Serdes.String(), contractListSerde));
+    public KStream<String, ContractVerdict> processAndRouteContracts(
+            @Qualifier("contractListStream") KStream<String, List<ContractDto>> contractListStream) {
+        // 1. Le facteur reçoit les enveloppes de la boîte aux lettres, ouverte
+        // une seule fois (contractListStream)
 
         // 2. Il compte combien il y a de fiches dans chaque enveloppe
         contractListStream
                 .foreach((key, list) -> log.info("[KStream][2] Contrats reçus - key: {}, nb: {}", key, list.size()));
 
-        // 3. Il fait des calculs sur toutes les fiches de l'enveloppe (combien sont
+        // 3. Il regarde chaque fiche une seule fois et note dessus si elle est
+        // éligible (vert) ou pas (rouge) : les calculs et le rangement
+        // réutilisent cette note
+        KStream<String, List<ContractVerdict>> verdictStream = contractListStream
+                .mapValues(eligibilityService::evaluate);
+
+        // 4. Il fait des calculs sur toutes les fiches de l'enveloppe (combien sont
         // éligibles, etc.)
-        KStream<String, String> resultStream = contractListStream.mapValues(list -> {
-            var stats = eligibilityService.computeBatchStats(list);
+        KStream<String, String> resultStream = verdictStream.mapValues(verdicts -> {
+            var stats = eligibilityService.computeStats(verdicts);
             try {
                 return objectMapper.writeValueAsString(stats); // Il écrit le résultat sur une feuille
             } catch (Exception e) {
@@ -67,45 +88,93 @@ public class KstreamProcessAndRoute {
             }
         });
 
-        // 4. Il met la feuille de résultats dans une boîte spéciale "résultats"
+        // 5. Il met la feuille de résultats dans une boîte spéciale "résultats"
         resultStream.to("devops-training-streams-result", Produced.with(Serdes.String(), Serdes.String()));
 
-        // 5. Il prend chaque fiche de la liste et les regarde une par une
-        KStream<String, ContractDto> individualContracts = contractListStream.flatMapValues(contracts -> contracts);
-
-        // 6. Il sépare les fiches vertes (éligibles) et rouges (ineligibles)
-        KStream<String, ContractDto> eligibleContracts = individualContracts
-                .filter((key, contract) -> eligibilityService.isContractEligible(contract));
-        KStream<String, ContractDto> ineligibleContracts = individualContracts
-                .filter((key, contract) -> !eligibilityService.isContractEligible(contract));
+        // 6. Il prend chaque fiche de la liste et la range, en un seul passage,
+        // dans la boîte "éligibles" (vertes) ou "ineligibles" (rouges)
+        Map<String, KStream<String, ContractVerdict>> branches = verdictStream
+                .flatMapValues(verdicts -> verdicts)
+                .split(Named.as("contracts-"))
+                .branch((key, verdict) -> verdict.eligible(),
+                        Branched.withFunction(eligible -> routeTo(eligible, "contracts-eligible"), "eligible"))
+                .defaultBranch(
+                        Branched.withFunction(ineligible -> routeTo(ineligible, "contracts-ineligible"), "ineligible"));
+
+        // 7. Il garde sous la main les fiches vertes pour son carnet
+        // (eligibleContractsCount). Le plan de travail (la topologie) est
+        // affiché au démarrage, une fois toutes les étapes connues (voir
+        // topologyLogger)
+        return branches.get("contracts-eligible");
+    }
 
-        // 7. Il met les fiches vertes dans la boîte "éligibles"
-        eligibleContracts
-                .mapValues(this::serializeContract)
-                .to("contracts-eligible", Produced.with(Serdes.String(), Serdes.String()));
+    /**
+     * La boîte aux lettres n'est ouverte qu'une fois : chaque enveloppe est
+     * désérialisée une seule fois, puis partagée par toutes les étapes
+     * (rangement, statistiques, carnet des fiches vertes). Kafka Streams
+     * refuse d'ailleurs deux sources sur le même topic.
+     */
+    @Bean
+    public KStream<String, List<ContractDto>> contractListStream(StreamsBuilder builder) {
+        return builder.stream(
+                DEVOPS_TRAINING_STREAMING_TOPIC,
+                Consumed.with(Serdes.String(), contractListSerde).withName("contract-batches-source"));
+    }
 
-        // 8. Il met les fiches rouges dans la boîte "ineligibles"
-        ineligibleContracts
-                .mapValues(this::serializeContract)
-                .to("contracts-ineligible", Produced.with(Serdes.String(), Serdes.String()));
+    /**
+     * Affiche la topologie complète (toutes les beans KStream / KTable
+     * ajoutées) quand Spring la construit, au lieu d'appeler builder.build()
+     * en cours de construction.
+     */
+    @Bean
+    public StreamsBuilderFactoryBeanConfigurer topologyLogger() {
+        return factoryBean -> factoryBean.setInfrastructureCustomizer(new KafkaStreamsInfrastructureCustomizer() {
+            @Override
+            public void configureTopology(Topology topology) {
+                log.info("[KStream][TOPOLOGIE] {}", topology.describe());
+            }
+        });
+    }
 
-        // 9. Il affiche le plan de travail du facteur (la topologie)
-        org.apache.kafka.streams.Topology topology = builder.build();
-        log.info("[KStream][TOPOLOGIE] {}", topology.describe());
+    /**
+     * Producteur du topic de rejet, avec la configuration producteur de Kafka
+     * Streams (client, sécurité, surcharges {@code producer.*}). Il appartient
+     * à Spring, qui le ferme à l'arrêt.
+     */
+    @Bean
+    public KafkaTemplate<byte[], byte[]> deadLetterKafkaTemplate(
+            @Qualifier(KafkaStreamsDefaultConfiguration.DEFAULT_STREAMS_CONFIG_BEAN_NAME) KafkaStreamsConfiguration streamsConfiguration) {
+        StreamsConfig streamsConfig = new StreamsConfig(streamsConfiguration.asProperties());
+        Map<String, Object> producerConfig = streamsConfig
+                .getProducerConfigs(streamsConfig.getString(StreamsConfig.APPLICATION_ID_CONFIG) + "-dlt");
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(producerConfig, new ByteArraySerializer(),
+                new ByteArraySerializer()));
+    }
 
-        return contractListStream;
+    /**
+     * Kafka Streams instancie lui-même DeadLetterProductionExceptionHandler :
+     * le KafkaTemplate et l'ObjectMapper lui sont transmis par la
+     * configuration de Kafka Streams.
+     */
+    @Bean
+    public StreamsBuilderFactoryBeanConfigurer deadLetterConfigurer(
+            KafkaTemplate<byte[], byte[]> deadLetterKafkaTemplate) {
+        return factoryBean -> {
+            Properties streamsConfig = factoryBean.getStreamsConfiguration();
+            streamsConfig.put(DeadLetterProductionExceptionHandler.DEAD_LETTER_TEMPLATE_CONFIG, deadLetterKafkaTemplate);
+            streamsConfig.put(DeadLetterProductionExceptionHandler.OBJECT_MAPPER_CONFIG, objectMapper);
+            factoryBean.setStreamsConfiguration(streamsConfig);
+        };
     }
 
     /**
-     * Méthode utilitaire pour sérialiser un contrat en JSON
+     * Écrit les contrats en JSON dans le topic ; un contrat impossible à
+     * sérialiser part dans le topic de rejet (DeadLetterProductionExceptionHandler).
      */
-    private String serializeContract(ContractDto contract) {
-        try {
-            return objectMapper.writeValueAsString(contract);
-        } catch (Exception e) {
-            log.error("[KStream] Erreur de sérialisation contrat: {}", e.getMessage(), e);
-            return null;
-        }
+    private KStream<String, ContractVerdict> routeTo(KStream<String, ContractVerdict> verdicts, String topic) {
+        verdicts.mapValues(ContractVerdict::contract)
+                .to(topic, Produced.with(Serdes.String(), contractJsonSerde));
+        return verdicts;
     }
 
     /**
@@ -122,23 +191,14 @@ public class KstreamProcessAndRoute {
      * et il pourra le retrouver à la reprise !
      */
     @Bean
-    public KTable<String, Long> eligibleContractsCount(StreamsBuilder builder) {
-        // Le facteur ouvre la boîte aux lettres et prend chaque enveloppe
-        KStream<String, List<ContractDto>> contractListStream = builder.stream(
-                DEVOPS_TRAINING_STREAMING_TOPIC,
-                Consumed.with(Serdes.String(), contractListSerde));
-
-        // Il prend chaque fiche de la liste et les regarde une par une
-        KStream<String, ContractDto> individualContracts = contractListStream.flatMapValues(contracts -> contracts);
-
-        // Il ne garde que les fiches vertes (éligibles)
-        KStream<String, ContractDto> eligibleContracts = individualContracts
-                .filter((key, contract) -> eligibilityService.isContractEligible(contract));
-
-        // Il compte combien de fiches vertes il a vu pour chaque client (clé)
+    public KTable<String, Long> eligibleContractsCount(
+            @Qualifier("processAndRouteContracts") KStream<String, ContractVerdict> eligibleContracts) {
+        // Il reprend les fiches vertes déjà triées (sans rouvrir les enveloppes
+        // ni les noter à nouveau) et compte combien il en a vu pour chaque
+        // client (clé)
         KTable<String, Long> eligibleCountByClient = eligibleContracts
                 .groupByKey()
-                .count(Materialized.as("eligible-contracts-count-store")); // Ici, on crée le state store !
+                .count(Materialized.as(ELIGIBLE_COUNT_STORE)); // Ici, on crée le state store !
 
         // Il affiche le contenu du carnet à chaque mise à jour
         eligibleCountByClient.toStream().foreach(
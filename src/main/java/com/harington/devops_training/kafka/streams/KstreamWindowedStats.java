@@ -1,22 +1,30 @@
 package com.harington.devops_training.kafka.streams;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harington.devops_training.kafka.config.KafkaDemoProperties;
 import com.harington.devops_training.kafka.model.ContractDto;
-import com.harington.devops_training.kafka.serde.ContractListSerde;
-import com.harington.devops_training.service.ContractEligibilityService;
+import com.harington.devops_training.kafka.model.ContractVerdict;
+import com.harington.devops_training.kafka.model.EligibleStats;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.kstream.KGroupedStream;
 import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.KTable;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.kstream.Named;
 import org.apache.kafka.streams.kstream.TimeWindows;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.state.WindowStore;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafkaStreams;
+import org.springframework.kafka.support.serializer.JsonSerde;
 
-import java.time.Duration;
-import java.util.List;
-
-import static com.harington.devops_training.kafka.constants.KafkaConstants.DEVOPS_TRAINING_STREAMING_TOPIC;
+import static com.harington.devops_training.kafka.constants.KafkaConstants.ELIGIBLE_STATS_HOPPING_STORE;
+import static com.harington.devops_training.kafka.constants.KafkaConstants.ELIGIBLE_STATS_TUMBLING_STORE;
 
 @Configuration
 @EnableKafkaStreams
@@ -24,7 +32,7 @@ import static com.harington.devops_training.kafka.constants.KafkaConstants.DEVOP
 @Slf4j
 public class KstreamWindowedStats {
     private final ObjectMapper objectMapper;
-    private final ContractEligibilityService eligibilityService;
+    private final KafkaDemoProperties kafkaDemoProperties;
 
     /**
      * Exemple 3 : Agrégation par fenêtre temporelle
@@ -32,28 +40,69 @@ public class KstreamWindowedStats {
      * Objectif pédagogique :
      * - Comprendre les agrégations temporelles (fenêtres)
      * - Compter les événements sur une période donnée
+     *
+     * Les contrats éligibles (déjà triés par processAndRouteContracts, sans
+     * relire le topic) sont agrégés par client : nombre et somme des montants
+     * par fenêtre fixe (tumbling, kafka.demo.streams.windows.tumbling-size).
+     * Le résultat est gardé dans un window store interrogeable
+     * (EligibleStatsQueryService) pendant la durée de rétention.
+     */
+    @Bean
+    public KTable<Windowed<String>, EligibleStats> eligibleStatsTumbling(
+            @Qualifier("processAndRouteContracts") KStream<String, ContractVerdict> eligibleContracts) {
+        KafkaDemoProperties.Windows windows = kafkaDemoProperties.getStreams().getWindows();
+        KTable<Windowed<String>, EligibleStats> stats = byClient(eligibleContracts, "tumbling")
+                .windowedBy(TimeWindows.ofSizeAndGrace(windows.getTumblingSize(), windows.getGrace()))
+                .aggregate(() -> EligibleStats.EMPTY, (clientId, contract, total) -> total.add(contract),
+                        Named.as("eligible-stats-tumbling"), materialized(ELIGIBLE_STATS_TUMBLING_STORE));
+
+        stats.toStream().foreach((windowedKey, total) -> log.debug(
+                "[KStream][3][Window] {} : {} contrats éligibles ({}) entre {} et {}", windowedKey.key(),
+                total.count(), total.amount(), windowedKey.window().startTime(), windowedKey.window().endTime()));
+        return stats;
+    }
+
+    /**
+     * Même agrégat sur des fenêtres glissantes (hopping) : une fenêtre de
+     * hopping-size démarre toutes les hopping-advance, chaque contrat compte
+     * donc dans plusieurs fenêtres. Pour "les N dernières minutes",
+     * EligibleStatsQueryService additionne des fenêtres bout à bout (une sur
+     * hopping-size / hopping-advance) : hopping-size doit être un multiple de
+     * hopping-advance.
      */
-    // @Bean
-    public KStream<String, String> contractsWindowedStats(StreamsBuilder builder) {
-        KStream<String, String> stream = builder.stream(DEVOPS_TRAINING_STREAMING_TOPIC);
-
-        stream.flatMapValues(value -> {
-                    try {
-                        return objectMapper.readValue(value, new TypeReference<List<ContractDto>>() {
-                        });
-                    } catch (Exception e) {
-                        log.error("[KStream][3][Window] Erreur de parsing batch", e);
-                        return List.of();
-                    }
-                })
-                .filter((key, contract) -> eligibilityService.isContractEligible(contract))
-                .groupByKey()
-                .windowedBy(TimeWindows.ofSizeWithNoGrace(Duration.ofMinutes(1)))
-                .count()
-                .toStream()
-                .foreach((windowedKey, count) -> log.info("[KStream][3][Window] {} contrats éligibles entre {} et {}",
-                        count, windowedKey.window().startTime(), windowedKey.window().endTime()));
-
-        return stream;
+    @Bean
+    public KTable<Windowed<String>, EligibleStats> eligibleStatsHopping(
+            @Qualifier("processAndRouteContracts") KStream<String, ContractVerdict> eligibleContracts) {
+        KafkaDemoProperties.Windows windows = kafkaDemoProperties.getStreams().getWindows();
+        if (windows.getHoppingSize().toMillis() % windows.getHoppingAdvance().toMillis() != 0) {
+            throw new IllegalStateException("kafka.demo.streams.windows.hopping-size (" + windows.getHoppingSize()
+                    + ") doit être un multiple de hopping-advance (" + windows.getHoppingAdvance() + ")");
+        }
+        return byClient(eligibleContracts, "hopping")
+                .windowedBy(TimeWindows.ofSizeAndGrace(windows.getHoppingSize(), windows.getGrace())
+                        .advanceBy(windows.getHoppingAdvance()))
+                .aggregate(() -> EligibleStats.EMPTY, (clientId, contract, total) -> total.add(contract),
+                        Named.as("eligible-stats-hopping"), materialized(ELIGIBLE_STATS_HOPPING_STORE));
+    }
+
+    /**
+     * Regroupement par client : la clé ne change pas, donc pas de topic de
+     * repartition.
+     */
+    private KGroupedStream<String, ContractDto> byClient(KStream<String, ContractVerdict> eligibleContracts,
+            String name) {
+        return eligibleContracts
+                .mapValues(ContractVerdict::contract, Named.as("eligible-contract-" + name))
+                .groupByKey();
+    }
+
+    private Materialized<String, EligibleStats, WindowStore<Bytes, byte[]>> materialized(String storeName) {
+        JsonSerde<EligibleStats> statsSerde = new JsonSerde<>(EligibleStats.class, objectMapper)
+                .noTypeInfo()
+                .ignoreTypeHeaders();
+        return Materialized.<String, EligibleStats, WindowStore<Bytes, byte[]>>as(storeName)
+                .withKeySerde(Serdes.String())
+                .withValueSerde(statsSerde)
+                .withRetention(kafkaDemoProperties.getStreams().getWindows().getRetention());
     }
 }
@@ -0,0 +1,62 @@
+package com.harington.devops_training.kafka.streams;
+
+import static com.harington.devops_training.kafka.constants.KafkaConstants.INTERNAL_TOKEN_HEADER;
+
+import java.time.Duration;
+import java.util.Properties;
+
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.state.HostInfo;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.web.client.RestClient;
+
+import com.harington.devops_training.kafka.config.KafkaDemoProperties;
+
+/**
+ * Outils communs aux services de requêtes sur les state stores.
+ */
+final class StreamsQuerySupport {
+    private StreamsQuerySupport() {
+    }
+
+    static KafkaStreams kafkaStreams(StreamsBuilderFactoryBean streamsBuilderFactoryBean) {
+        KafkaStreams streams = streamsBuilderFactoryBean.getKafkaStreams();
+        if (streams == null) {
+            throw new InvalidStateStoreException(
+                    "KafkaStreams n'est pas disponible (pas encore initialisé ou pas d'instance dans le contexte)");
+        }
+        return streams;
+    }
+
+    /**
+     * Adresse de cette instance (application.server), ou null si elle n'est
+     * pas configurée.
+     */
+    static HostInfo localHost(StreamsBuilderFactoryBean streamsBuilderFactoryBean) {
+        Properties config = streamsBuilderFactoryBean.getStreamsConfiguration();
+        String endpoint = config == null ? null : config.getProperty(StreamsConfig.APPLICATION_SERVER_CONFIG);
+        return endpoint == null || endpoint.isBlank() ? null : HostInfo.buildFromEndpoint(endpoint);
+    }
+
+    /**
+     * Client HTTP vers les autres instances, avec le même délai maximal pour
+     * la connexion et la réponse, et le jeton attendu par leurs endpoints
+     * internes.
+     */
+    static RestClient restClient(RestClient.Builder builder, KafkaDemoProperties.Streams config) {
+        Duration timeout = config.getQueryTimeout();
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeout);
+        requestFactory.setReadTimeout(timeout);
+        return builder.requestFactory(requestFactory)
+                .defaultHeader(INTERNAL_TOKEN_HEADER, config.getInternalToken())
+                .build();
+    }
+
+    static String baseUrl(HostInfo host) {
+        return "http://" + host.host() + ":" + host.port();
+    }
+}
@@ -1,24 +1,33 @@
 package com.harington.devops_training.security.config;
 
+import com.harington.devops_training.kafka.config.KafkaDemoProperties;
+import com.harington.devops_training.kafka.constants.KafkaConstants;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.oauth2.client.web.DefaultOAuth2AuthorizationRequestResolver;
 import org.springframework.security.oauth2.client.web.OAuth2AuthorizationRequestResolver;
 import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
 import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
 import jakarta.servlet.http.HttpServletRequest;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Configuration de la sécurité Spring Boot pour l'intégration Keycloak (OIDC).
  *
- * - Seuls les endpoints /wiki-ai et /api/ask-wiki nécessitent une
+ * - Seuls les endpoints /wiki-ai et /api/ask-wiki (et /api/ask-wiki/stream) nécessitent une
  * authentification Keycloak (OIDC).
+ * - Les endpoints /kafka-demo/internal/** (requêtes entre instances sur les
+ * state stores) exigent le jeton partagé kafka.demo.streams.internal-token.
  * - Toutes les autres routes (accueil, contact, etc.) restent publiques.
  * - Utilise le mécanisme oauth2Login de Spring Security (redirection
  * automatique vers Keycloak si besoin).
@@ -41,12 +50,15 @@ public class SecurityConfig {
      * @throws Exception en cas d'erreur de configuration
      */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http, ClientRegistrationRepository clientRegistrationRepository)
-            throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, ClientRegistrationRepository clientRegistrationRepository,
+            KafkaDemoProperties kafkaDemoProperties) throws Exception {
         http
                 // Protège uniquement /wiki-ai et /api/ask-wiki (authentification requise)
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/wiki-ai", "/api/ask-wiki").authenticated()
+                        .requestMatchers("/wiki-ai", "/api/ask-wiki", "/api/ask-wiki/**").authenticated()
+                        // Requêtes entre instances (state stores) : jeton partagé obligatoire
+                        .requestMatchers("/kafka-demo/internal/**")
+                        .access(internalToken(kafkaDemoProperties.getStreams().getInternalToken()))
                         .anyRequest().permitAll() // le reste est public
                 )
                 // Active l'authentification OAuth2 Login (Keycloak)
@@ -64,6 +76,20 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * Autorise la requête si l'en-tête X-Internal-Token porte le jeton
+     * partagé des instances (comparaison en temps constant). Sans jeton
+     * configuré, tout est refusé.
+     */
+    private static AuthorizationManager<RequestAuthorizationContext> internalToken(String token) {
+        byte[] expected = token.getBytes(StandardCharsets.UTF_8);
+        return (authentication, context) -> {
+            String header = context.getRequest().getHeader(KafkaConstants.INTERNAL_TOKEN_HEADER);
+            return new AuthorizationDecision(expected.length > 0 && header != null
+                    && MessageDigest.isEqual(expected, header.getBytes(StandardCharsets.UTF_8)));
+        };
+    }
+
     private OAuth2AuthorizationRequestResolver customAuthorizationRequestResolver(ClientRegistrationRepository repo) {
         DefaultOAuth2AuthorizationRequestResolver defaultResolver = new DefaultOAuth2AuthorizationRequestResolver(repo,
                 "/oauth2/authorization");
@@ -0,0 +1,90 @@
+package com.harington.devops_training.service;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.harington.devops_training.config.WikiProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Limite le nombre d'appels simultanés au modèle ({@code wiki.ai.max-concurrent-calls}).
+ *
+ * Au-delà, les appels attendent leur tour (file équitable) au plus
+ * {@code wiki.ai.timeout}, puis échouent avec une
+ * {@link RejectedExecutionException}. Un pic de questions fait donc attendre
+ * quelques requêtes au lieu d'ouvrir des dizaines de connexions vers OpenAI.
+ *
+ * Métriques exposées : wiki.ai.queue.time (stage=upstream, attente d'une
+ * place), wiki.ai.calls.active et wiki.ai.calls.waiting.
+ */
+@Component
+public class ChatCallLimiter {
+    private final Semaphore permits;
+    private final int maxConcurrentCalls;
+    private final long timeoutNanos;
+    private final Timer queueTime;
+
+    public ChatCallLimiter(WikiProperties wikiProperties, MeterRegistry meterRegistry) {
+        WikiProperties.Ai config = wikiProperties.getAi();
+        this.maxConcurrentCalls = config.getMaxConcurrentCalls();
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+        this.timeoutNanos = config.getTimeout().toNanos();
+        this.queueTime = Timer.builder("wiki.ai.queue.time").tag("stage", "upstream")
+                .description("Attente d'une place libre avant l'appel au modèle")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("wiki.ai.calls.active", this, l -> l.maxConcurrentCalls - l.permits.availablePermits())
+                .register(meterRegistry);
+        Gauge.builder("wiki.ai.calls.waiting", permits, Semaphore::getQueueLength).register(meterRegistry);
+    }
+
+    /**
+     * Exécute un appel bloquant au modèle dès qu'une place est libre.
+     */
+    public <T> T call(Supplier<T> call) {
+        acquire();
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Abonne le flux du modèle dès qu'une place est libre ; la place est rendue
+     * à la fin du flux (complet, en erreur ou annulé). L'attente se fait sur un
+     * thread dédié aux tâches bloquantes, jamais sur celui de l'abonné.
+     */
+    public <T> Flux<T> stream(Supplier<Flux<T>> stream) {
+        return Flux.using(() -> {
+            acquire();
+            return permits;
+        }, p -> stream.get(), Semaphore::release)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private void acquire() {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Attente d'un appel au modèle interrompue", e);
+        }
+        queueTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            throw new RejectedExecutionException(
+                    "Trop de questions en cours (" + maxConcurrentCalls + " appels simultanés au modèle)");
+        }
+    }
+}
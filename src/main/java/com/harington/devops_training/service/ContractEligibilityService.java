@@ -2,42 +2,78 @@ package com.harington.devops_training.service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.stereotype.Service;
 
 import com.harington.devops_training.kafka.model.ContractDto;
+import com.harington.devops_training.kafka.model.ContractVerdict;
 
 import lombok.extern.slf4j.Slf4j;
 
 @Service
 @Slf4j
 public class ContractEligibilityService {
+    /**
+     * Montant à dépasser pour qu'un contrat soit éligible.
+     */
+    public static final BigDecimal AMOUNT_THRESHOLD = BigDecimal.valueOf(10_000_000L);
 
     public boolean isContractEligible(ContractDto contract) {
+        return isContractEligible(contract, LocalDate.now());
+    }
+
+    /**
+     * Éligibilité à la date {@code today} : pour un lot, la date est lue une
+     * seule fois et passée à chaque contrat.
+     */
+    public boolean isContractEligible(ContractDto contract, LocalDate today) {
         return contract.getEndDate() != null
-                && contract.getEndDate().isAfter(LocalDate.now())
+                && contract.getEndDate().isAfter(today)
                 && contract.getAmount() != null
-                && contract.getAmount().compareTo(BigDecimal.valueOf(10_000_000L)) > 0;
+                && contract.getAmount().compareTo(AMOUNT_THRESHOLD) > 0;
     }
 
     public boolean isBatchEligible(List<ContractDto> batch) {
-        return batch.stream().anyMatch(this::isContractEligible);
+        LocalDate today = LocalDate.now();
+        return batch.stream().anyMatch(contract -> isContractEligible(contract, today));
+    }
+
+    /**
+     * Évalue chaque contrat du lot une seule fois.
+     */
+    public List<ContractVerdict> evaluate(List<ContractDto> batch) {
+        LocalDate today = LocalDate.now();
+        List<ContractVerdict> verdicts = new ArrayList<>(batch.size());
+        for (ContractDto contract : batch) {
+            verdicts.add(new ContractVerdict(contract, isContractEligible(contract, today)));
+        }
+        return verdicts;
     }
 
     public BatchSimpleStats computeBatchStats(List<ContractDto> contractDtos) {
+        return computeStats(evaluate(contractDtos));
+    }
+
+    /**
+     * Statistiques d'un lot déjà évalué (sans nouveau calcul d'éligibilité).
+     */
+    public BatchSimpleStats computeStats(List<ContractVerdict> verdicts) {
         int eligibleCount = 0;
         int ineligibleCount = 0;
         BigDecimal eligibleSum = BigDecimal.ZERO;
         BigDecimal ineligibleSum = BigDecimal.ZERO;
-        for (ContractDto contract : contractDtos) {
-            boolean isEligible = isContractEligible(contract);
-            if (isEligible) {
+        for (ContractVerdict verdict : verdicts) {
+            BigDecimal amount = verdict.contract().getAmount();
+            if (verdict.eligible()) {
                 eligibleCount++;
-                eligibleSum = eligibleSum.add(contract.getAmount());
+                eligibleSum = eligibleSum.add(amount);
             } else {
                 ineligibleCount++;
-                ineligibleSum = ineligibleSum.add(contract.getAmount());
+                if (amount != null) {
+                    ineligibleSum = ineligibleSum.add(amount);
+                }
             }
         }
         return new BatchSimpleStats(eligibleCount, ineligibleCount, eligibleSum, ineligibleSum);
@@ -1,12 +1,13 @@
 package com.harington.devops_training.service;
 
 import java.util.List;
-import java.util.stream.IntStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.stereotype.Service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.harington.devops_training.kafka.constants.KafkaConstants;
+import com.harington.devops_training.kafka.model.BatchAck;
 import com.harington.devops_training.kafka.model.ContractDto;
 import com.harington.devops_training.kafka.producer.KafkaProducerService;
 
@@ -20,19 +21,24 @@ public class ContractService {
 
     private final KafkaProducerService kafkaProducerService;
 
-    public void sendBatches(List<List<ContractDto>> batches) {
+    /**
+     * Publie les lots sur le topic du KStream, chaque lot une seule fois.
+     * Retourne immédiatement ; le résultat contient l'offset de chaque lot une
+     * fois tous les lots acquittés.
+     */
+    public CompletableFuture<List<BatchAck>> sendBatches(List<List<ContractDto>> batches) {
         log.info("Sending {} batches to Kafka", batches.size());
-        IntStream.range(0, batches.size())
-                .forEach(i -> {
-                    List<ContractDto> contractBatch = batches.get(i);
-                    String batchId = "batch-" + (i + 1);
-                    contractBatch.forEach(contract -> {
-                        kafkaProducerService.sendContracts(KafkaConstants.DEVOPS_TRAINING_STREAMING_TOPIC, batchId,
-                                contractBatch);
-                        // kafkaProducerService.sendMessage(KafkaConstants.DEVOPS_TRAINING_STREAMING_TOPIC,
-                        // contract.getId(),
-                        // contractAsString);
-                    });
+        long start = System.nanoTime();
+        return kafkaProducerService.sendContractBatches(KafkaConstants.DEVOPS_TRAINING_STREAMING_TOPIC, batches)
+                .whenComplete((acks, error) -> {
+                    long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    if (error != null) {
+                        log.error("Batch publishing failed after {} ms", elapsedMs, error);
+                    } else {
+                        int contracts = acks.stream().mapToInt(BatchAck::size).sum();
+                        log.info("{} batches ({} contracts) acknowledged in {} ms", acks.size(), contracts,
+                                elapsedMs);
+                    }
                 });
     }
-}
\ No newline at end of file
+}
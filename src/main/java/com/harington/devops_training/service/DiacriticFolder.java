@@ -0,0 +1,150 @@
+package com.harington.devops_training.service;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Suppression des accents et passage en minuscules, sans expression régulière
+ * sur le chemin courant.
+ *
+ * Les caractères ASCII sont traités directement, les blocs Latin-1 et Latin
+ * Étendu-A (U+00C0 à U+017F, soit tout le français et la plupart des langues
+ * européennes) via une table précalculée. Seuls les autres caractères
+ * décomposables (Latin Étendu-B, vietnamien...) passent par
+ * {@link Normalizer} et un motif compilé une seule fois.
+ *
+ * Utilisé à la fois par l'indexation du wiki ({@link WikiMarkdownReader}) et
+ * par l'extraction des mots-clés d'une question ({@link WikiIndex#terms}) :
+ * les deux côtés découpent donc le texte exactement de la même façon.
+ */
+public final class DiacriticFolder {
+    private static final int TABLE_START = 0x00C0;
+    private static final int TABLE_END = 0x017F;
+
+    /**
+     * Lettre de base en minuscule pour U+00C0 à U+017F ; 0 pour les séparateurs
+     * (×, ÷) et les ligatures, traitées par {@link #expansion(int)}.
+     */
+    private static final char[] FOLD = (
+            /* 00C0 */ "aaaaaa\0ceeeeiiii"
+            /* 00D0 */ + "dnooooo\0ouuuuy\0\0"
+            /* 00E0 */ + "aaaaaa\0ceeeeiiii"
+            /* 00F0 */ + "dnooooo\0ouuuuy\0y"
+            /* 0100 */ + "aaaaaaccccccccdd"
+            /* 0110 */ + "ddeeeeeeeeeegggg"
+            /* 0120 */ + "gggghhhhiiiiiiii"
+            /* 0130 */ + "ii\0\0jjkkklllllll"
+            /* 0140 */ + "lllnnnnnnnnnoooo"
+            /* 0150 */ + "oo\0\0rrrrrrssssss"
+            /* 0160 */ + "ssttttttuuuuuuuu"
+            /* 0170 */ + "uuuuwwyyyzzzzzzs").toCharArray();
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+
+    private DiacriticFolder() {
+    }
+
+    /**
+     * Retourne le texte sans accents et en minuscules ("Déployer l'Œuvre" ->
+     * "deployer l'oeuvre"). Les caractères qui ne sont pas des lettres sont
+     * conservés.
+     */
+    public static String fold(String s) {
+        int i = 0;
+        int n = s.length();
+        boolean lowerAscii = true;
+        while (i < n) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                break;
+            }
+            if (c >= 'A' && c <= 'Z') {
+                lowerAscii = false;
+            }
+            i++;
+        }
+        if (i == n) {
+            // chemin rapide : texte ASCII
+            return lowerAscii ? s : s.toLowerCase(Locale.ROOT);
+        }
+        StringBuilder sb = new StringBuilder(n + 8);
+        for (int k = 0; k < n; k++) {
+            char c = s.charAt(k);
+            if (c < 0x80) {
+                sb.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+            } else if (c >= TABLE_START && c <= TABLE_END) {
+                int folded = foldWordChar(c);
+                if (folded == 0) {
+                    sb.append(c);
+                } else {
+                    appendFolded(sb, folded);
+                }
+            } else if (isCombiningMark(c)) {
+                // accent combinant (texte décomposé) : supprimé
+            } else if (Character.isLetter(c) && c < 0x2000) {
+                // lettre hors table : rare, on délègue à Normalizer pour le reste du texte
+                return sb.append(slowFold(s.substring(k))).toString();
+            } else {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Ramène un caractère à sa forme "mot" utilisée pour l'indexation : une ou
+     * deux lettres / chiffres ASCII minuscules, ou 0 s'il sépare les mots (même
+     * découpage que {@code \W+} sur le texte sans accents).
+     *
+     * @return 0 pour un séparateur, sinon le premier caractère dans les 16 bits
+     *         de poids faible et l'éventuel second caractère (ligatures æ, œ,
+     *         ß...) dans les 16 bits de poids fort
+     */
+    public static int foldWordChar(int cp) {
+        if (cp < 0x80) {
+            if (cp >= 'a' && cp <= 'z' || cp >= '0' && cp <= '9' || cp == '_') {
+                return cp;
+            }
+            if (cp >= 'A' && cp <= 'Z') {
+                return cp + ('a' - 'A');
+            }
+            return 0;
+        }
+        if (cp >= TABLE_START && cp <= TABLE_END) {
+            char c = FOLD[cp - TABLE_START];
+            return c != 0 ? c : expansion(cp);
+        }
+        return 0;
+    }
+
+    /**
+     * Accent combinant (U+0300 à U+036F) : il fait partie du mot qui le précède.
+     */
+    public static boolean isCombiningMark(int cp) {
+        return cp >= 0x0300 && cp <= 0x036F;
+    }
+
+    private static int expansion(int cp) {
+        return switch (cp) {
+            case 0x00C6, 0x00E6 -> 'a' | 'e' << 16; // Æ æ
+            case 0x0152, 0x0153 -> 'o' | 'e' << 16; // Œ œ
+            case 0x00DF -> 's' | 's' << 16; // ß
+            case 0x0132, 0x0133 -> 'i' | 'j' << 16; // Ĳ ĳ
+            case 0x00DE, 0x00FE -> 't' | 'h' << 16; // Þ þ
+            default -> 0;
+        };
+    }
+
+    private static void appendFolded(StringBuilder sb, int folded) {
+        sb.append((char) (folded & 0xFFFF));
+        if (folded >>> 16 != 0) {
+            sb.append((char) (folded >>> 16));
+        }
+    }
+
+    private static String slowFold(String s) {
+        String decomposed = Normalizer.normalize(s, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
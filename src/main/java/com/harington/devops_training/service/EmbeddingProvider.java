@@ -0,0 +1,33 @@
+package com.harington.devops_training.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calcule les vecteurs (embeddings) utilisés par la recherche sémantique du
+ * wiki. L'implémentation est choisie avec {@code wiki.semantic.provider}.
+ */
+public interface EmbeddingProvider {
+
+    /**
+     * Dimension des vecteurs produits.
+     */
+    int dimensions();
+
+    /**
+     * Calcule le vecteur d'un texte.
+     */
+    float[] embed(String text);
+
+    /**
+     * Calcule les vecteurs de plusieurs textes (dans le même ordre). À
+     * redéfinir quand le fournisseur sait traiter un lot en un seul appel.
+     */
+    default List<float[]> embedAll(List<String> texts) {
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            vectors.add(embed(text));
+        }
+        return vectors;
+    }
+}
@@ -0,0 +1,55 @@
+package com.harington.devops_training.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.harington.devops_training.config.WikiProperties;
+
+/**
+ * Embeddings locaux par hachage de caractéristiques ("feature hashing") :
+ * chaque terme normalisé et chacun de ses trigrammes de caractères ajoute +1
+ * ou -1 à une dimension choisie par hachage, puis le vecteur est normalisé.
+ *
+ * Aucun appel réseau et un résultat déterministe : c'est le fournisseur par
+ * défaut, utilisable hors ligne. Les trigrammes rapprochent les mots de même
+ * racine ("déployer", "déploiement"), ce que la recherche par mots-clés ne
+ * fait pas.
+ */
+@Component
+@ConditionalOnProperty(name = "wiki.semantic.provider", havingValue = "hash", matchIfMissing = true)
+public class HashEmbeddingProvider implements EmbeddingProvider {
+    private static final float TERM_WEIGHT = 1.0f;
+    private static final float TRIGRAM_WEIGHT = 0.5f;
+
+    private final int dimensions;
+
+    public HashEmbeddingProvider(WikiProperties wikiProperties) {
+        this.dimensions = wikiProperties.getSemantic().getDimensions();
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        float[] vector = new float[dimensions];
+        for (String term : WikiIndex.terms(text)) {
+            add(vector, term.hashCode(), TERM_WEIGHT);
+            for (int i = 0; i + 3 <= term.length(); i++) {
+                int h = 31 * (31 * term.charAt(i) + term.charAt(i + 1)) + term.charAt(i + 2);
+                add(vector, h * 0x9E3779B9, TRIGRAM_WEIGHT);
+            }
+        }
+        return VectorMath.normalize(vector);
+    }
+
+    private void add(float[] vector, int hash, float weight) {
+        int mixed = hash ^ (hash >>> 16);
+        mixed *= 0x85EBCA6B;
+        mixed ^= mixed >>> 13;
+        int index = Math.floorMod(mixed, dimensions);
+        vector[index] += (mixed & 0x40000000) == 0 ? weight : -weight;
+    }
+}
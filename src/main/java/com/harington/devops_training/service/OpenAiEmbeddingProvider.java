@@ -0,0 +1,46 @@
+package com.harington.devops_training.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.ai.embedding.EmbeddingClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Embeddings calculés par le modèle d'embedding OpenAI (Spring AI), activé
+ * avec {@code wiki.semantic.provider=openai}. Les passages sont envoyés par
+ * lots pour limiter le nombre d'appels.
+ */
+@Component
+@ConditionalOnProperty(name = "wiki.semantic.provider", havingValue = "openai")
+@RequiredArgsConstructor
+public class OpenAiEmbeddingProvider implements EmbeddingProvider {
+    private static final int BATCH_SIZE = 100;
+
+    private final EmbeddingClient embeddingClient;
+
+    @Override
+    public int dimensions() {
+        return embeddingClient.dimensions();
+    }
+
+    @Override
+    public float[] embed(String text) {
+        return VectorMath.normalize(VectorMath.toFloats(embeddingClient.embed(text)));
+    }
+
+    @Override
+    public List<float[]> embedAll(List<String> texts) {
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (int from = 0; from < texts.size(); from += BATCH_SIZE) {
+            List<String> batch = texts.subList(from, Math.min(from + BATCH_SIZE, texts.size()));
+            for (List<Double> embedding : embeddingClient.embed(batch)) {
+                vectors.add(VectorMath.normalize(VectorMath.toFloats(embedding)));
+            }
+        }
+        return vectors;
+    }
+}
@@ -0,0 +1,64 @@
+package com.harington.devops_training.service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Regroupe les appels concurrents portant sur la même clé : le premier appel
+ * lance le traitement, les suivants reçoivent le même
+ * {@link CompletableFuture} tant qu'il n'est pas terminé.
+ *
+ * Rien n'est conservé après la fin du traitement (ce n'est pas un cache) : la
+ * clé est libérée dès que le résultat, l'erreur ou le délai maximal est
+ * atteint, et l'appel suivant relance un traitement.
+ *
+ * @param <K> clé de regroupement
+ * @param <V> résultat partagé
+ */
+public final class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final long timeoutNanos;
+
+    public SingleFlight(Duration timeout) {
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    /**
+     * Retourne le traitement en cours pour cette clé, ou lance {@code call}
+     * (dans le thread appelant) s'il n'y en a pas. Le résultat échoue avec une
+     * {@link java.util.concurrent.TimeoutException} si le traitement dépasse le
+     * délai configuré.
+     */
+    public CompletableFuture<V> execute(K key, Supplier<? extends CompletionStage<V>> call) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        created.orTimeout(timeoutNanos, TimeUnit.NANOSECONDS)
+                .whenComplete((result, error) -> inFlight.remove(key, created));
+        try {
+            call.get().whenComplete((result, error) -> {
+                if (error != null) {
+                    created.completeExceptionally(error);
+                } else {
+                    created.complete(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    /**
+     * Nombre de clés en cours de traitement.
+     */
+    public int size() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,64 @@
+package com.harington.devops_training.service;
+
+import java.nio.FloatBuffer;
+import java.util.List;
+
+/**
+ * Opérations sur les vecteurs float32 de la recherche sémantique.
+ */
+final class VectorMath {
+
+    private VectorMath() {
+    }
+
+    /**
+     * Normalise le vecteur (norme 1) en place : le produit scalaire de deux
+     * vecteurs normalisés est leur similarité cosinus.
+     */
+    static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm > 0) {
+            float inv = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= inv;
+            }
+        }
+        return vector;
+    }
+
+    /**
+     * Produit scalaire entre {@code query} et la ligne commençant à
+     * {@code offset} dans {@code vectors}. Quatre accumulateurs indépendants
+     * évitent la dépendance entre itérations et laissent le JIT pipeliner (ou
+     * vectoriser) la boucle.
+     */
+    static float dot(FloatBuffer vectors, int offset, float[] query) {
+        float s0 = 0;
+        float s1 = 0;
+        float s2 = 0;
+        float s3 = 0;
+        int i = 0;
+        int n = query.length;
+        for (; i + 3 < n; i += 4) {
+            s0 += vectors.get(offset + i) * query[i];
+            s1 += vectors.get(offset + i + 1) * query[i + 1];
+            s2 += vectors.get(offset + i + 2) * query[i + 2];
+            s3 += vectors.get(offset + i + 3) * query[i + 3];
+        }
+        for (; i < n; i++) {
+            s0 += vectors.get(offset + i) * query[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    static float[] toFloats(List<Double> values) {
+        float[] result = new float[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i).floatValue();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,184 @@
+package com.harington.devops_training.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.springframework.ai.chat.ChatClient;
+import org.springframework.ai.chat.ChatResponse;
+import org.springframework.ai.chat.StreamingChatClient;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.stereotype.Service;
+
+import com.harington.devops_training.config.WikiProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Répond aux questions sur le wiki : recherche des passages pertinents, puis
+ * appel au modèle (sauf si la même question a déjà reçu une réponse sur les
+ * mêmes passages). Les questions identiques posées en même temps partagent
+ * une seule recherche et un seul appel au modèle.
+ *
+ * Les questions sont traitées sur un pool de threads borné : les threads de
+ * Tomcat sont libérés pendant la recherche et l'appel au modèle. Le pool a
+ * autant de threads que {@link ChatCallLimiter} accepte d'appels simultanés
+ * ({@code wiki.ai.max-concurrent-calls}) : aucun thread n'est bloqué à
+ * attendre une place, les questions en trop attendent dans la file du pool
+ * ({@code wiki.ai.queue-capacity}, mesurée par wiki.ai.queue.time).
+ */
+@Service
+@Slf4j
+public class WikiAiService {
+    private static final Pattern NON_WORD = Pattern.compile("\\W+");
+
+    private final ChatClient chatClient;
+    private final StreamingChatClient streamingChatClient;
+    private final WikiService wikiService;
+    private final WikiAnswerCache answerCache;
+    private final SingleFlight<String, String> inFlight;
+    private final ChatCallLimiter limiter;
+    private final ThreadPoolExecutor executor;
+    private final Timer executorQueueTime;
+
+    public WikiAiService(ChatClient chatClient, StreamingChatClient streamingChatClient, WikiService wikiService,
+            WikiAnswerCache answerCache, ChatCallLimiter limiter, WikiProperties wikiProperties,
+            MeterRegistry meterRegistry) {
+        this.chatClient = chatClient;
+        this.streamingChatClient = streamingChatClient;
+        this.wikiService = wikiService;
+        this.answerCache = answerCache;
+        this.limiter = limiter;
+        WikiProperties.Ai config = wikiProperties.getAi();
+        this.inFlight = new SingleFlight<>(config.getTimeout());
+        AtomicInteger threadCount = new AtomicInteger();
+        int threads = config.getMaxConcurrentCalls();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(config.getQueueCapacity()), r -> {
+                    Thread t = new Thread(r, "wiki-ai-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "wiki-ai");
+        this.executorQueueTime = Timer.builder("wiki.ai.queue.time").tag("stage", "executor")
+                .description("Attente d'un thread libre pour traiter la question")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Retourne la réponse complète, calculée sur le pool wiki-ai. Si la même
+     * question (normalisée) est déjà en cours de traitement, attend sa réponse
+     * au lieu de relancer la recherche et l'appel. Le résultat échoue avec une
+     * {@link java.util.concurrent.RejectedExecutionException} si le pool ou
+     * les appels au modèle sont saturés.
+     */
+    public CompletableFuture<String> askAsync(String question) {
+        return inFlight.execute(normalizeQuestion(question), () -> {
+            long queuedAt = System.nanoTime();
+            return CompletableFuture.supplyAsync(() -> {
+                executorQueueTime.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return answer(question);
+            }, executor);
+        });
+    }
+
+    private String answer(String question) {
+        WikiQuestion q = prepare(question);
+        Optional<String> cached = answerCache.get(q.key());
+        if (cached.isPresent()) {
+            log.debug("[WikiAi] Réponse servie depuis le cache pour '{}'", q.key().question());
+            return cached.get();
+        }
+        long start = System.nanoTime();
+        String answer = limiter.call(() -> chatClient.call(q.prompt()));
+        answerCache.put(q.key(), answer, Duration.ofNanos(System.nanoTime() - start));
+        return answer;
+    }
+
+    /**
+     * Retourne la réponse morceau par morceau, au fur et à mesure de sa
+     * génération par le modèle. Une réponse déjà en cache est émise en un seul
+     * morceau ; une réponse streamée jusqu'au bout est mise en cache. La
+     * recherche dans le wiki se fait sur un thread dédié aux tâches bloquantes.
+     */
+    public Flux<String> stream(String question) {
+        return Flux.defer(() -> {
+            WikiQuestion q = prepare(question);
+            Optional<String> cached = answerCache.get(q.key());
+            if (cached.isPresent()) {
+                return Flux.just(cached.get());
+            }
+            long start = System.nanoTime();
+            StringBuilder answer = new StringBuilder();
+            return limiter.stream(() -> streamingChatClient.stream(new Prompt(q.prompt())))
+                    .map(WikiAiService::content)
+                    .filter(token -> !token.isEmpty())
+                    .doOnNext(answer::append)
+                    .doOnComplete(() -> answerCache.put(q.key(), answer.toString(),
+                            Duration.ofNanos(System.nanoTime() - start)));
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private WikiQuestion prepare(String question) {
+        String wikiContent = wikiService.searchWikiForQuestion(question);
+        WikiAnswerCache.Key key = new WikiAnswerCache.Key(normalizeQuestion(question), sha256(wikiContent));
+        return new WikiQuestion(key, buildPrompt(wikiContent, question));
+    }
+
+    static String buildPrompt(String wikiContent, String question) {
+        return "Voici un extrait de la documentation de mon projet :\n" + wikiContent +
+                "\nRéponds à la question suivante uniquement à partir de cette documentation (sois concis) :\n"
+                + question;
+    }
+
+    /**
+     * Question sans accents, en minuscules, ponctuation et espaces multiples
+     * supprimés : "Qu'est-ce que Kafka ?" et "qu est ce que kafka" donnent la
+     * même clé.
+     */
+    static String normalizeQuestion(String question) {
+        return NON_WORD.matcher(DiacriticFolder.fold(question)).replaceAll(" ").strip();
+    }
+
+    private static String content(ChatResponse response) {
+        if (response.getResult() == null || response.getResult().getOutput() == null) {
+            return "";
+        }
+        String content = response.getResult().getOutput().getContent();
+        return content == null ? "" : content;
+    }
+
+    private static String sha256(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    private record WikiQuestion(WikiAnswerCache.Key key, String prompt) {
+    }
+}
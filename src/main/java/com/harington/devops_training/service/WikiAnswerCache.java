@@ -0,0 +1,123 @@
+package com.harington.devops_training.service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.stereotype.Component;
+
+import com.harington.devops_training.config.WikiProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Cache LRU borné (avec durée de vie) des réponses de /api/ask-wiki.
+ *
+ * La clé associe la question normalisée à une empreinte des passages du wiki
+ * envoyés au modèle : si le wiki change, les passages retrouvés changent aussi
+ * et l'ancienne réponse n'est plus jamais servie.
+ *
+ * Métriques exposées : wiki.answer.cache.hits / misses / evictions (par
+ * cause), wiki.answer.cache.size et wiki.answer.cache.latency.saved (durée de
+ * l'appel au modèle évité à chaque hit).
+ */
+@Component
+public class WikiAnswerCache {
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+    private final Timer latencySaved;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() > maxEntries) {
+                sizeEvictions.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    public WikiAnswerCache(WikiProperties wikiProperties, MeterRegistry meterRegistry) {
+        WikiProperties.AnswerCache config = wikiProperties.getAnswerCache();
+        this.maxEntries = config.getMaxEntries();
+        this.ttlNanos = config.getTtl().toNanos();
+        this.hits = Counter.builder("wiki.answer.cache.hits").register(meterRegistry);
+        this.misses = Counter.builder("wiki.answer.cache.misses").register(meterRegistry);
+        this.sizeEvictions = Counter.builder("wiki.answer.cache.evictions").tag("cause", "size")
+                .register(meterRegistry);
+        this.expiredEvictions = Counter.builder("wiki.answer.cache.evictions").tag("cause", "expired")
+                .register(meterRegistry);
+        this.latencySaved = Timer.builder("wiki.answer.cache.latency.saved")
+                .description("Durée de l'appel au modèle évité grâce au cache")
+                .register(meterRegistry);
+        Gauge.builder("wiki.answer.cache.size", this, WikiAnswerCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Retourne la réponse en cache pour cette clé, si elle existe et n'a pas
+     * expiré.
+     */
+    public synchronized Optional<String> get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAtNanos() - System.nanoTime() <= 0) {
+            entries.remove(key);
+            expiredEvictions.increment();
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        latencySaved.record(entry.computeTime());
+        return Optional.of(entry.answer());
+    }
+
+    /**
+     * Enregistre une réponse.
+     *
+     * @param computeTime durée de l'appel au modèle qui a produit la réponse
+     */
+    public synchronized void put(Key key, String answer, Duration computeTime) {
+        purgeExpired();
+        entries.put(key, new Entry(answer, System.nanoTime() + ttlNanos, computeTime));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void purgeExpired() {
+        long now = System.nanoTime();
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().expiresAtNanos() - now <= 0) {
+                it.remove();
+                expiredEvictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Clé du cache.
+     *
+     * @param question    question normalisée
+     * @param contextHash empreinte des passages du wiki envoyés au modèle
+     */
+    public record Key(String question, String contextHash) {
+    }
+
+    private record Entry(String answer, long expiresAtNanos, Duration computeTime) {
+    }
+}
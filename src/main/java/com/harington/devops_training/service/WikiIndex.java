@@ -0,0 +1,401 @@
+package com.harington.devops_training.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import com.harington.devops_training.config.WikiProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Index inversé en mémoire du wiki : terme normalisé -> (fichier -> passages).
+ *
+ * Chaque fichier est découpé en passages de la taille d'un paragraphe (un
+ * titre et son texte, un bloc de code...) par {@link WikiMarkdownReader}. L'index
+ * est construit une seule fois
+ * au démarrage, une question ne coûte ensuite que quelques lectures de HashMap,
+ * ne touche plus le disque et les passages sont classés par score BM25.
+ * Un terme de la question doit correspondre à un mot entier du wiki ; si
+ * aucun terme ne correspond, les termes sont cherchés comme préfixes
+ * ("kube" trouve "kubernetes"), comme l'ancienne recherche par sous-chaîne.
+ *
+ * L'état de l'index est un instantané immuable publié via un champ volatile :
+ * les lecteurs ne prennent aucun verrou et voient toujours soit l'ancien, soit
+ * le nouvel index complet. Les mises à jour (reconstruction ou delta par
+ * fichier) sont sérialisées entre elles.
+ */
+@Component
+@Slf4j
+public class WikiIndex {
+    /**
+     * Longueur minimale d'un terme indexé (même règle que les mots-clés d'une
+     * question : plus de 3 lettres).
+     */
+    public static final int MIN_TERM_LENGTH = 4;
+
+    private static final double BM25_K1 = 1.2;
+    private static final double BM25_B = 0.75;
+    /**
+     * Nombre maximal de mots du wiki retenus pour un préfixe.
+     */
+    static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private final WikiProperties wikiProperties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile long lastReindexNanos;
+
+    public WikiIndex(WikiProperties wikiProperties, ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry) {
+        this.wikiProperties = wikiProperties;
+        this.eventPublisher = eventPublisher;
+        Gauge.builder("wiki.index.documents", this, index -> index.snapshot.documents().size())
+                .description("Nombre de fichiers du wiki présents dans l'index")
+                .register(meterRegistry);
+        TimeGauge.builder("wiki.index.reindex.last.duration", this, TimeUnit.NANOSECONDS,
+                index -> index.lastReindexNanos)
+                .description("Durée de la dernière (re)indexation du wiki")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Racine du wiki indexé.
+     */
+    public Path root() {
+        return Paths.get(wikiProperties.getDir());
+    }
+
+    /**
+     * Construit l'index complet à partir du répertoire du wiki.
+     */
+    @PostConstruct
+    public synchronized void build() {
+        long start = System.nanoTime();
+        Path root = root();
+        if (!Files.isDirectory(root)) {
+            log.warn("[WikiIndex] Répertoire du wiki introuvable : {}", root.toAbsolutePath());
+            snapshot = Snapshot.EMPTY;
+            return;
+        }
+        Map<Path, WikiDocument> documents = new TreeMap<>();
+        Map<String, Map<Path, Posting[]>> postings = new HashMap<>();
+        int passageCount = 0;
+        long totalLength = 0;
+        WikiMarkdownReader reader = new WikiMarkdownReader();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path p : (Iterable<Path>) files.filter(WikiIndex::isMarkdown)::iterator) {
+                WikiDocument doc = readDocument(p, reader);
+                if (doc != null) {
+                    documents.put(p, doc);
+                    doc.postings().forEach((term, list) -> postings
+                            .computeIfAbsent(term, t -> new HashMap<>()).put(p, list));
+                    passageCount += doc.passages().size();
+                    totalLength += doc.totalLength();
+                }
+            }
+        } catch (IOException e) {
+            log.error("[WikiIndex] Erreur lors du parcours du wiki {} : {}", root, e.getMessage(), e);
+            return;
+        }
+        snapshot = new Snapshot(Collections.unmodifiableMap(documents), postings,
+                Collections.unmodifiableNavigableSet(new TreeSet<>(postings.keySet())), passageCount, totalLength);
+        lastReindexNanos = System.nanoTime() - start;
+        log.info("[WikiIndex] {} fichiers, {} passages et {} termes indexés en {} ms", documents.size(),
+                passageCount, postings.size(), TimeUnit.NANOSECONDS.toMillis(lastReindexNanos));
+        eventPublisher.publishEvent(new WikiIndexUpdatedEvent());
+    }
+
+    /**
+     * Met à jour l'index uniquement pour les chemins modifiés : les entrées
+     * des fichiers concernés sont retirées puis remplacées par leur nouveau
+     * contenu. Un chemin qui n'existe plus (fichier ou répertoire supprimé)
+     * retire tous les fichiers indexés sous ce chemin.
+     *
+     * Le nouvel instantané est construit à côté de l'actuel puis publié en une
+     * seule écriture : une recherche concurrente ne voit jamais un index à
+     * moitié mis à jour.
+     *
+     * @param changedPaths chemins créés, modifiés ou supprimés
+     */
+    public synchronized void reindex(Collection<Path> changedPaths) {
+        long start = System.nanoTime();
+        Snapshot current = snapshot;
+        Map<Path, WikiDocument> documents = new TreeMap<>(current.documents());
+        Map<String, Map<Path, Posting[]>> postings = new HashMap<>(current.postings());
+        NavigableSet<String> sortedTerms = new TreeSet<>(current.sortedTerms());
+        int passageCount = current.passageCount();
+        long totalLength = current.totalLength();
+
+        Set<Path> removed = new HashSet<>();
+        List<WikiDocument> added = new ArrayList<>();
+        WikiMarkdownReader reader = new WikiMarkdownReader();
+        for (Path changed : changedPaths) {
+            if (Files.isRegularFile(changed) && isMarkdown(changed)) {
+                removed.add(changed);
+                WikiDocument doc = readDocument(changed, reader);
+                if (doc != null) {
+                    added.add(doc);
+                }
+            } else if (!Files.exists(changed)) {
+                for (Path indexed : current.documents().keySet()) {
+                    if (indexed.startsWith(changed)) {
+                        removed.add(indexed);
+                    }
+                }
+            }
+        }
+        if (removed.isEmpty() && added.isEmpty()) {
+            return;
+        }
+
+        for (Path path : removed) {
+            WikiDocument old = documents.remove(path);
+            if (old == null) {
+                continue;
+            }
+            passageCount -= old.passages().size();
+            totalLength -= old.totalLength();
+            for (String term : old.postings().keySet()) {
+                Map<Path, Posting[]> byFile = new HashMap<>(postings.get(term));
+                byFile.remove(path);
+                if (byFile.isEmpty()) {
+                    postings.remove(term);
+                    sortedTerms.remove(term);
+                } else {
+                    postings.put(term, byFile);
+                }
+            }
+        }
+        for (WikiDocument doc : added) {
+            documents.put(doc.path(), doc);
+            passageCount += doc.passages().size();
+            totalLength += doc.totalLength();
+            doc.postings().forEach((term, list) -> {
+                Map<Path, Posting[]> previous = postings.get(term);
+                Map<Path, Posting[]> byFile = previous == null ? new HashMap<>() : new HashMap<>(previous);
+                byFile.put(doc.path(), list);
+                postings.put(term, byFile);
+                sortedTerms.add(term);
+            });
+        }
+
+        snapshot = new Snapshot(Collections.unmodifiableMap(documents), postings,
+                Collections.unmodifiableNavigableSet(sortedTerms), passageCount, totalLength);
+        lastReindexNanos = System.nanoTime() - start;
+        log.info("[WikiIndex] Réindexation incrémentale : {} fichier(s) retiré(s), {} fichier(s) indexé(s) en {} ms",
+                removed.size(), added.size(), TimeUnit.NANOSECONDS.toMillis(lastReindexNanos));
+        eventPublisher.publishEvent(new WikiIndexUpdatedEvent());
+    }
+
+    /**
+     * Recherche les passages les plus pertinents pour les termes donnés, classés
+     * par score BM25.
+     *
+     * Seuls les passages contenant au moins un terme sont évalués ; un tas
+     * borné à {@code topK} éléments garde les meilleurs sans trier l'ensemble
+     * des résultats. Si aucun terme n'est un mot du wiki, chaque terme est
+     * remplacé par les mots du wiki qui commencent par lui (au plus
+     * {@value #MAX_PREFIX_EXPANSIONS} par terme).
+     *
+     * @param terms termes déjà normalisés
+     * @param topK  nombre maximal de passages retournés
+     * @return les passages, du plus pertinent au moins pertinent
+     */
+    public List<WikiPassage> search(Collection<String> terms, int topK) {
+        Snapshot current = snapshot;
+        if (topK <= 0 || current.passageCount() == 0) {
+            return List.of();
+        }
+        double avgLength = (double) current.totalLength() / current.passageCount();
+        Map<Path, Map<Integer, Double>> scores = new HashMap<>();
+        Set<String> distinct = new HashSet<>(terms);
+        for (String term : distinct) {
+            score(current, term, avgLength, scores);
+        }
+        if (scores.isEmpty()) {
+            Set<String> expanded = new HashSet<>();
+            for (String term : distinct) {
+                current.sortedTerms().tailSet(term, false).stream()
+                        .takeWhile(indexed -> indexed.startsWith(term))
+                        .limit(MAX_PREFIX_EXPANSIONS)
+                        .forEach(expanded::add);
+            }
+            for (String term : expanded) {
+                score(current, term, avgLength, scores);
+            }
+        }
+
+        PriorityQueue<WikiPassage> best = new PriorityQueue<>(topK + 1,
+                Comparator.comparingDouble(WikiPassage::score));
+        scores.forEach((path, byPassage) -> {
+            List<Passage> passages = current.documents().get(path).passages();
+            byPassage.forEach((index, score) -> {
+                if (best.size() < topK || score > best.peek().score()) {
+                    best.add(new WikiPassage(path, passages.get(index).text(), score));
+                    if (best.size() > topK) {
+                        best.poll();
+                    }
+                }
+            });
+        });
+        List<WikiPassage> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(WikiPassage::score).reversed());
+        return result;
+    }
+
+    /**
+     * Ajoute aux scores BM25 des passages la contribution d'un terme.
+     */
+    private static void score(Snapshot current, String term, double avgLength,
+            Map<Path, Map<Integer, Double>> scores) {
+        Map<Path, Posting[]> byFile = current.postings().get(term);
+        if (byFile == null) {
+            return;
+        }
+        int df = 0;
+        for (Posting[] postings : byFile.values()) {
+            df += postings.length;
+        }
+        double idf = Math.log(1 + (current.passageCount() - df + 0.5) / (df + 0.5));
+        byFile.forEach((path, postings) -> {
+            List<Passage> passages = current.documents().get(path).passages();
+            Map<Integer, Double> byPassage = scores.computeIfAbsent(path, p -> new HashMap<>());
+            for (Posting posting : postings) {
+                double tf = posting.frequency();
+                double norm = BM25_K1 * (1 - BM25_B + BM25_B * passages.get(posting.passage()).length() / avgLength);
+                byPassage.merge(posting.passage(), idf * tf * (BM25_K1 + 1) / (tf + norm), Double::sum);
+            }
+        });
+    }
+
+    /**
+     * Tous les passages indexés, dans l'ordre des fichiers (score à 0).
+     */
+    public List<WikiPassage> passages() {
+        List<WikiPassage> passages = new ArrayList<>();
+        snapshot.documents().forEach((path, doc) -> doc.passages()
+                .forEach(passage -> passages.add(new WikiPassage(path, passage.text(), 0))));
+        return passages;
+    }
+
+    /**
+     * Premier fichier du wiki (ordre des chemins), utilisé quand aucun passage ne
+     * correspond à la question.
+     */
+    public Optional<String> firstDocumentContent() {
+        return snapshot.documents().values().stream().findFirst()
+                .map(doc -> doc.passages().stream().map(Passage::text).collect(Collectors.joining("\n\n")));
+    }
+
+    /**
+     * Découpe un texte en termes normalisés d'au moins {@link #MIN_TERM_LENGTH}
+     * caractères, sans doublon, avec exactement le même découpage que
+     * l'indexation ({@link DiacriticFolder#foldWordChar}).
+     */
+    public static Set<String> terms(String text) {
+        Set<String> terms = new HashSet<>();
+        StringBuilder token = new StringBuilder();
+        int i = 0;
+        while (i <= text.length()) {
+            int cp = i < text.length() ? text.codePointAt(i) : ' ';
+            i += i < text.length() ? Character.charCount(cp) : 1;
+            if (DiacriticFolder.isCombiningMark(cp)) {
+                continue;
+            }
+            int folded = DiacriticFolder.foldWordChar(cp);
+            if (folded != 0) {
+                for (int c = folded; c != 0; c >>>= 16) {
+                    token.append((char) c);
+                }
+            } else {
+                if (token.length() >= MIN_TERM_LENGTH) {
+                    terms.add(token.toString());
+                }
+                token.setLength(0);
+            }
+        }
+        return terms;
+    }
+
+    static boolean isMarkdown(Path p) {
+        return p.toString().endsWith(".md");
+    }
+
+    private WikiDocument readDocument(Path p, WikiMarkdownReader reader) {
+        try {
+            List<WikiMarkdownReader.ParsedPassage> parsed = reader.read(p);
+            List<Passage> passages = new ArrayList<>(parsed.size());
+            Map<String, List<Posting>> postings = new HashMap<>();
+            long totalLength = 0;
+            for (WikiMarkdownReader.ParsedPassage passage : parsed) {
+                int index = passages.size();
+                passage.frequencies().forEach((term, tf) -> postings.computeIfAbsent(term, t -> new ArrayList<>())
+                        .add(new Posting(index, tf)));
+                passages.add(new Passage(passage.text(), passage.length()));
+                totalLength += passage.length();
+            }
+            Map<String, Posting[]> compact = new HashMap<>(postings.size() * 2);
+            postings.forEach((term, list) -> compact.put(term, list.toArray(new Posting[0])));
+            return new WikiDocument(p, List.copyOf(passages), compact, totalLength);
+        } catch (IOException e) {
+            log.warn("[WikiIndex] Fichier ignoré {} : {}", p, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Un passage indexé et sa longueur en nombre de termes.
+     */
+    record Passage(String text, int length) {
+    }
+
+    /**
+     * Occurrence d'un terme : index du passage dans son fichier et nombre
+     * d'apparitions.
+     */
+    record Posting(int passage, int frequency) {
+    }
+
+    /**
+     * Un fichier du wiki : ses passages et, pour chaque terme, les passages où
+     * il apparaît.
+     */
+    record WikiDocument(Path path, List<Passage> passages, Map<String, Posting[]> postings, long totalLength) {
+    }
+
+    /**
+     * État immuable de l'index, remplacé en bloc lors d'une mise à jour. Les
+     * termes triés servent à la recherche par préfixe.
+     */
+    private record Snapshot(Map<Path, WikiDocument> documents, Map<String, Map<Path, Posting[]>> postings,
+            NavigableSet<String> sortedTerms, int passageCount, long totalLength) {
+        static final Snapshot EMPTY = new Snapshot(Map.of(), Map.of(), Collections.emptyNavigableSet(), 0, 0);
+    }
+}
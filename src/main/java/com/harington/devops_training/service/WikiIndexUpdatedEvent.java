@@ -0,0 +1,8 @@
+package com.harington.devops_training.service;
+
+/**
+ * Publié par {@link WikiIndex} après chaque reconstruction ou réindexation
+ * incrémentale.
+ */
+public record WikiIndexUpdatedEvent() {
+}
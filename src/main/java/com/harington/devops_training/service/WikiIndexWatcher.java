@@ -0,0 +1,185 @@
+package com.harington.devops_training.service;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Component;
+
+import com.harington.devops_training.config.WikiProperties;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Surveille les répertoires du wiki et réindexe uniquement les fichiers
+ * modifiés.
+ *
+ * Les événements du {@link WatchService} sont accumulés puis appliqués en un
+ * seul delta une fois que le répertoire est resté calme pendant
+ * {@code wiki.watch.debounce} (un éditeur produit souvent plusieurs
+ * événements pour une seule sauvegarde). Si le système signale une perte
+ * d'événements (OVERFLOW), l'index est reconstruit entièrement.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WikiIndexWatcher {
+    private final WikiProperties wikiProperties;
+    private final WikiIndex wikiIndex;
+
+    private final Map<WatchKey, Path> watchedDirs = new ConcurrentHashMap<>();
+    private final Set<Path> pendingChanges = ConcurrentHashMap.newKeySet();
+    private volatile boolean fullRebuildPending;
+
+    private WatchService watchService;
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> pendingFlush;
+    private Thread watcherThread;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!wikiProperties.getWatch().isEnabled()) {
+            log.info("[WikiWatcher] Surveillance du wiki désactivée");
+            return;
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        for (String dir : wikiProperties.getWatch().getDirs()) {
+            Path path = wikiIndex.root().resolve(dir);
+            if (Files.isDirectory(path)) {
+                registerRecursively(path);
+            } else {
+                log.warn("[WikiWatcher] Répertoire surveillé introuvable : {}", path);
+            }
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "wiki-reindex");
+            t.setDaemon(true);
+            return t;
+        });
+        watcherThread = new Thread(this::watchLoop, "wiki-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+        log.info("[WikiWatcher] {} répertoire(s) surveillé(s)", watchedDirs.size());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (watchService == null) {
+            return;
+        }
+        watchService.close();
+        watcherThread.interrupt();
+        scheduler.shutdownNow();
+    }
+
+    private void watchLoop() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                Path dir = watchedDirs.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        fullRebuildPending = true;
+                        continue;
+                    }
+                    if (dir == null) {
+                        continue;
+                    }
+                    Path changed = dir.resolve((Path) event.context());
+                    if (event.kind() == ENTRY_CREATE && Files.isDirectory(changed)) {
+                        addDirectory(changed);
+                    } else {
+                        pendingChanges.add(changed);
+                    }
+                }
+                if (!key.reset()) {
+                    watchedDirs.remove(key);
+                }
+                scheduleFlush();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Surveille un nouveau répertoire et ses fichiers. En cas d'erreur (droits,
+     * répertoire supprimé entre-temps), la surveillance continue et le
+     * prochain flush reconstruit tout l'index pour ne rien manquer.
+     */
+    private void addDirectory(Path dir) {
+        try {
+            registerRecursively(dir);
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.filter(WikiIndex::isMarkdown).forEach(pendingChanges::add);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("[WikiWatcher] Répertoire {} non surveillé, reconstruction complète : {}", dir,
+                    e.getMessage());
+            fullRebuildPending = true;
+        }
+    }
+
+    /**
+     * (Re)programme l'application du delta : chaque nouvel événement repousse
+     * l'échéance.
+     */
+    private synchronized void scheduleFlush() {
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+        }
+        pendingFlush = scheduler.schedule(this::flush, wikiProperties.getWatch().getDebounce().toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    private void flush() {
+        try {
+            if (fullRebuildPending) {
+                fullRebuildPending = false;
+                pendingChanges.clear();
+                wikiIndex.build();
+                return;
+            }
+            List<Path> changes = new ArrayList<>(pendingChanges);
+            pendingChanges.removeAll(changes);
+            if (!changes.isEmpty()) {
+                wikiIndex.reindex(changes);
+            }
+        } catch (RuntimeException e) {
+            log.error("[WikiWatcher] Erreur lors de la réindexation : {}", e.getMessage(), e);
+        }
+    }
+
+    private void registerRecursively(Path start) throws IOException {
+        try (Stream<Path> dirs = Files.walk(start)) {
+            for (Path dir : (Iterable<Path>) dirs.filter(Files::isDirectory)::iterator) {
+                WatchKey key = dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                watchedDirs.put(key, dir);
+            }
+        }
+    }
+}
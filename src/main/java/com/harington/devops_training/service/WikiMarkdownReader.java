@@ -0,0 +1,233 @@
+package com.harington.devops_training.service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lecteur de fichiers markdown pour l'indexation du wiki.
+ *
+ * Le fichier est projeté en mémoire ({@link FileChannel#map}) et découpé en
+ * passages directement sur les octets : pas de lecture complète en byte[], pas
+ * de String pour le fichier entier, pas de {@code split} ni d'expression
+ * régulière. Les termes sont extraits en décodant l'UTF-8 à la volée, avec
+ * suppression des accents et passage en minuscules dans la même boucle
+ * ({@link DiacriticFolder#foldWordChar}) ; les chaînes des termes sont
+ * mutualisées entre tous les fichiers lus par une même instance.
+ *
+ * Règles de découpage (identiques pour tout le wiki) : un titre ouvre un
+ * nouveau passage, une ligne vide en termine un (sauf à l'intérieur d'un bloc
+ * de code ou juste après un titre), et un passage trop long est coupé.
+ *
+ * Une instance n'est pas thread-safe : elle est utilisée sous le verrou de
+ * {@link WikiIndex}.
+ */
+final class WikiMarkdownReader {
+    /**
+     * Taille maximale (en octets) d'un passage : au-delà, un paragraphe est
+     * découpé.
+     */
+    static final int MAX_PASSAGE_BYTES = 1200;
+
+    private final char[] token = new char[256];
+    private byte[] scratch = new byte[MAX_PASSAGE_BYTES * 2];
+    private String[] terms = new String[4096];
+    private int termCount;
+
+    /**
+     * Lit un fichier et retourne ses passages.
+     */
+    List<ParsedPassage> read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return split(buf, (int) channel.size());
+        }
+    }
+
+    private List<ParsedPassage> split(MappedByteBuffer buf, int size) {
+        List<ParsedPassage> passages = new ArrayList<>();
+        int passageStart = -1;
+        int passageEnd = -1;
+        boolean headingOnly = false;
+        boolean inCode = false;
+        int lineStart = 0;
+        while (lineStart < size) {
+            int lineEnd = lineStart;
+            while (lineEnd < size && buf.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int first = lineStart;
+            while (first < lineEnd && isBlank(buf.get(first))) {
+                first++;
+            }
+            if (startsWithFence(buf, first, lineEnd)) {
+                inCode = !inCode;
+            }
+            boolean blank = !inCode && first == lineEnd;
+            boolean heading = !inCode && first < lineEnd && buf.get(first) == '#';
+            boolean tooLong = passageStart >= 0 && lineEnd - passageStart > MAX_PASSAGE_BYTES;
+            if (passageStart >= 0 && (heading || (blank && !headingOnly) || tooLong)) {
+                addPassage(buf, passageStart, passageEnd, passages);
+                passageStart = -1;
+            }
+            if (!blank) {
+                if (passageStart < 0) {
+                    passageStart = lineStart;
+                    headingOnly = heading;
+                } else {
+                    headingOnly = false;
+                }
+                passageEnd = lineEnd;
+            }
+            lineStart = lineEnd + 1;
+        }
+        if (passageStart >= 0) {
+            addPassage(buf, passageStart, passageEnd, passages);
+        }
+        return passages;
+    }
+
+    private void addPassage(MappedByteBuffer buf, int start, int end, List<ParsedPassage> passages) {
+        int length = end - start;
+        if (scratch.length < length) {
+            scratch = new byte[length];
+        }
+        buf.get(start, scratch, 0, length);
+        String text = new String(scratch, 0, length, StandardCharsets.UTF_8).strip();
+        if (text.isEmpty() || text.equals("---")) {
+            return;
+        }
+        Map<String, Integer> frequencies = new HashMap<>();
+        int tokenCount = tokenize(scratch, length, frequencies);
+        passages.add(new ParsedPassage(text, frequencies, tokenCount));
+    }
+
+    /**
+     * Extrait les termes d'au moins {@link WikiIndex#MIN_TERM_LENGTH}
+     * caractères en décodant l'UTF-8 à la volée.
+     *
+     * @return le nombre de termes (avec répétitions)
+     */
+    private int tokenize(byte[] bytes, int length, Map<String, Integer> frequencies) {
+        int count = 0;
+        int len = 0;
+        int hash = 0;
+        int i = 0;
+        while (i <= length) {
+            int cp;
+            if (i == length) {
+                cp = ' ';
+                i++;
+            } else {
+                int b = bytes[i] & 0xFF;
+                if (b < 0x80) {
+                    cp = b;
+                    i++;
+                } else if ((b & 0xE0) == 0xC0 && i + 1 < length) {
+                    cp = ((b & 0x1F) << 6) | (bytes[i + 1] & 0x3F);
+                    i += 2;
+                } else if ((b & 0xF0) == 0xE0 && i + 2 < length) {
+                    cp = ((b & 0x0F) << 12) | ((bytes[i + 1] & 0x3F) << 6) | (bytes[i + 2] & 0x3F);
+                    i += 3;
+                } else if ((b & 0xF8) == 0xF0 && i + 3 < length) {
+                    cp = ' ';
+                    i += 4;
+                } else {
+                    cp = ' ';
+                    i++;
+                }
+            }
+            if (DiacriticFolder.isCombiningMark(cp)) {
+                // accent combinant (texte décomposé) : ignoré, le mot continue
+                continue;
+            }
+            int folded = DiacriticFolder.foldWordChar(cp);
+            if (folded != 0) {
+                for (int c = folded; c != 0 && len < token.length; c >>>= 16) {
+                    token[len++] = (char) c;
+                    hash = 31 * hash + (char) c;
+                }
+            } else {
+                if (len >= WikiIndex.MIN_TERM_LENGTH) {
+                    frequencies.merge(term(len, hash), 1, Integer::sum);
+                    count++;
+                }
+                len = 0;
+                hash = 0;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Retourne la chaîne du terme en cours, en réutilisant celle déjà créée pour
+     * un terme identique (table à adressage ouvert).
+     */
+    private String term(int len, int hash) {
+        int mask = terms.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (terms[slot] != null) {
+            String candidate = terms[slot];
+            if (candidate.hashCode() == hash && sameChars(candidate, len)) {
+                return candidate;
+            }
+            slot = (slot + 1) & mask;
+        }
+        String created = new String(token, 0, len);
+        terms[slot] = created;
+        if (++termCount * 2 > terms.length) {
+            rehash();
+        }
+        return created;
+    }
+
+    private boolean sameChars(String candidate, int len) {
+        if (candidate.length() != len) {
+            return false;
+        }
+        for (int k = 0; k < len; k++) {
+            if (candidate.charAt(k) != token[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash() {
+        String[] old = terms;
+        terms = new String[old.length * 2];
+        int mask = terms.length - 1;
+        for (String t : old) {
+            if (t != null) {
+                int h = t.hashCode();
+                int slot = (h ^ (h >>> 16)) & mask;
+                while (terms[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                terms[slot] = t;
+            }
+        }
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static boolean startsWithFence(MappedByteBuffer buf, int from, int to) {
+        return to - from >= 3 && buf.get(from) == '`' && buf.get(from + 1) == '`' && buf.get(from + 2) == '`';
+    }
+
+    /**
+     * Passage lu : son texte, la fréquence de chacun de ses termes et son
+     * nombre total de termes.
+     */
+    record ParsedPassage(String text, Map<String, Integer> frequencies, int length) {
+    }
+}
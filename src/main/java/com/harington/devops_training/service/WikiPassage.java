@@ -0,0 +1,13 @@
+package com.harington.devops_training.service;
+
+import java.nio.file.Path;
+
+/**
+ * Passage du wiki retourné par une recherche, avec son score de pertinence.
+ *
+ * @param path  fichier d'origine
+ * @param text  texte du passage
+ * @param score score BM25 (plus il est élevé, plus le passage est pertinent)
+ */
+public record WikiPassage(Path path, String text, double score) {
+}
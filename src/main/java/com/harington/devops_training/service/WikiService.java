@@ -2,72 +2,102 @@ package com.harington.devops_training.service;
 
 import java.io.IOException;
 import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.text.Normalizer;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.Set;
 
 import org.springframework.stereotype.Service;
 
+import com.harington.devops_training.config.WikiProperties;
+
+import lombok.RequiredArgsConstructor;
+
 @Service
+@RequiredArgsConstructor
 public class WikiService {
-    public String searchWikiForQuestion(String wikiDir, String question) throws IOException {
-        // Extraction des mots-clés (mots de plus de 3 lettres)
-        Set<String> keywords = extractKeywords(question);
+    /**
+     * Estimation grossière du nombre de caractères par token (texte français /
+     * markdown), suffisante pour borner la taille du prompt.
+     */
+    static final int CHARS_PER_TOKEN = 4;
+    /**
+     * Constante de la fusion des classements (Reciprocal Rank Fusion) : un
+     * passage au rang r reçoit 1 / (RRF_K + r) dans chaque classement.
+     */
+    static final int RRF_K = 60;
+
+    private final WikiIndex wikiIndex;
+    private final WikiVectorIndex wikiVectorIndex;
+    private final WikiProperties wikiProperties;
+
+    /**
+     * Construit l'extrait du wiki à joindre au prompt : les passages les mieux
+     * classés (BM25, recherche vectorielle ou fusion des deux selon
+     * {@code wiki.retrieval.mode}), du plus pertinent au moins pertinent, tant
+     * qu'ils tiennent dans le budget de tokens configuré.
+     */
+    public String searchWikiForQuestion(String question) {
+        WikiProperties.Retrieval retrieval = wikiProperties.getRetrieval();
+        int budget = retrieval.getMaxContextTokens() * CHARS_PER_TOKEN;
         StringBuilder sb = new StringBuilder();
-        Files.walk(Paths.get(wikiDir))
-                .filter(p -> p.toString().endsWith(".md"))
-                .forEach(p -> {
-                    try {
-                        String content = new String(Files.readAllBytes(p));
-                        // Recherche par mot-clé, ligne par ligne
-                        List<String> foundLines = new ArrayList<>();
-                        for (String line : content.split("\n")) {
-                            String normLine = normalize(line);
-                            for (String kw : keywords) {
-                                if (normLine.contains(kw)) {
-                                    foundLines.add(line);
-                                    break;
-                                }
-                            }
-                        }
-                        if (!foundLines.isEmpty()) {
-                            sb.append("\n---\n").append(p.getFileName()).append(":\n");
-                            foundLines.forEach(l -> sb.append(l).append("\n"));
-                        }
-                    } catch (IOException e) {
-                        /* ignore */ }
-                });
-        // Si rien trouvé, fallback sur le premier fichier
-        if (sb.isEmpty()) {
-            Optional<Path> first = Files.walk(Paths.get(wikiDir))
-                    .filter(p -> p.toString().endsWith(".md")).findFirst();
-            if (first.isPresent()) {
-                sb.append(new String(Files.readAllBytes(first.get())));
+        List<WikiPassage> passages = rankPassages(question, retrieval);
+        // Si rien trouvé, fallback sur le début du premier fichier
+        if (passages.isEmpty()) {
+            wikiIndex.firstDocumentContent()
+                    .ifPresent(content -> sb.append(content, 0, Math.min(content.length(), budget)));
+            return sb.toString();
+        }
+        for (WikiPassage passage : passages) {
+            String block = "\n---\n" + passage.path().getFileName() + ":\n" + passage.text() + "\n";
+            if (sb.length() + block.length() <= budget) {
+                sb.append(block);
+            } else if (sb.isEmpty()) {
+                // le meilleur passage dépasse à lui seul le budget : on en garde le début
+                sb.append(block, 0, budget);
             }
         }
         return sb.toString();
     }
 
-    private Set<String> extractKeywords(String question) {
-        String normalized = normalize(question);
-        String[] words = normalized.split("\\W+");
-        Set<String> keywords = new HashSet<>();
-        for (String w : words) {
-            if (w.length() > 3)
-                keywords.add(w);
+    private List<WikiPassage> rankPassages(String question, WikiProperties.Retrieval retrieval) {
+        int topK = retrieval.getTopK();
+        return switch (retrieval.getMode()) {
+            case KEYWORD -> wikiIndex.search(extractKeywords(question), topK);
+            case SEMANTIC -> wikiVectorIndex.search(question, topK);
+            case HYBRID -> {
+                List<WikiPassage> keyword = wikiIndex.search(extractKeywords(question), topK);
+                List<WikiPassage> semantic = wikiVectorIndex.search(question, topK);
+                // aucun mot-clé trouvé : la recherche vectorielle remplace le repli sur le premier fichier
+                yield keyword.isEmpty() ? semantic : fuse(keyword, semantic, topK);
+            }
+        };
+    }
+
+    /**
+     * Fusionne deux classements par rang réciproque : les scores BM25 et cosinus
+     * ne sont pas comparables, leurs rangs le sont.
+     */
+    static List<WikiPassage> fuse(List<WikiPassage> first, List<WikiPassage> second, int topK) {
+        Map<String, WikiPassage> fused = new LinkedHashMap<>();
+        for (List<WikiPassage> ranking : List.of(first, second)) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                WikiPassage passage = ranking.get(rank);
+                double score = 1.0 / (RRF_K + rank + 1);
+                fused.merge(passage.path() + "\0" + passage.text(),
+                        new WikiPassage(passage.path(), passage.text(), score),
+                        (a, b) -> new WikiPassage(a.path(), a.text(), a.score() + b.score()));
+            }
         }
-        return keywords;
+        List<WikiPassage> result = new ArrayList<>(fused.values());
+        result.sort((a, b) -> Double.compare(b.score(), a.score()));
+        return result.size() > topK ? result.subList(0, topK) : result;
     }
 
-    private String normalize(String s) {
-        String norm = Normalizer.normalize(s, Normalizer.Form.NFD)
-                .replaceAll("\\p{InCombiningDiacriticalMarks}", "").toLowerCase();
-        return norm;
+    private Set<String> extractKeywords(String question) {
+        return WikiIndex.terms(question);
     }
 
     public String readAllMarkdownFiles(String wikiDir) throws IOException {
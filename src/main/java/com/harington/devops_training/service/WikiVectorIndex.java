@@ -0,0 +1,190 @@
+package com.harington.devops_training.service;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.harington.devops_training.config.WikiProperties;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Index vectoriel des passages du wiki pour la recherche sémantique
+ * ({@code wiki.retrieval.mode} = semantic ou hybrid).
+ *
+ * Les vecteurs (float32, normalisés) sont calculés une seule fois à
+ * l'indexation et rangés ligne par ligne dans un fichier projeté en mémoire :
+ * ils restent hors du tas Java. La recherche est un parcours exhaustif par
+ * produit scalaire, largement suffisant pour quelques milliers de passages.
+ *
+ * Après une réindexation du wiki, seuls les passages dont le texte a changé
+ * sont renvoyés au fournisseur d'embeddings ; les autres vecteurs sont
+ * recopiés depuis le fichier précédent. Le nouvel état est publié en une seule
+ * écriture volatile, comme pour {@link WikiIndex}.
+ */
+@Component
+@Slf4j
+public class WikiVectorIndex {
+    private final WikiIndex wikiIndex;
+    private final WikiProperties wikiProperties;
+    private final EmbeddingProvider embeddingProvider;
+
+    private static final String STORE_FILE_PREFIX = "devops-training-wiki-embeddings-";
+    private static final String STORE_FILE_SUFFIX = ".f32";
+
+    private volatile VectorSnapshot snapshot = VectorSnapshot.EMPTY;
+
+    public WikiVectorIndex(WikiIndex wikiIndex, WikiProperties wikiProperties, EmbeddingProvider embeddingProvider) {
+        this.wikiIndex = wikiIndex;
+        this.wikiProperties = wikiProperties;
+        this.embeddingProvider = embeddingProvider;
+    }
+
+    /**
+     * (Re)construit les vecteurs à partir des passages actuellement indexés.
+     */
+    @EventListener({ ApplicationReadyEvent.class, WikiIndexUpdatedEvent.class })
+    public synchronized void rebuild() {
+        if (wikiProperties.getRetrieval().getMode() == WikiProperties.RetrievalMode.KEYWORD) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<WikiPassage> passages = wikiIndex.passages();
+        VectorSnapshot previous = snapshot;
+        int dims = embeddingProvider.dimensions();
+
+        List<String> toEmbed = new ArrayList<>();
+        for (WikiPassage passage : passages) {
+            if (previous.dimensions() != dims || !previous.rowsByText().containsKey(passage.text())) {
+                toEmbed.add(passage.text());
+            }
+        }
+        Map<String, float[]> embedded = new HashMap<>();
+        List<float[]> vectors = embeddingProvider.embedAll(toEmbed);
+        for (int i = 0; i < toEmbed.size(); i++) {
+            embedded.put(toEmbed.get(i), vectors.get(i));
+        }
+
+        Path file;
+        try {
+            Path dir = Files.createDirectories(Paths.get(wikiProperties.getSemantic().getStoreDir()));
+            file = Files.createTempFile(dir, STORE_FILE_PREFIX, STORE_FILE_SUFFIX);
+        } catch (IOException e) {
+            log.error("[WikiVector] Impossible de créer le fichier des vecteurs : {}", e.getMessage(), e);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            FloatBuffer store = channel
+                    .map(FileChannel.MapMode.READ_WRITE, 0, (long) passages.size() * dims * Float.BYTES)
+                    .order(ByteOrder.nativeOrder())
+                    .asFloatBuffer();
+            Map<String, Integer> rowsByText = new HashMap<>(passages.size() * 2);
+            float[] row = new float[dims];
+            for (int i = 0; i < passages.size(); i++) {
+                String text = passages.get(i).text();
+                float[] vector = embedded.get(text);
+                if (vector == null) {
+                    previous.vectors().get(previous.rowsByText().get(text) * dims, row);
+                    vector = row;
+                }
+                store.put(i * dims, vector);
+                rowsByText.putIfAbsent(text, i);
+            }
+            snapshot = new VectorSnapshot(List.copyOf(passages), store, dims, rowsByText, file);
+        } catch (IOException e) {
+            log.error("[WikiVector] Impossible d'écrire les vecteurs dans {} : {}", file, e.getMessage(), e);
+            deleteQuietly(file);
+            return;
+        }
+        deleteQuietly(previous.file());
+        log.info("[WikiVector] {} passages vectorisés ({} recalculés) en {} ms", passages.size(), toEmbed.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Recherche les passages les plus proches de la question (similarité
+     * cosinus), en gardant les {@code topK} meilleurs dans un tas borné.
+     */
+    public List<WikiPassage> search(String question, int topK) {
+        VectorSnapshot current = snapshot;
+        if (topK <= 0 || current.passages().isEmpty()) {
+            return List.of();
+        }
+        float[] query = embeddingProvider.embed(question);
+        int dims = current.dimensions();
+        if (query.length != dims) {
+            // fournisseur changé depuis la dernière construction : les
+            // vecteurs ne sont pas comparables avant le prochain rebuild()
+            log.warn("[WikiVector] Question de dimension {} pour un index de dimension {} : index à reconstruire",
+                    query.length, dims);
+            return List.of();
+        }
+        PriorityQueue<WikiPassage> best = new PriorityQueue<>(topK + 1,
+                Comparator.comparingDouble(WikiPassage::score));
+        for (int i = 0; i < current.passages().size(); i++) {
+            float score = VectorMath.dot(current.vectors(), i * dims, query);
+            if (best.size() < topK || score > best.peek().score()) {
+                WikiPassage passage = current.passages().get(i);
+                best.add(new WikiPassage(passage.path(), passage.text(), score));
+                if (best.size() > topK) {
+                    best.poll();
+                }
+            }
+        }
+        List<WikiPassage> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(WikiPassage::score).reversed());
+        return result;
+    }
+
+    /**
+     * Supprime le fichier de la génération courante à l'arrêt.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        deleteQuietly(snapshot.file());
+    }
+
+    /**
+     * Supprime le fichier d'une génération remplacée. Sous Linux la projection
+     * reste lisible par les recherches encore en cours ; si le système refuse
+     * (fichier encore projeté sous Windows), il est supprimé à l'arrêt de la
+     * JVM.
+     */
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("[WikiVector] Suppression différée de {} : {}", file, e.getMessage());
+            file.toFile().deleteOnExit();
+        }
+    }
+
+    /**
+     * État immuable de l'index vectoriel : la ligne i de {@code vectors}
+     * correspond au passage i.
+     */
+    private record VectorSnapshot(List<WikiPassage> passages, FloatBuffer vectors, int dimensions,
+            Map<String, Integer> rowsByText, Path file) {
+        static final VectorSnapshot EMPTY = new VectorSnapshot(List.of(), FloatBuffer.allocate(0), 0, Map.of(), null);
+    }
+}
@@ -0,0 +1,137 @@
+package com.harington.devops_training.controller;
+
+import static com.harington.devops_training.kafka.constants.KafkaConstants.ELIGIBLE_STATS_HOPPING_STORE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.state.HostInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.client.RestClient;
+
+import com.harington.devops_training.kafka.config.KafkaDemoProperties;
+import com.harington.devops_training.kafka.consumer.KafkaConsumerService;
+import com.harington.devops_training.kafka.model.WindowedStatsView;
+import com.harington.devops_training.kafka.producer.KafkaProducerService;
+import com.harington.devops_training.kafka.streams.EligibleCountQueryService;
+import com.harington.devops_training.kafka.streams.EligibleStatsQueryService;
+import com.harington.devops_training.security.config.SecurityConfig;
+import com.harington.devops_training.service.ContractService;
+
+/**
+ * Requête transmise par une autre instance (EligibleStatsQueryService, client
+ * qui ne détient pas la clé) jusqu'au vrai KafkaDemoController, derrière
+ * SecurityConfig : le jeton partagé est exigé sur /kafka-demo/internal/**.
+ */
+@SpringBootTest(classes = KafkaDemoControllerInternalTest.WebConfig.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "kafka.demo.streams.internal-token=" + KafkaDemoControllerInternalTest.TOKEN,
+                "spring.ai.openai.api-key=test"
+        })
+@ActiveProfiles("test")
+class KafkaDemoControllerInternalTest {
+    static final String TOKEN = "test-token";
+    private static final String CLIENT = "client-1";
+
+    @LocalServerPort
+    private int port;
+
+    @MockitoBean
+    private EligibleStatsQueryService eligibleStatsQueryService;
+    @MockitoBean
+    private EligibleCountQueryService eligibleCountQueryService;
+    @MockitoBean
+    private KafkaProducerService producerService;
+    @MockitoBean
+    private KafkaConsumerService consumerService;
+    @MockitoBean
+    private ContractService contractService;
+    @MockitoBean
+    private ClientRegistrationRepository clientRegistrationRepository;
+
+    @Test
+    void answersForwardedQueriesCarryingTheSharedToken() {
+        WindowedStatsView view = new WindowedStatsView(CLIENT, EligibleStatsQueryService.HOPPING,
+                Instant.parse("2025-01-15T09:45:00Z"), Instant.parse("2025-01-15T10:00:00Z"), 3,
+                new BigDecimal("45000000"), List.of(new WindowedStatsView.Point(Instant.parse("2025-01-15T09:45:00Z"),
+                        Instant.parse("2025-01-15T09:50:00Z"), 3, new BigDecimal("45000000"))));
+        when(eligibleStatsQueryService.localLastMinutes(CLIENT, 15, EligibleStatsQueryService.HOPPING))
+                .thenReturn(view);
+
+        WindowedStatsView forwarded = otherInstance(TOKEN).lastMinutes(CLIENT, 15, EligibleStatsQueryService.HOPPING);
+
+        assertThat(forwarded).isEqualTo(view);
+    }
+
+    @Test
+    void rejectsForwardedQueriesWithAnotherToken() {
+        EligibleStatsQueryService otherInstance = otherInstance("autre-jeton");
+
+        assertThatThrownBy(() -> otherInstance.lastMinutes(CLIENT, 15, EligibleStatsQueryService.HOPPING))
+                .isInstanceOf(InvalidStateStoreException.class);
+        verify(eligibleStatsQueryService, never()).localLastMinutes(anyString(), anyInt(), anyString());
+    }
+
+    @Test
+    void rejectsInternalCallsWithoutToken() {
+        HttpStatusCode status = RestClient.create("http://localhost:" + port).get()
+                .uri("/kafka-demo/internal/window-stats/{clientId}", CLIENT)
+                .exchange((request, response) -> response.getStatusCode());
+
+        assertThat(status.value()).isEqualTo(403);
+        verify(eligibleStatsQueryService, never()).localLastMinutes(anyString(), anyInt(), anyString());
+    }
+
+    /**
+     * Instance qui ne détient pas la clé : les métadonnées de Kafka Streams
+     * désignent le serveur du test comme propriétaire.
+     */
+    private EligibleStatsQueryService otherInstance(String token) {
+        Properties streamsConfig = new Properties();
+        streamsConfig.put(StreamsConfig.APPLICATION_SERVER_CONFIG, "other-instance:8081");
+        KafkaStreams kafkaStreams = mock(KafkaStreams.class);
+        when(kafkaStreams.queryMetadataForKey(eq(ELIGIBLE_STATS_HOPPING_STORE), eq(CLIENT), any()))
+                .thenReturn(new KeyQueryMetadata(new HostInfo("localhost", port), Set.of(), 0));
+        StreamsBuilderFactoryBean factoryBean = mock(StreamsBuilderFactoryBean.class);
+        when(factoryBean.getStreamsConfiguration()).thenReturn(streamsConfig);
+        when(factoryBean.getKafkaStreams()).thenReturn(kafkaStreams);
+
+        KafkaDemoProperties properties = new KafkaDemoProperties();
+        properties.getStreams().setInternalToken(token);
+        return new EligibleStatsQueryService(factoryBean, properties, RestClient.builder());
+    }
+
+    @Configuration
+    @EnableAutoConfiguration
+    @Import({ KafkaDemoController.class, SecurityConfig.class, KafkaDemoProperties.class })
+    static class WebConfig {
+    }
+}
@@ -0,0 +1,152 @@
+package com.harington.devops_training.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harington.devops_training.config.StubChatClient;
+import com.harington.devops_training.config.WikiProperties;
+import com.harington.devops_training.service.ChatCallLimiter;
+import com.harington.devops_training.service.WikiAiService;
+import com.harington.devops_training.service.WikiAnswerCache;
+import com.harington.devops_training.service.WikiService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * /api/ask-wiki et /api/ask-wiki/stream avec le client de chat local
+ * (wiki.ai.stub=true) : les morceaux arrivent dans l'ordre, puis l'événement
+ * de fin ; une question trop longue est refusée (504 ou événement "failed").
+ */
+class WikiAiControllerTest {
+    private static final String QUESTION = "Qu'est-ce que Kafka ?";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final WikiProperties wikiProperties = new WikiProperties();
+    private WikiAiService wikiAiService;
+
+    @AfterEach
+    void stop() {
+        wikiAiService.stop();
+    }
+
+    @Test
+    void streamsTokensInOrderThenDone() throws Exception {
+        List<Event> events = stream(Duration.ofMillis(5));
+
+        assertThat(events).last().extracting(Event::name).isEqualTo("done");
+        List<Event> tokens = events.subList(0, events.size() - 1);
+        assertThat(tokens).hasSizeGreaterThan(1).allMatch(event -> event.name().equals("token"));
+        assertThat(String.join("", tokens.stream().map(event -> event.data().get("token").asText()).toList()))
+                .isEqualTo("[stub] Réponse locale à la question : " + QUESTION);
+    }
+
+    @Test
+    void failsTheStreamAfterTheTimeout() throws Exception {
+        wikiProperties.getAi().setStreamTimeout(Duration.ofMillis(100));
+
+        List<Event> events = stream(Duration.ofSeconds(1));
+
+        assertThat(events).extracting(Event::name).containsExactly("failed");
+        assertThat(events.get(0).data().get("error").asText()).contains("Délai");
+    }
+
+    @Test
+    void answersGatewayTimeoutWhenTheQuestionTakesTooLong() throws Exception {
+        wikiProperties.getAi().setTimeout(Duration.ofMillis(100));
+        MockMvc mockMvc = mockMvc(new StubChatClient(Duration.ZERO) {
+            @Override
+            public ChatResponse call(Prompt prompt) {
+                try {
+                    Thread.sleep(5_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.call(prompt);
+            }
+        });
+
+        MvcResult result = mockMvc.perform(post("/api/ask-wiki")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"question\": \"Qu'est-ce que Kafka ?\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isGatewayTimeout())
+                .andExpect(jsonPath("$.error").exists());
+    }
+
+    private List<Event> stream(Duration tokenDelay) throws Exception {
+        MockMvc mockMvc = mockMvc(new StubChatClient(tokenDelay));
+
+        MvcResult result = mockMvc.perform(get("/api/ask-wiki/stream").param("question", QUESTION))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(10_000);
+        return events(result.getResponse().getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    private MockMvc mockMvc(StubChatClient chatClient) {
+        WikiService wikiService = mock(WikiService.class);
+        when(wikiService.searchWikiForQuestion(anyString())).thenReturn("Kafka est un bus de messages.");
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        wikiAiService = new WikiAiService(chatClient, chatClient, wikiService,
+                new WikiAnswerCache(wikiProperties, meterRegistry), new ChatCallLimiter(wikiProperties, meterRegistry),
+                wikiProperties, meterRegistry);
+        WikiAiController controller = new WikiAiController();
+        ReflectionTestUtils.setField(controller, "wikiAiService", wikiAiService);
+        ReflectionTestUtils.setField(controller, "wikiProperties", wikiProperties);
+        return MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    /**
+     * Découpe le corps text/event-stream en événements (lignes "event:" et
+     * "data:", séparés par une ligne vide).
+     */
+    private List<Event> events(String body) throws Exception {
+        List<Event> events = new ArrayList<>();
+        for (String block : body.split("\n\n")) {
+            String name = null;
+            String data = null;
+            for (String line : block.split("\n")) {
+                if (line.startsWith("event:")) {
+                    name = line.substring("event:".length());
+                } else if (line.startsWith("data:")) {
+                    data = line.substring("data:".length());
+                }
+            }
+            if (name != null) {
+                events.add(new Event(name, objectMapper.readTree(data)));
+            }
+        }
+        return events;
+    }
+
+    private record Event(String name, JsonNode data) {
+    }
+}
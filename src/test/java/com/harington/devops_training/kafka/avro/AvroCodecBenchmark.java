@@ -0,0 +1,92 @@
+package com.harington.devops_training.kafka.avro;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.Encoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encodage Avro d'un contrat par {@link AvroExampleUtil} ({@link AvroCodec} :
+ * schéma analysé une fois, encodeur et buffer réutilisés) contre
+ * l'implémentation d'origine, qui analysait le schéma et créait writer,
+ * encodeur et flux à chaque appel.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=AvroCodec
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AvroCodecBenchmark {
+    private static final String ID = "contrat-123";
+    private static final double AMOUNT = 15000.0;
+
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        encoded = AvroExampleUtil.serializeContract(ID, AMOUNT, true);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeCodec() throws IOException {
+        return AvroExampleUtil.encodeContract(ID, AMOUNT, true);
+    }
+
+    @Benchmark
+    public byte[] serializeCodec() throws IOException {
+        return AvroExampleUtil.serializeContract(ID, AMOUNT, true);
+    }
+
+    @Benchmark
+    public byte[] serializeOriginal() throws IOException {
+        Schema schema = new Schema.Parser().parse(AvroExampleUtil.CONTRACT_SCHEMA_JSON);
+        GenericRecord contract = new GenericData.Record(schema);
+        contract.put("id", ID);
+        contract.put("amount", AMOUNT);
+        contract.put("isEligible", true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DatumWriter<GenericRecord> writer = new SpecificDatumWriter<>(schema);
+        Encoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+        writer.write(contract, encoder);
+        encoder.flush();
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public GenericRecord deserializeCodec() throws IOException {
+        return AvroExampleUtil.deserializeContract(encoded);
+    }
+
+    @Benchmark
+    public GenericRecord deserializeOriginal() throws IOException {
+        Schema schema = new Schema.Parser().parse(AvroExampleUtil.CONTRACT_SCHEMA_JSON);
+        DatumReader<GenericRecord> reader = new SpecificDatumReader<>(schema);
+        Decoder decoder = DecoderFactory.get().binaryDecoder(encoded, null);
+        return reader.read(null, decoder);
+    }
+}
@@ -0,0 +1,33 @@
+package com.harington.devops_training.kafka.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Métriques du client Kafka publiées par les fabriques de producteurs, dont
+ * les nouveaux essais (absents de ProducerDeliveryTracker). Le producteur
+ * n'est pas connecté : ses métriques existent dès sa création.
+ */
+class KafkaProducerConfigTest {
+    @Test
+    void exposesProducerRetryMetrics() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        KafkaProducerConfig producerConfig = new KafkaProducerConfig(new KafkaDemoProperties(), meterRegistry, null);
+        ReflectionTestUtils.setField(producerConfig, "bootstrapServers", "localhost:9092");
+        DefaultKafkaProducerFactory<String, String> producerFactory =
+                (DefaultKafkaProducerFactory<String, String>) producerConfig.stringProducerFactory();
+
+        try (Producer<String, String> producer = producerFactory.createProducer()) {
+            assertThat(meterRegistry.find("kafka.producer.record.retry.total").meter()).isNotNull();
+            assertThat(meterRegistry.find("kafka.producer.record.retry.rate").meter()).isNotNull();
+        } finally {
+            producerFactory.destroy();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.harington.devops_training.kafka.consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import com.harington.devops_training.kafka.config.KafkaDemoProperties;
+
+/**
+ * Le lecteur démarre avant la création du topic, attend sans échouer, puis
+ * garde les {@code polling-window} derniers messages.
+ */
+@EmbeddedKafka(brokerProperties = "auto.create.topics.enable=false")
+class KafkaTopicTailerTest {
+    private static final String TOPIC = "tailer-test";
+    private static final int POLLING_WINDOW = 5;
+
+    private KafkaTopicTailer tailer;
+
+    @AfterEach
+    void stop() {
+        if (tailer != null) {
+            tailer.stop();
+        }
+    }
+
+    @Test
+    void waitsForTheTopicThenKeepsThePollingWindow(EmbeddedKafkaBroker broker) {
+        KafkaProperties kafkaProperties = new KafkaProperties();
+        kafkaProperties.setBootstrapServers(List.of(broker.getBrokersAsString()));
+        KafkaDemoProperties kafkaDemoProperties = new KafkaDemoProperties();
+        kafkaDemoProperties.setTopic(TOPIC);
+        kafkaDemoProperties.setPollingWindow(POLLING_WINDOW);
+        tailer = new KafkaTopicTailer(kafkaProperties, kafkaDemoProperties);
+        tailer.start();
+
+        await().pollDelay(Duration.ofSeconds(2)).atMost(Duration.ofSeconds(5))
+                .until(() -> tailer.isRunning() && tailer.recentMessages().isEmpty());
+        broker.addTopics(new NewTopic(TOPIC, 1, (short) 1));
+
+        try (KafkaProducer<String, String> producer = new KafkaProducer<>(KafkaTestUtils.producerProps(broker),
+                new StringSerializer(), new StringSerializer())) {
+            producer.send(new ProducerRecord<>(TOPIC, "m-0"));
+            producer.flush();
+            await().atMost(Duration.ofSeconds(60)).until(() -> tailer.recentMessages().contains("[partition=0] m-0"));
+
+            IntStream.range(1, 20).forEach(i -> producer.send(new ProducerRecord<>(TOPIC, "m-" + i)));
+            producer.flush();
+        }
+
+        List<String> expected = IntStream.range(15, 20).mapToObj(i -> "[partition=0] m-" + i).toList();
+        await().atMost(Duration.ofSeconds(30)).until(() -> tailer.recentMessages().equals(expected));
+    }
+}
@@ -0,0 +1,159 @@
+package com.harington.devops_training.kafka.consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class KeyOrderedExecutorTest {
+    private static final String TOPIC = "contracts";
+    private static final TopicPartition TP = new TopicPartition(TOPIC, 0);
+
+    private final KeyOrderedExecutor<String, String> executor = new KeyOrderedExecutor<>("test", 4, 100);
+
+    @AfterEach
+    void close() {
+        executor.close();
+    }
+
+    @Test
+    void keepsOrderPerKey() throws InterruptedException {
+        List<String> processed = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 50; i++) {
+            String key = "client-" + (i % 5);
+            executor.submit(new ConsumerRecord<>(TOPIC, 0, i, key, key + ":" + i), r -> processed.add(r.value()));
+        }
+
+        assertThat(executor.awaitCompletion(Set.of(TP), Duration.ofSeconds(5))).isTrue();
+        assertThat(processed).hasSize(50);
+        for (int k = 0; k < 5; k++) {
+            String key = "client-" + k;
+            List<Integer> offsets = processed.stream()
+                    .filter(v -> v.startsWith(key + ":"))
+                    .map(v -> Integer.parseInt(v.substring(v.indexOf(':') + 1)))
+                    .toList();
+            assertThat(offsets).isSorted().hasSize(10);
+        }
+        assertThat(executor.committableOffsets(Set.of(TP))).containsEntry(TP, new OffsetAndMetadata(50));
+    }
+
+    @Test
+    void failedRecordIsNotCommitted() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            executor.submit(new ConsumerRecord<>(TOPIC, 0, i, "client-" + i, "v" + i), r -> {
+                if (r.offset() == 2) {
+                    throw new IllegalStateException("envoi impossible");
+                }
+            });
+        }
+
+        assertThat(executor.awaitCompletion(Set.of(TP), Duration.ofSeconds(5))).isTrue();
+        assertThat(executor.inFlight()).isZero();
+        assertThat(executor.failed()).isEqualTo(1);
+        assertThat(executor.blockedPartitions()).isEqualTo(1);
+        Map<TopicPartition, OffsetAndMetadata> offsets = executor.committableOffsets(Set.of(TP));
+        assertThat(offsets).containsEntry(TP, new OffsetAndMetadata(2));
+
+        // les messages suivants ne font pas avancer le commit au-delà de l'échec
+        executor.submit(new ConsumerRecord<>(TOPIC, 0, 5, "client-5", "v5"), r -> {
+        });
+        assertThat(executor.awaitCompletion(Set.of(TP), Duration.ofSeconds(5))).isTrue();
+        assertThat(executor.committableOffsets(Set.of(TP))).isEmpty();
+    }
+
+    @Test
+    void retriedRecordIsCommittedOnceItSucceeds() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        try (KeyOrderedExecutor<String, String> retrying = new KeyOrderedExecutor<>("test", 4, 100, 3,
+                Duration.ofMillis(10), (record, e) -> {
+                    throw new AssertionError("pas de mise de côté attendue");
+                })) {
+            for (int i = 0; i < 5; i++) {
+                retrying.submit(new ConsumerRecord<>(TOPIC, 0, i, "client-" + i, "v" + i), r -> {
+                    if (r.offset() == 2 && attempts.incrementAndGet() < 3) {
+                        throw new IllegalStateException("envoi impossible");
+                    }
+                });
+            }
+
+            assertThat(retrying.awaitCompletion(Set.of(TP), Duration.ofSeconds(5))).isTrue();
+            assertThat(attempts).hasValue(3);
+            assertThat(retrying.failed()).isZero();
+            assertThat(retrying.committableOffsets(Set.of(TP))).containsEntry(TP, new OffsetAndMetadata(5));
+        }
+    }
+
+    /**
+     * Un message toujours en échec est mis de côté après la dernière
+     * tentative ; le message suivant de la même clé n'est traité qu'ensuite,
+     * et le commit passe au-delà.
+     */
+    @Test
+    void deadLettersAfterTheLastAttemptAndKeepsKeyOrder() throws InterruptedException {
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        try (KeyOrderedExecutor<String, String> retrying = new KeyOrderedExecutor<>("test", 4, 100, 2,
+                Duration.ofMillis(10), (record, e) -> events.add("dlt:" + record.value()))) {
+            for (int i = 0; i < 4; i++) {
+                retrying.submit(new ConsumerRecord<>(TOPIC, 0, i, "client", "v" + i), r -> {
+                    if (r.offset() == 1) {
+                        events.add("échec:" + r.value());
+                        throw new IllegalStateException("message illisible");
+                    }
+                    events.add(r.value());
+                });
+            }
+
+            assertThat(retrying.awaitCompletion(Set.of(TP), Duration.ofSeconds(5))).isTrue();
+            assertThat(events).containsExactly("v0", "échec:v1", "échec:v1", "dlt:v1", "v2", "v3");
+            assertThat(retrying.failed()).isZero();
+            assertThat(retrying.blockedPartitions()).isZero();
+            assertThat(retrying.committableOffsets(Set.of(TP))).containsEntry(TP, new OffsetAndMetadata(4));
+        }
+    }
+
+    @Test
+    void blocksThePartitionWhenTheDeadLetterFails() throws InterruptedException {
+        try (KeyOrderedExecutor<String, String> retrying = new KeyOrderedExecutor<>("test", 4, 100, 2,
+                Duration.ofMillis(10), (record, e) -> {
+                    throw new IllegalStateException("topic de rejet indisponible");
+                })) {
+            for (int i = 0; i < 3; i++) {
+                retrying.submit(new ConsumerRecord<>(TOPIC, 0, i, "client-" + i, "v" + i), r -> {
+                    if (r.offset() == 1) {
+                        throw new IllegalStateException("message illisible");
+                    }
+                });
+            }
+
+            assertThat(retrying.awaitCompletion(Set.of(TP), Duration.ofSeconds(5))).isTrue();
+            assertThat(retrying.failed()).isEqualTo(1);
+            assertThat(retrying.blockedPartitions()).isEqualTo(1);
+            assertThat(retrying.committableOffsets(Set.of(TP))).containsEntry(TP, new OffsetAndMetadata(1));
+        }
+    }
+
+    @Test
+    void forgottenPartitionDropsFailures() throws InterruptedException {
+        executor.submit(new ConsumerRecord<>(TOPIC, 0, 0, "client", "v"), r -> {
+            throw new IllegalStateException("envoi impossible");
+        });
+        assertThat(executor.awaitCompletion(Set.of(TP), Duration.ofSeconds(5))).isTrue();
+
+        executor.forget(Set.of(TP));
+
+        assertThat(executor.failed()).isZero();
+        assertThat(executor.blockedPartitions()).isZero();
+        assertThat(executor.committableOffsets(Set.of(TP))).isEmpty();
+    }
+}
@@ -0,0 +1,75 @@
+package com.harington.devops_training.kafka.consumer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Journal des messages du consumer : 4 threads écrivent pendant qu'un thread
+ * lit la page de démo. {@link MessageRingBuffer} contre l'ancienne liste
+ * synchronisée (sans limite, copiée entière sous verrou à chaque lecture ;
+ * vidée à chaque itération pour ne pas saturer la mémoire).
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=MessageRingBuffer
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageRingBufferBenchmark {
+    private static final String MESSAGE = "[Batch][partition=0] Contrats traités: 1:✘, 2:✔, 3:✘, 4:✔";
+
+    private MessageRingBuffer ringBuffer;
+    private List<String> synchronizedList;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        ringBuffer = new MessageRingBuffer(1024);
+        synchronizedList = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @Benchmark
+    @Group("ringBuffer")
+    @GroupThreads(4)
+    public void ringBufferAdd() {
+        ringBuffer.add(MESSAGE);
+    }
+
+    @Benchmark
+    @Group("ringBuffer")
+    @GroupThreads(1)
+    public List<String> ringBufferSnapshot() {
+        return ringBuffer.snapshot();
+    }
+
+    @Benchmark
+    @Group("synchronizedList")
+    @GroupThreads(4)
+    public void synchronizedListAdd() {
+        synchronizedList.add(MESSAGE);
+    }
+
+    @Benchmark
+    @Group("synchronizedList")
+    @GroupThreads(1)
+    public List<String> synchronizedListSnapshot() {
+        return new ArrayList<>(synchronizedList);
+    }
+}
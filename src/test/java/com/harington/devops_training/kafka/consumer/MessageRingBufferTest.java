@@ -0,0 +1,28 @@
+package com.harington.devops_training.kafka.consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class MessageRingBufferTest {
+    @Test
+    void keepsOnlyTheConfiguredNumberOfMessages() {
+        MessageRingBuffer buffer = new MessageRingBuffer(50);
+        IntStream.range(0, 60).forEach(i -> buffer.add("m-" + i));
+
+        assertThat(buffer.capacity()).isEqualTo(50);
+        assertThat(buffer.snapshot()).isEqualTo(IntStream.range(10, 60).mapToObj(i -> "m-" + i).toList());
+    }
+
+    @Test
+    void returnsEveryMessageBelowCapacity() {
+        MessageRingBuffer buffer = new MessageRingBuffer(50);
+        buffer.add("m-0");
+        buffer.add("m-1");
+
+        assertThat(buffer.snapshot()).isEqualTo(List.of("m-0", "m-1"));
+    }
+}
@@ -0,0 +1,138 @@
+package com.harington.devops_training.kafka.producer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harington.devops_training.config.JacksonConfig;
+import com.harington.devops_training.kafka.config.KafkaDemoProperties;
+import com.harington.devops_training.kafka.config.KafkaProducerConfig;
+import com.harington.devops_training.kafka.constants.KafkaConstants;
+import com.harington.devops_training.kafka.model.BatchAck;
+import com.harington.devops_training.kafka.model.ContractDto;
+import com.harington.devops_training.kafka.serde.ContractAvroSerde;
+import com.harington.devops_training.kafka.serde.ContractBatchReader;
+import com.harington.devops_training.kafka.serde.ContractListSerde;
+import com.harington.devops_training.service.ContractService;
+
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Envoi de 1000 messages de résultat sur un broker embarqué, avec chaque
+ * profil de producteur (kafka.demo.producer-profiles) :
+ * <ul>
+ * <li>pipelined : tous les envois puis une seule attente
+ * ({@link KafkaProducerService#sendMessages}, mode batch du consumer) ;</li>
+ * <li>awaitEach : attente de l'accusé de réception après chaque envoi.</li>
+ * </ul>
+ * {@code testKStream} reprend POST /kafka-demo/test-kstream avec total=1e6 et
+ * batchSize=1000 (génération des contrats, découpage, publication des 1000
+ * lots par {@link ContractService}) jusqu'au dernier accusé de réception ;
+ * le débit en contrats par seconde est 1e6 divisé par le temps mesuré. La
+ * redirection HTTP du contrôleur n'est pas mesurée.
+ * Un seul broker local : les écarts dus au réseau (linger, compression) sont
+ * plus faibles qu'en production.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=KafkaProducer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KafkaProducerBenchmark {
+    private static final String TOPIC = "producer-benchmark";
+    private static final String KEY = "result-batch";
+    private static final int MESSAGES = 1000;
+    private static final int KSTREAM_TOTAL = 1_000_000;
+    private static final int KSTREAM_BATCH_SIZE = 1000;
+
+    @Param({ KafkaDemoProperties.LOW_LATENCY, KafkaDemoProperties.BULK_THROUGHPUT })
+    public String profile;
+
+    private final List<String> messages = IntStream.range(0, MESSAGES)
+            .mapToObj(i -> "{\"contractId\":\"" + i + "\",\"eligible\":true,\"amount\":15000}")
+            .toList();
+    private EmbeddedKafkaKraftBroker broker;
+    private DefaultKafkaProducerFactory<String, String> producerFactory;
+    private KafkaTemplate<String, String> template;
+    private KafkaProducerService producerService;
+    private DefaultKafkaProducerFactory<String, List<ContractDto>> contractListProducerFactory;
+    private ContractService contractService;
+
+    @Setup
+    public void setUp() {
+        broker = new EmbeddedKafkaKraftBroker(1, 3, TOPIC, KafkaConstants.DEVOPS_TRAINING_STREAMING_TOPIC);
+        broker.afterPropertiesSet();
+        KafkaDemoProperties properties = new KafkaDemoProperties();
+        properties.getTemplates().setString(profile);
+        properties.getTemplates().setContractList(profile);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+        ContractListSerde contractListSerde = new ContractListSerde(objectMapper,
+                new ContractBatchReader(objectMapper), new ContractAvroSerde(new MockSchemaRegistryClient()),
+                properties, meterRegistry);
+        KafkaProducerConfig producerConfig = new KafkaProducerConfig(properties, meterRegistry, contractListSerde);
+        ReflectionTestUtils.setField(producerConfig, "bootstrapServers", broker.getBrokersAsString());
+        producerFactory = (DefaultKafkaProducerFactory<String, String>) producerConfig.stringProducerFactory();
+        contractListProducerFactory = (DefaultKafkaProducerFactory<String, List<ContractDto>>) producerConfig
+                .contractListProducerFactory();
+        template = new KafkaTemplate<>(producerFactory);
+        producerService = new KafkaProducerService(template, new KafkaTemplate<>(contractListProducerFactory),
+                new ProducerDeliveryTracker(properties, meterRegistry));
+        contractService = new ContractService(producerService);
+    }
+
+    @TearDown
+    public void tearDown() {
+        producerFactory.destroy();
+        contractListProducerFactory.destroy();
+        broker.destroy();
+    }
+
+    @Benchmark
+    public void pipelined() throws Exception {
+        producerService.sendMessages(TOPIC, KEY, messages).get(30, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public void awaitEach() throws Exception {
+        for (String message : messages) {
+            template.send(TOPIC, KEY, message).get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Un seul passage par itération : chaque appel publie un million de
+     * contrats.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public List<BatchAck> testKStream() throws Exception {
+        List<ContractDto> contracts = ContractDto.generateMocks(KSTREAM_TOTAL);
+        return contractService.sendBatches(ContractDto.partition(contracts, KSTREAM_BATCH_SIZE))
+                .get(5, TimeUnit.MINUTES);
+    }
+}
@@ -0,0 +1,149 @@
+package com.harington.devops_training.kafka.producer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harington.devops_training.config.JacksonConfig;
+import com.harington.devops_training.kafka.config.KafkaDemoProperties;
+import com.harington.devops_training.kafka.model.BatchAck;
+import com.harington.devops_training.kafka.model.ContractDto;
+import com.harington.devops_training.kafka.serde.ContractAvroSerde;
+import com.harington.devops_training.kafka.serde.ContractBatchReader;
+import com.harington.devops_training.kafka.serde.ContractListSerde;
+
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Envoi des lots de contrats sur un broker embarqué : accusés de réception
+ * (BatchAck), métriques de ProducerDeliveryTracker, et échec d'un lot.
+ */
+@EmbeddedKafka(partitions = 2, topics = { KafkaProducerServiceTest.TOPIC, KafkaProducerServiceTest.FAILURE_TOPIC })
+class KafkaProducerServiceTest {
+    static final String TOPIC = "contract-batches-test";
+    static final String FAILURE_TOPIC = "contract-batches-failure-test";
+    /**
+     * Taille maximale d'une requête du producteur de lots : un lot de 50
+     * contrats la dépasse.
+     */
+    private static final int MAX_REQUEST_SIZE = 4096;
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final KafkaDemoProperties kafkaDemoProperties = new KafkaDemoProperties();
+    private final ContractListSerde contractListSerde = new ContractListSerde(objectMapper,
+            new ContractBatchReader(objectMapper), new ContractAvroSerde(new MockSchemaRegistryClient()),
+            kafkaDemoProperties, meterRegistry);
+    private DefaultKafkaProducerFactory<String, String> stringProducerFactory;
+    private DefaultKafkaProducerFactory<String, List<ContractDto>> contractListProducerFactory;
+
+    @AfterEach
+    void close() {
+        stringProducerFactory.destroy();
+        contractListProducerFactory.destroy();
+    }
+
+    @Test
+    void acknowledgesEachBatchOnce(EmbeddedKafkaBroker broker) throws Exception {
+        KafkaProducerService producerService = producerService(broker);
+        List<List<ContractDto>> batches = ContractDto.partition(ContractDto.generateMocks(10), 4);
+
+        List<BatchAck> acks = producerService.sendContractBatches(TOPIC, batches).get(30, TimeUnit.SECONDS);
+
+        assertThat(acks).extracting(BatchAck::batchId).containsExactly("batch-1", "batch-2", "batch-3");
+        assertThat(acks).extracting(BatchAck::size).containsExactly(4, 4, 2);
+        assertThat(acks).allMatch(ack -> ack.partition() >= 0 && ack.offset() >= 0);
+
+        Map<String, ConsumerRecord<String, List<ContractDto>>> received = new HashMap<>();
+        try (Consumer<String, List<ContractDto>> consumer = consumer(broker)) {
+            ConsumerRecords<String, List<ContractDto>> records = KafkaTestUtils.getRecords(consumer,
+                    Duration.ofSeconds(30), batches.size());
+            records.forEach(record -> assertThat(received.put(record.key(), record)).isNull());
+        }
+        assertThat(received).hasSize(batches.size());
+        for (int i = 0; i < batches.size(); i++) {
+            BatchAck ack = acks.get(i);
+            ConsumerRecord<String, List<ContractDto>> record = received.get(ack.batchId());
+            assertThat(record.partition()).isEqualTo(ack.partition());
+            assertThat(record.offset()).isEqualTo(ack.offset());
+            assertThat(record.value()).isEqualTo(batches.get(i));
+        }
+
+        assertThat(meterRegistry.get("kafka.demo.producer.send.latency").tag("topic", TOPIC).timer().count())
+                .isEqualTo(batches.size());
+        assertThat(meterRegistry.find("kafka.demo.producer.send.failures").counter()).isNull();
+        assertInFlightIsEmpty();
+    }
+
+    @Test
+    void failsWhenABatchIsNotDelivered(EmbeddedKafkaBroker broker) {
+        KafkaProducerService producerService = producerService(broker);
+        List<List<ContractDto>> batches = List.of(ContractDto.generateMocks(2), ContractDto.generateMocks(50));
+
+        assertThatThrownBy(() -> producerService.sendContractBatches(FAILURE_TOPIC, batches)
+                .get(30, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseInstanceOf(RecordTooLargeException.class);
+
+        assertThat(meterRegistry.get("kafka.demo.producer.send.failures")
+                .tag("topic", FAILURE_TOPIC)
+                .tag("exception", RecordTooLargeException.class.getSimpleName())
+                .counter()
+                .count()).isEqualTo(1);
+        assertThat(meterRegistry.get("kafka.demo.producer.send.latency")
+                .tag("topic", FAILURE_TOPIC)
+                .timer()
+                .count()).isEqualTo(1);
+        assertInFlightIsEmpty();
+    }
+
+    private void assertInFlightIsEmpty() {
+        assertThat(meterRegistry.get("kafka.demo.producer.in.flight.records").gauge().value()).isZero();
+        assertThat(meterRegistry.get("kafka.demo.producer.in.flight.bytes").gauge().value()).isZero();
+    }
+
+    private KafkaProducerService producerService(EmbeddedKafkaBroker broker) {
+        Map<String, Object> config = KafkaTestUtils.producerProps(broker);
+        stringProducerFactory = new DefaultKafkaProducerFactory<>(config, new StringSerializer(),
+                new StringSerializer());
+        Map<String, Object> contractListConfig = new HashMap<>(config);
+        contractListConfig.put(ProducerConfig.MAX_REQUEST_SIZE_CONFIG, MAX_REQUEST_SIZE);
+        contractListProducerFactory = new DefaultKafkaProducerFactory<>(contractListConfig, new StringSerializer(),
+                contractListSerde.serializer());
+        return new KafkaProducerService(new KafkaTemplate<>(stringProducerFactory),
+                new KafkaTemplate<>(contractListProducerFactory),
+                new ProducerDeliveryTracker(kafkaDemoProperties, meterRegistry));
+    }
+
+    private Consumer<String, List<ContractDto>> consumer(EmbeddedKafkaBroker broker) {
+        Map<String, Object> config = KafkaTestUtils.consumerProps("batch-ack-test", "false", broker);
+        Consumer<String, List<ContractDto>> consumer = new DefaultKafkaConsumerFactory<>(config,
+                new StringDeserializer(), contractListSerde.deserializer()).createConsumer();
+        broker.consumeFromAnEmbeddedTopic(consumer, TOPIC);
+        return consumer;
+    }
+}
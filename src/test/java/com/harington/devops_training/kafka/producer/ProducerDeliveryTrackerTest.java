@@ -0,0 +1,80 @@
+package com.harington.devops_training.kafka.producer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.unit.DataSize;
+
+import com.harington.devops_training.kafka.config.KafkaDemoProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Back-pressure de ProducerDeliveryTracker : au-delà de max-in-flight-bytes
+ * non acquittés, un envoi attend au plus max-block puis échoue.
+ */
+class ProducerDeliveryTrackerTest {
+    private static final String TOPIC = "contracts";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void failsASendWhenTooManyBytesAreInFlight() {
+        ProducerDeliveryTracker tracker = tracker(true);
+        CompletableFuture<SendResult<String, String>> pending = new CompletableFuture<>();
+        tracker.track(TOPIC, 100, () -> pending);
+
+        CompletableFuture<SendResult<String, String>> blocked = tracker.track(TOPIC, 50,
+                () -> CompletableFuture.completedFuture(sent()));
+
+        assertThat(blocked).isCompletedExceptionally();
+        assertThatThrownBy(blocked::join).hasCauseInstanceOf(TimeoutException.class);
+        assertThat(meterRegistry.get("kafka.demo.producer.send.failures")
+                .tag("topic", TOPIC)
+                .tag("exception", TimeoutException.class.getSimpleName())
+                .counter()
+                .count()).isEqualTo(1);
+        assertThat(meterRegistry.get("kafka.demo.producer.in.flight.bytes").gauge().value()).isEqualTo(100);
+
+        // l'accusé de réception libère le budget
+        pending.complete(sent());
+        assertThat(tracker.track(TOPIC, 50, () -> CompletableFuture.completedFuture(sent())))
+                .isCompletedWithValueMatching(result -> result.getRecordMetadata().offset() == 0);
+        assertThat(meterRegistry.get("kafka.demo.producer.send.latency").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("kafka.demo.producer.in.flight.bytes").gauge().value()).isZero();
+    }
+
+    @Test
+    void doesNotWaitWhenBackPressureIsDisabled() {
+        ProducerDeliveryTracker tracker = tracker(false);
+        tracker.track(TOPIC, 100, CompletableFuture::new);
+
+        assertThat(tracker.track(TOPIC, 50, () -> CompletableFuture.completedFuture(sent())))
+                .isCompletedWithValueMatching(result -> result.getRecordMetadata().offset() == 0);
+        assertThat(meterRegistry.find("kafka.demo.producer.send.failures").counter()).isNull();
+        assertThat(meterRegistry.get("kafka.demo.producer.in.flight.records").gauge().value()).isEqualTo(1);
+    }
+
+    private ProducerDeliveryTracker tracker(boolean backPressure) {
+        KafkaDemoProperties properties = new KafkaDemoProperties();
+        KafkaDemoProperties.BackPressure config = properties.getProducer().getBackPressure();
+        config.setEnabled(backPressure);
+        config.setMaxInFlightBytes(DataSize.ofBytes(120));
+        config.setMaxBlock(Duration.ofMillis(100));
+        return new ProducerDeliveryTracker(properties, meterRegistry);
+    }
+
+    private static SendResult<String, String> sent() {
+        return new SendResult<>(new ProducerRecord<>(TOPIC, "key", "value"),
+                new RecordMetadata(new TopicPartition(TOPIC, 0), 0, 0, 0L, 3, 5));
+    }
+}
@@ -0,0 +1,143 @@
+package com.harington.devops_training.kafka.serde;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harington.devops_training.config.JacksonConfig;
+import com.harington.devops_training.kafka.avro.AvroCodec;
+import com.harington.devops_training.kafka.config.KafkaDemoProperties;
+import com.harington.devops_training.kafka.converter.ContractConverter;
+import com.harington.devops_training.kafka.model.ContractDto;
+
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Aller-retour Avro des lots de contrats avec un registre de schémas en
+ * mémoire, au format des sérialiseurs Confluent.
+ */
+class ContractAvroSerdeTest {
+    private static final String TOPIC = "contracts-avro";
+
+    private final MockSchemaRegistryClient registry = new MockSchemaRegistryClient();
+    private final ContractAvroSerde serde = new ContractAvroSerde(registry);
+
+    @Test
+    void readsBackTheWrittenBatch() throws Exception {
+        List<ContractDto> contracts = ContractDto.generateMocks(5);
+
+        byte[] bytes = serde.serialize(TOPIC, contracts);
+
+        assertThat(ContractAvroSerde.isAvro(bytes)).isTrue();
+        int schemaId = ByteBuffer.wrap(bytes, 1, 4).getInt();
+        assertThat(registry.getId(TOPIC + "-value", new AvroSchema(ContractConverter.BATCH_SCHEMA)))
+                .isEqualTo(schemaId);
+        assertThat(serde.deserialize(bytes)).isEqualTo(contracts);
+    }
+
+    @Test
+    void keepsMissingFields() {
+        ContractDto empty = ContractDto.builder().id("1").build();
+        ContractDto full = ContractDto.builder()
+                .id("2")
+                .label("Contrat 2")
+                .description("Description")
+                .startDate(LocalDate.of(2024, 1, 31))
+                .endDate(LocalDate.of(2030, 12, 31))
+                .amount(new BigDecimal("12000000.50"))
+                .isEligible(true)
+                .build();
+
+        assertThat(serde.deserialize(serde.serialize(TOPIC, List.of(empty, full)))).containsExactly(empty, full);
+    }
+
+    /**
+     * Le décodeur réutilise l'enregistrement du thread : un lot déjà lu ne
+     * doit pas changer quand le thread en lit un autre.
+     */
+    @Test
+    void decodedBatchesAreIndependent() {
+        List<ContractDto> first = ContractDto.generateMocks(3);
+        List<ContractDto> second = List.of(ContractDto.builder().id("autre").label("Autre").build());
+
+        List<ContractDto> firstRead = serde.deserialize(serde.serialize(TOPIC, first));
+        List<ContractDto> secondRead = serde.deserialize(serde.serialize(TOPIC, second));
+
+        assertThat(firstRead).isEqualTo(first);
+        assertThat(secondRead).isEqualTo(second);
+    }
+
+    /**
+     * Un message écrit avec une version plus ancienne du schéma (sans
+     * description) est lu avec le schéma courant.
+     */
+    @Test
+    void readsBatchesWrittenWithAnOlderSchema() throws Exception {
+        Schema oldSchema = new Schema.Parser().parse(ContractConverter.BATCH_SCHEMA_JSON
+                .replace("{\"name\": \"description\", \"type\": [\"null\", \"string\"], \"default\": null},", ""));
+        assertThat(oldSchema.getField("contracts").schema().getElementType().getField("description")).isNull();
+        int schemaId = registry.register(TOPIC + "-value", new AvroSchema(oldSchema));
+
+        Schema oldContract = oldSchema.getField("contracts").schema().getElementType();
+        GenericRecord contract = new GenericData.Record(oldContract);
+        contract.put("id", "1");
+        contract.put("label", "Contrat 1");
+        contract.put("startDate", (int) LocalDate.of(2024, 1, 1).toEpochDay());
+        contract.put("amount", "15000000");
+        GenericRecord batch = new GenericData.Record(oldSchema);
+        batch.put("contracts", List.of(contract));
+        byte[] header = ByteBuffer.allocate(5).put(ContractAvroSerde.MAGIC_BYTE).putInt(schemaId).array();
+        byte[] bytes = AvroCodec.toBytes(AvroCodec.generic(oldSchema).encode(header, batch));
+
+        assertThat(serde.deserialize(bytes)).containsExactly(ContractDto.builder()
+                .id("1")
+                .label("Contrat 1")
+                .startDate(LocalDate.of(2024, 1, 1))
+                .amount(new BigDecimal("15000000"))
+                .build());
+    }
+
+    @Test
+    void rejectsUnknownSchemaAndJson() {
+        byte[] unknownSchema = ByteBuffer.allocate(6).put(ContractAvroSerde.MAGIC_BYTE).putInt(42).put((byte) 0)
+                .array();
+
+        assertThatThrownBy(() -> serde.deserialize(unknownSchema)).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> serde.deserialize("[]".getBytes())).isInstanceOf(SerializationException.class);
+    }
+
+    /**
+     * ContractListSerde écrit en Avro les topics de kafka.demo.avro.topics et
+     * lit les deux formats.
+     */
+    @Test
+    void contractListSerdeWritesAvroOnlyForConfiguredTopics() {
+        ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+        KafkaDemoProperties properties = new KafkaDemoProperties();
+        properties.getAvro().setTopics(List.of(TOPIC));
+        ContractListSerde listSerde = new ContractListSerde(objectMapper, new ContractBatchReader(objectMapper),
+                serde, properties, new SimpleMeterRegistry());
+        List<ContractDto> contracts = ContractDto.generateMocks(4);
+
+        byte[] avro = listSerde.serializer().serialize(TOPIC, contracts);
+        byte[] json = listSerde.serializer().serialize("contracts-json", contracts);
+
+        assertThat(ContractAvroSerde.isAvro(avro)).isTrue();
+        assertThat(ContractAvroSerde.isAvro(json)).isFalse();
+        assertThat(listSerde.deserializer().deserialize(TOPIC, avro)).isEqualTo(contracts);
+        assertThat(listSerde.deserializer().deserialize("contracts-json", json)).isEqualTo(contracts);
+    }
+}
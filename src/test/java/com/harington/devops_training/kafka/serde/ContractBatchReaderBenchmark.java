@@ -0,0 +1,66 @@
+package com.harington.devops_training.kafka.serde;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harington.devops_training.config.JacksonConfig;
+import com.harington.devops_training.kafka.model.ContractDto;
+
+/**
+ * Lecture d'un lot de contrats JSON : {@link ContractBatchReader#forEach}
+ * (un contrat à la fois) contre {@code objectMapper.readValue} de la liste
+ * entière. Les allocations (taux et octets alloués par opération, pas la
+ * mémoire retenue) se comparent avec -Dbenchmark.args="-prof gc".
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=ContractBatchReader
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContractBatchReaderBenchmark {
+    private static final TypeReference<List<ContractDto>> CONTRACT_LIST = new TypeReference<>() {
+    };
+
+    @Param({ "100", "10000" })
+    public int contracts;
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final ContractBatchReader reader = new ContractBatchReader(objectMapper);
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        json = objectMapper.writeValueAsBytes(ContractDto.generateMocks(contracts));
+    }
+
+    @Benchmark
+    public int streaming(Blackhole blackhole) throws IOException {
+        return reader.forEach(json, blackhole::consume);
+    }
+
+    @Benchmark
+    public int readValue(Blackhole blackhole) throws IOException {
+        List<ContractDto> batch = objectMapper.readValue(json, CONTRACT_LIST);
+        batch.forEach(blackhole::consume);
+        return batch.size();
+    }
+}
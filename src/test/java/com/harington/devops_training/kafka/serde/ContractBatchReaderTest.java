@@ -0,0 +1,99 @@
+package com.harington.devops_training.kafka.serde;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.harington.devops_training.config.JacksonConfig;
+import com.harington.devops_training.kafka.model.ContractDto;
+
+/**
+ * Le lecteur en flux doit lire les lots exactement comme
+ * {@code objectMapper.readValue}, y compris ceux publiés par l'ancien
+ * producteur (JsonSerializer de Spring Kafka, avec son propre ObjectMapper).
+ */
+class ContractBatchReaderTest {
+    private static final String TOPIC = "devops-training-streaming";
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final ContractBatchReader reader = new ContractBatchReader(objectMapper);
+
+    @Test
+    void readsBatchesWrittenByTheJsonSerializerProducer() throws IOException {
+        List<ContractDto> batch = batch();
+        byte[] json;
+        try (JsonSerializer<List<ContractDto>> serializer = new JsonSerializer<>()) {
+            json = serializer.serialize(TOPIC, batch);
+        }
+
+        assertThat(reader.readList(json)).isEqualTo(batch);
+        assertThat(reader.readList(json)).isEqualTo(objectMapper.readValue(json,
+                new TypeReference<List<ContractDto>>() {
+                }));
+        List<ContractDto> streamed = new ArrayList<>();
+        assertThat(reader.forEach(new String(json, StandardCharsets.UTF_8), streamed::add)).isEqualTo(batch.size());
+        assertThat(streamed).isEqualTo(batch);
+    }
+
+    @Test
+    void readsBatchesWrittenByContractListSerde() throws IOException {
+        List<ContractDto> batch = batch();
+
+        assertThat(reader.readList(objectMapper.writeValueAsBytes(batch))).isEqualTo(batch);
+    }
+
+    /**
+     * Dates ISO (ObjectMapper sans WRITE_DATES_AS_TIMESTAMPS) : acceptées,
+     * comme par l'ObjectMapper de l'application.
+     */
+    @Test
+    void readsIsoDates() throws IOException {
+        List<ContractDto> batch = batch();
+        byte[] json = objectMapper.copy().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .writeValueAsBytes(batch);
+
+        assertThat(new String(json, StandardCharsets.UTF_8)).contains("\"2025-01-31\"");
+        assertThat(reader.readList(json)).isEqualTo(batch);
+    }
+
+    @Test
+    void appliesTheObjectMapperRules() {
+        byte[] unknownField = "[{\"id\": \"1\", \"inconnu\": true}]".getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> objectMapper.readValue(unknownField, new TypeReference<List<ContractDto>>() {
+        })).isInstanceOf(UnrecognizedPropertyException.class);
+        assertThatThrownBy(() -> reader.readList(unknownField)).isInstanceOf(UnrecognizedPropertyException.class);
+    }
+
+    @Test
+    void rejectsAnythingButAnArrayOfContracts() {
+        assertThatThrownBy(() -> reader.readList("{\"id\": \"1\"}".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(JsonParseException.class);
+        assertThatThrownBy(() -> reader.readList("[1]".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(JsonParseException.class);
+    }
+
+    private static List<ContractDto> batch() {
+        List<ContractDto> batch = new ArrayList<>(ContractDto.generateMocks(5));
+        batch.add(ContractDto.builder()
+                .id("6")
+                .startDate(LocalDate.of(2025, 1, 31))
+                .amount(new BigDecimal("12000000.50"))
+                .build());
+        return batch;
+    }
+}
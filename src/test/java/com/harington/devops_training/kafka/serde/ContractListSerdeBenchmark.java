@@ -0,0 +1,71 @@
+package com.harington.devops_training.kafka.serde;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harington.devops_training.config.JacksonConfig;
+import com.harington.devops_training.kafka.config.KafkaDemoProperties;
+import com.harington.devops_training.kafka.model.ContractDto;
+
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Lots de contrats en JSON et en Avro binaire ({@link ContractListSerde},
+ * topic "avro" listé dans kafka.demo.avro.topics). La taille des messages
+ * est affichée au démarrage de chaque fork.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=ContractListSerde
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContractListSerdeBenchmark {
+    @Param({ "json", "avro" })
+    public String format;
+
+    @Param({ "100", "10000" })
+    public int contracts;
+
+    private ContractListSerde serde;
+    private List<ContractDto> batch;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+        KafkaDemoProperties properties = new KafkaDemoProperties();
+        properties.getAvro().setTopics(List.of("avro"));
+        serde = new ContractListSerde(objectMapper, new ContractBatchReader(objectMapper),
+                new ContractAvroSerde(new MockSchemaRegistryClient()), properties, new SimpleMeterRegistry());
+        batch = ContractDto.generateMocks(contracts);
+        bytes = serde.serializer().serialize(format, batch);
+        System.out.printf("%s, %d contrats : %d octets%n", format, contracts, bytes.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serde.serializer().serialize(format, batch);
+    }
+
+    @Benchmark
+    public List<ContractDto> deserialize() {
+        return serde.deserializer().deserialize(format, bytes);
+    }
+}
@@ -0,0 +1,73 @@
+package com.harington.devops_training.kafka.streams;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harington.devops_training.config.JacksonConfig;
+import com.harington.devops_training.kafka.model.ContractDto;
+import com.harington.devops_training.kafka.serde.ContractJsonSerde;
+
+/**
+ * Écriture d'un contrat routé (contracts-eligible / contracts-ineligible) :
+ * {@link ContractJsonSerde} contre le chemin d'origine, qui passait par une
+ * String (writeValueAsString puis Serdes.String()).
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=ContractJsonSerde
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContractJsonSerdeBenchmark {
+    private static final String TOPIC = "contracts-eligible";
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final ContractJsonSerde contractJsonSerde = new ContractJsonSerde(objectMapper);
+    private final Serde<String> stringSerde = Serdes.String();
+    private ContractDto contract;
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        contract = ContractDto.generateMocks(1).get(0);
+        contract.setEndDate(LocalDate.now().plusYears(1));
+        json = contractJsonSerde.serializer().serialize(TOPIC, contract);
+    }
+
+    @Benchmark
+    public byte[] serializeSerde() {
+        return contractJsonSerde.serializer().serialize(TOPIC, contract);
+    }
+
+    @Benchmark
+    public byte[] serializeString() throws JsonProcessingException {
+        return stringSerde.serializer().serialize(TOPIC, objectMapper.writeValueAsString(contract));
+    }
+
+    @Benchmark
+    public ContractDto deserializeSerde() {
+        return contractJsonSerde.deserializer().deserialize(TOPIC, json);
+    }
+
+    @Benchmark
+    public ContractDto deserializeString() throws JsonProcessingException {
+        return objectMapper.readValue(stringSerde.deserializer().deserialize(TOPIC, json), ContractDto.class);
+    }
+}
@@ -0,0 +1,172 @@
+package com.harington.devops_training.kafka.streams;
+
+import static com.harington.devops_training.kafka.constants.KafkaConstants.DEVOPS_TRAINING_STREAMING_TOPIC;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.Topology;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Produced;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harington.devops_training.config.JacksonConfig;
+import com.harington.devops_training.kafka.config.KafkaDemoProperties;
+import com.harington.devops_training.kafka.model.ContractDto;
+import com.harington.devops_training.kafka.serde.ContractAvroSerde;
+import com.harington.devops_training.kafka.serde.ContractBatchReader;
+import com.harington.devops_training.kafka.serde.ContractJsonSerde;
+import com.harington.devops_training.kafka.serde.ContractListSerde;
+import com.harington.devops_training.service.ContractEligibilityService;
+
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Lots de contrats routés vers contracts-eligible / contracts-ineligible,
+ * exécutés avec TopologyTestDriver sur les mêmes lots :
+ * {@code split} est la topologie de {@link KstreamProcessAndRoute} (verdict
+ * calculé une fois par contrat, un seul split()), {@code filters} reprend la
+ * topologie d'origine (statistiques sur la liste, puis deux filter() qui
+ * réévaluent chacun tous les contrats).
+ *
+ * Les deux topologies écrivent les mêmes topics avec les mêmes serdes ; le
+ * résultat est en lots par seconde.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=ContractRouting
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContractRoutingBenchmark {
+    private static final String RESULT_TOPIC = "devops-training-streams-result";
+
+    @Param({ "100", "1000" })
+    public int batchSize;
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final ContractEligibilityService eligibilityService = new ContractEligibilityService();
+    private final ContractListSerde contractListSerde = new ContractListSerde(objectMapper,
+            new ContractBatchReader(objectMapper), new ContractAvroSerde(new MockSchemaRegistryClient()),
+            new KafkaDemoProperties(), new SimpleMeterRegistry());
+    private final ContractJsonSerde contractJsonSerde = new ContractJsonSerde(objectMapper);
+    private List<ContractDto> batch;
+    private Route split;
+    private Route filters;
+
+    @Setup
+    public void setUp() {
+        batch = ContractDto.generateMocks(batchSize);
+        // moitié éligibles, moitié expirés : les deux branches travaillent
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).setEndDate(LocalDate.now().plusDays(i % 2 == 0 ? 30 : -1));
+        }
+        split = new Route(splitTopology());
+        filters = new Route(filtersTopology());
+    }
+
+    @TearDown
+    public void tearDown() {
+        split.driver().close();
+        filters.driver().close();
+    }
+
+    @Benchmark
+    public int split() {
+        return split.pipe(batch);
+    }
+
+    @Benchmark
+    public int filters() {
+        return filters.pipe(batch);
+    }
+
+    private Topology splitTopology() {
+        StreamsBuilder builder = new StreamsBuilder();
+        KstreamProcessAndRoute processAndRoute = new KstreamProcessAndRoute(objectMapper, eligibilityService,
+                contractListSerde, contractJsonSerde);
+        processAndRoute.processAndRouteContracts(processAndRoute.contractListStream(builder));
+        return builder.build();
+    }
+
+    /**
+     * Topologie d'avant split() : les statistiques évaluent la liste, puis
+     * chaque filter() réévalue chaque contrat.
+     */
+    private Topology filtersTopology() {
+        StreamsBuilder builder = new StreamsBuilder();
+        KStream<String, List<ContractDto>> contractListStream = builder.stream(DEVOPS_TRAINING_STREAMING_TOPIC,
+                Consumed.with(Serdes.String(), contractListSerde));
+        contractListStream.mapValues(list -> {
+            try {
+                return objectMapper.writeValueAsString(eligibilityService.computeBatchStats(list));
+            } catch (Exception e) {
+                return null;
+            }
+        }).to(RESULT_TOPIC, Produced.with(Serdes.String(), Serdes.String()));
+        KStream<String, ContractDto> individualContracts = contractListStream.flatMapValues(contracts -> contracts);
+        individualContracts.filter((key, contract) -> eligibilityService.isContractEligible(contract))
+                .to("contracts-eligible", Produced.with(Serdes.String(), contractJsonSerde));
+        individualContracts.filter((key, contract) -> !eligibilityService.isContractEligible(contract))
+                .to("contracts-ineligible", Produced.with(Serdes.String(), contractJsonSerde));
+        return builder.build();
+    }
+
+    private static TestOutputTopic<byte[], byte[]> output(TopologyTestDriver driver, String topic) {
+        return driver.createOutputTopic(topic, new ByteArrayDeserializer(), new ByteArrayDeserializer());
+    }
+
+    /**
+     * Driver et topics d'une topologie. Les sorties sont vidées à chaque lot
+     * (sans désérialisation) pour que le driver ne les accumule pas.
+     */
+    private final class Route {
+        private final TopologyTestDriver driver;
+        private final TestInputTopic<String, List<ContractDto>> input;
+        private final List<TestOutputTopic<byte[], byte[]>> outputs;
+
+        Route(Topology topology) {
+            driver = new TopologyTestDriver(topology, KstreamProcessAndRouteTest.config());
+            input = driver.createInputTopic(DEVOPS_TRAINING_STREAMING_TOPIC, Serdes.String().serializer(),
+                    contractListSerde.serializer());
+            outputs = List.of(output(driver, RESULT_TOPIC), output(driver, "contracts-eligible"),
+                    output(driver, "contracts-ineligible"));
+        }
+
+        TopologyTestDriver driver() {
+            return driver;
+        }
+
+        int pipe(List<ContractDto> contracts) {
+            input.pipeInput("client-1", contracts);
+            int records = 0;
+            for (TestOutputTopic<byte[], byte[]> output : outputs) {
+                records += output.readRecordsToList().size();
+            }
+            return records;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.harington.devops_training.kafka.streams;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.errors.TopicAuthorizationException;
+import org.apache.kafka.streams.errors.ProductionExceptionHandler.ProductionExceptionHandlerResponse;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaOperations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.harington.devops_training.kafka.model.ContractDto;
+
+class DeadLetterProductionExceptionHandlerTest {
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendsRejectedContractAsJsonWithErrorHeaders() throws Exception {
+        KafkaOperations<byte[], byte[]> template = mock(KafkaOperations.class);
+        when(template.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+        DeadLetterProductionExceptionHandler handler = handler(template);
+        ContractDto contract = ContractDto.builder()
+                .id("42")
+                .endDate(LocalDate.of(2030, 1, 1))
+                .amount(new BigDecimal("12000000"))
+                .build();
+
+        ProductionExceptionHandlerResponse response = handler.handleSerializationException(
+                new ProducerRecord<>("contracts-eligible", 0, 1000L, "client-1", contract),
+                new SerializationException("boom"));
+
+        assertThat(response).isEqualTo(ProductionExceptionHandlerResponse.CONTINUE);
+        ArgumentCaptor<ProducerRecord<byte[], byte[]>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(template).send(sent.capture());
+        ProducerRecord<byte[], byte[]> rejected = sent.getValue();
+        assertThat(rejected.topic()).isEqualTo("test-dlt");
+        assertThat(rejected.timestamp()).isEqualTo(1000L);
+        assertThat(new String(rejected.key(), StandardCharsets.UTF_8)).isEqualTo("client-1");
+        assertThat(objectMapper.readValue(rejected.value(), ContractDto.class)).isEqualTo(contract);
+        assertThat(header(rejected, DeadLetterProductionExceptionHandler.HEADER_TOPIC))
+                .isEqualTo("contracts-eligible");
+        assertThat(header(rejected, DeadLetterProductionExceptionHandler.HEADER_EXCEPTION))
+                .isEqualTo(SerializationException.class.getName());
+        assertThat(header(rejected, DeadLetterProductionExceptionHandler.HEADER_MESSAGE)).isEqualTo("boom");
+        assertThat(header(rejected, DeadLetterProductionExceptionHandler.HEADER_VALUE_TYPE))
+                .isEqualTo(ContractDto.class.getName());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failsWhenTheDeadLetterSendFails() {
+        KafkaOperations<byte[], byte[]> template = mock(KafkaOperations.class);
+        when(template.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new TopicAuthorizationException("test-dlt")));
+
+        ProductionExceptionHandlerResponse response = handler(template).handleSerializationException(
+                new ProducerRecord<>("contracts-eligible", "client-1", "v"), new SerializationException("boom"));
+
+        assertThat(response).isEqualTo(ProductionExceptionHandlerResponse.FAIL);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failsWhenTheDeadLetterSendTimesOut() {
+        KafkaOperations<byte[], byte[]> template = mock(KafkaOperations.class);
+        when(template.send(any(ProducerRecord.class))).thenReturn(new CompletableFuture<>());
+
+        ProductionExceptionHandlerResponse response = handler(template).handleSerializationException(
+                new ProducerRecord<>("contracts-eligible", "client-1", "v"), new SerializationException("boom"));
+
+        assertThat(response).isEqualTo(ProductionExceptionHandlerResponse.FAIL);
+    }
+
+    @Test
+    void failsWithoutTemplate() {
+        DeadLetterProductionExceptionHandler handler = new DeadLetterProductionExceptionHandler();
+        handler.configure(Map.of());
+
+        ProductionExceptionHandlerResponse response = handler.handleSerializationException(
+                new ProducerRecord<>("contracts-eligible", "client-1", "v"), new SerializationException("boom"));
+
+        assertThat(response).isEqualTo(ProductionExceptionHandlerResponse.FAIL);
+    }
+
+    private DeadLetterProductionExceptionHandler handler(KafkaOperations<byte[], byte[]> template) {
+        DeadLetterProductionExceptionHandler handler = new DeadLetterProductionExceptionHandler();
+        handler.configure(Map.of(
+                DeadLetterProductionExceptionHandler.DEAD_LETTER_TOPIC_CONFIG, "test-dlt",
+                DeadLetterProductionExceptionHandler.DEAD_LETTER_TEMPLATE_CONFIG, template,
+                DeadLetterProductionExceptionHandler.OBJECT_MAPPER_CONFIG, objectMapper,
+                DeadLetterProductionExceptionHandler.DEAD_LETTER_TIMEOUT_CONFIG, "100"));
+        return handler;
+    }
+
+    private static String header(ProducerRecord<byte[], byte[]> record, String name) {
+        return new String(record.headers().lastHeader(name).value(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,194 @@
+package com.harington.devops_training.kafka.streams;
+
+import static com.harington.devops_training.kafka.constants.KafkaConstants.ELIGIBLE_COUNT_STORE;
+import static com.harington.devops_training.kafka.constants.KafkaConstants.INTERNAL_TOKEN_HEADER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.state.HostInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.config.KafkaStreamsConfiguration;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.web.client.RestClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harington.devops_training.kafka.config.KafkaDemoProperties;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Deux instances Kafka Streams (application.server distincts) se partagent
+ * les partitions du store : chacune doit répondre pour les clés de l'autre.
+ * Les endpoints /kafka-demo/internal/** sont servis par un petit serveur HTTP
+ * qui délègue aux méthodes locales du service, comme KafkaDemoController.
+ */
+@EmbeddedKafka(partitions = 4, topics = EligibleCountQueryServiceTest.TOPIC)
+class EligibleCountQueryServiceTest {
+    static final String TOPIC = "eligible-contracts-iq-test";
+    private static final String TOKEN = "test-token";
+    private static final int CLIENTS = 20;
+
+    @TempDir
+    private Path stateDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Instance first;
+    private Instance second;
+
+    @AfterEach
+    void stop() {
+        for (Instance instance : new Instance[] { first, second }) {
+            if (instance != null) {
+                instance.stop();
+            }
+        }
+    }
+
+    @Test
+    void answersForKeysOwnedByTheOtherInstance(EmbeddedKafkaBroker broker) throws Exception {
+        first = start("first", broker);
+        second = start("second", broker);
+        await().atMost(Duration.ofSeconds(60)).until(() -> first.running() && second.running()
+                && first.streams().streamsMetadataForStore(ELIGIBLE_COUNT_STORE).stream()
+                        .allMatch(metadata -> !metadata.topicPartitions().isEmpty())
+                && first.streams().streamsMetadataForStore(ELIGIBLE_COUNT_STORE).size() == 2);
+
+        Map<String, Long> expected = new TreeMap<>();
+        try (KafkaProducer<String, String> producer = new KafkaProducer<>(
+                KafkaTestUtils.producerProps(broker), new StringSerializer(), new StringSerializer())) {
+            for (int i = 0; i < CLIENTS; i++) {
+                String clientId = String.format("client-%02d", i);
+                long contracts = i % 3 + 1;
+                for (int c = 0; c < contracts; c++) {
+                    producer.send(new ProducerRecord<>(TOPIC, clientId, "contrat-" + c));
+                }
+                expected.put(clientId, contracts);
+            }
+        }
+        List<String> clientIds = List.copyOf(expected.keySet());
+        await().atMost(Duration.ofSeconds(60)).ignoreExceptions()
+                .until(() -> first.service().counts(clientIds).equals(expected));
+
+        String remoteKey = clientIds.stream()
+                .filter(clientId -> second.host().equals(ownerOf(first, clientId)))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("aucune clé détenue par la seconde instance"));
+        assertThat(first.service().localCounts(List.of(remoteKey))).isEmpty();
+        assertThat(first.service().count(remoteKey)).isEqualTo(expected.get(remoteKey));
+
+        assertThat(first.service().counts(clientIds)).isEqualTo(expected);
+        assertThat(second.service().counts(clientIds)).isEqualTo(expected);
+        assertThat(first.service().range("client-00", "client-99")).isEqualTo(expected);
+        assertThat(second.service().range("client-00", "client-99")).isEqualTo(expected);
+    }
+
+    private HostInfo ownerOf(Instance instance, String clientId) {
+        KeyQueryMetadata metadata = instance.streams().queryMetadataForKey(ELIGIBLE_COUNT_STORE, clientId,
+                Serdes.String().serializer());
+        return metadata.activeHost();
+    }
+
+    /**
+     * Démarre une instance : serveur HTTP (port libre), puis KafkaStreams avec
+     * ce port en application.server et la même topologie de comptage.
+     */
+    private Instance start(String name, EmbeddedKafkaBroker broker) throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        HostInfo host = new HostInfo("localhost", server.getAddress().getPort());
+
+        Map<String, Object> config = new HashMap<>();
+        config.put(StreamsConfig.APPLICATION_ID_CONFIG, "eligible-count-iq-test");
+        config.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        config.put(StreamsConfig.APPLICATION_SERVER_CONFIG, host.host() + ":" + host.port());
+        config.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.resolve(name).toString());
+        config.put(StreamsConfig.COMMIT_INTERVAL_MS_CONFIG, 100);
+        config.put(StreamsConfig.STATESTORE_CACHE_MAX_BYTES_CONFIG, 0);
+        config.put(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, Serdes.StringSerde.class);
+        config.put(StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG, Serdes.StringSerde.class);
+        StreamsBuilderFactoryBean factoryBean = new StreamsBuilderFactoryBean(new KafkaStreamsConfiguration(config));
+        factoryBean.afterPropertiesSet();
+        factoryBean.getObject()
+                .stream(TOPIC, Consumed.with(Serdes.String(), Serdes.String()))
+                .groupByKey()
+                .count(Materialized.as(ELIGIBLE_COUNT_STORE));
+
+        KafkaDemoProperties properties = new KafkaDemoProperties();
+        properties.getStreams().setInternalToken(TOKEN);
+        EligibleCountQueryService service = new EligibleCountQueryService(factoryBean, properties,
+                RestClient.builder());
+        server.createContext("/kafka-demo/internal/state", exchange -> respond(exchange,
+                params -> service.localCounts(Arrays.asList(params.get("clientIds").split(",")))));
+        server.createContext("/kafka-demo/internal/state-range", exchange -> respond(exchange,
+                params -> service.localRange(params.get("from"), params.get("to"))));
+        server.start();
+        factoryBean.start();
+        return new Instance(host, factoryBean, service, server);
+    }
+
+    private void respond(HttpExchange exchange, Function<Map<String, String>, Object> handler)
+            throws IOException {
+        try (exchange) {
+            if (!TOKEN.equals(exchange.getRequestHeaders().getFirst(INTERNAL_TOKEN_HEADER))) {
+                exchange.sendResponseHeaders(403, -1);
+                return;
+            }
+            Map<String, String> params = new HashMap<>();
+            String query = exchange.getRequestURI().getRawQuery();
+            for (String param : query == null ? new String[0] : query.split("&")) {
+                String[] pair = param.split("=", 2);
+                params.put(URLDecoder.decode(pair[0], StandardCharsets.UTF_8),
+                        pair.length > 1 ? URLDecoder.decode(pair[1], StandardCharsets.UTF_8) : "");
+            }
+            byte[] body = objectMapper.writeValueAsBytes(handler.apply(params));
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private record Instance(HostInfo host, StreamsBuilderFactoryBean factoryBean, EligibleCountQueryService service,
+            HttpServer server) {
+        KafkaStreams streams() {
+            return factoryBean.getKafkaStreams();
+        }
+
+        boolean running() {
+            return streams() != null && streams().state() == KafkaStreams.State.RUNNING;
+        }
+
+        void stop() {
+            factoryBean.stop();
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.harington.devops_training.kafka.streams;
+
+import static com.harington.devops_training.kafka.constants.KafkaConstants.DEVOPS_TRAINING_STREAMING_TOPIC;
+import static com.harington.devops_training.kafka.constants.KafkaConstants.ELIGIBLE_STATS_HOPPING_STORE;
+import static com.harington.devops_training.kafka.constants.KafkaConstants.ELIGIBLE_STATS_TUMBLING_STORE;
+import static com.harington.devops_training.kafka.streams.EligibleStatsQueryService.HOPPING;
+import static com.harington.devops_training.kafka.streams.EligibleStatsQueryService.TUMBLING;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.state.WindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.web.client.RestClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harington.devops_training.config.JacksonConfig;
+import com.harington.devops_training.kafka.config.KafkaDemoProperties;
+import com.harington.devops_training.kafka.model.ContractDto;
+import com.harington.devops_training.kafka.model.ContractVerdict;
+import com.harington.devops_training.kafka.model.EligibleStats;
+import com.harington.devops_training.kafka.model.WindowedStatsView;
+import com.harington.devops_training.kafka.serde.ContractAvroSerde;
+import com.harington.devops_training.kafka.serde.ContractBatchReader;
+import com.harington.devops_training.kafka.serde.ContractJsonSerde;
+import com.harington.devops_training.kafka.serde.ContractListSerde;
+import com.harington.devops_training.service.ContractEligibilityService;
+
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * "Contrats éligibles sur les N dernières minutes" avec les fenêtres par
+ * défaut (tumbling 1m, hopping 5m / 1m) : des contrats horodatés passent par
+ * la topologie (TopologyTestDriver), puis les stores sont interrogés comme
+ * par EligibleStatsQueryService.
+ */
+class EligibleStatsQueryServiceTest {
+    private static final String CLIENT = "client-1";
+    private static final Instant NOW = Instant.parse("2025-01-15T10:00:00Z");
+    private static final BigDecimal AMOUNT = BigDecimal.valueOf(20_000_000L);
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final KafkaDemoProperties kafkaDemoProperties = new KafkaDemoProperties();
+    private final ContractListSerde contractListSerde = new ContractListSerde(objectMapper,
+            new ContractBatchReader(objectMapper), new ContractAvroSerde(new MockSchemaRegistryClient()),
+            kafkaDemoProperties, new SimpleMeterRegistry());
+    private final EligibleStatsQueryService queryService = new EligibleStatsQueryService(
+            new StreamsBuilderFactoryBean(), kafkaDemoProperties, RestClient.builder());
+    private TopologyTestDriver driver;
+
+    @BeforeEach
+    void pipeContracts() {
+        StreamsBuilder builder = new StreamsBuilder();
+        KstreamProcessAndRoute processAndRoute = new KstreamProcessAndRoute(objectMapper,
+                new ContractEligibilityService(), contractListSerde, new ContractJsonSerde(objectMapper));
+        KStream<String, ContractVerdict> eligible = processAndRoute
+                .processAndRouteContracts(processAndRoute.contractListStream(builder));
+        KstreamWindowedStats windowedStats = new KstreamWindowedStats(objectMapper, kafkaDemoProperties);
+        windowedStats.eligibleStatsTumbling(eligible);
+        windowedStats.eligibleStatsHopping(eligible);
+        driver = new TopologyTestDriver(builder.build(), KstreamProcessAndRouteTest.config());
+
+        TestInputTopic<String, List<ContractDto>> input = driver.createInputTopic(DEVOPS_TRAINING_STREAMING_TOPIC,
+                Serdes.String().serializer(), contractListSerde.serializer());
+        int id = 0;
+        for (Duration ago : List.of(Duration.parse("PT9M30S"), Duration.parse("PT6M10S"), Duration.ofMinutes(3),
+                Duration.ofSeconds(30))) {
+            id++;
+            // un contrat non éligible par lot : il ne compte dans aucune fenêtre
+            input.pipeInput(CLIENT, List.of(KstreamProcessAndRouteTest.contract("e" + id, AMOUNT.longValue(), 30),
+                    KstreamProcessAndRouteTest.contract("i" + id, 1_000L, 30)), NOW.minus(ago));
+        }
+    }
+
+    @AfterEach
+    void close() {
+        driver.close();
+    }
+
+    @Test
+    void storesOneWindowPerMinuteAndFiveHoppingWindowsPerContract() {
+        assertThat(windows(ELIGIBLE_STATS_TUMBLING_STORE, NOW.minus(Duration.ofHours(1)), NOW))
+                .containsExactly(
+                        KeyValue.pair(NOW.minus(Duration.ofMinutes(10)), 1L),
+                        KeyValue.pair(NOW.minus(Duration.ofMinutes(7)), 1L),
+                        KeyValue.pair(NOW.minus(Duration.ofMinutes(3)), 1L),
+                        KeyValue.pair(NOW.minus(Duration.ofMinutes(1)), 1L));
+        // le contrat de maintenant − 30 s est dans les fenêtres glissantes
+        // commencées entre maintenant − 5 min et maintenant − 1 min
+        assertThat(windows(ELIGIBLE_STATS_HOPPING_STORE, NOW.minus(Duration.ofMinutes(5)), NOW))
+                .containsExactly(
+                        KeyValue.pair(NOW.minus(Duration.ofMinutes(5)), 2L),
+                        KeyValue.pair(NOW.minus(Duration.ofMinutes(4)), 2L),
+                        KeyValue.pair(NOW.minus(Duration.ofMinutes(3)), 2L),
+                        KeyValue.pair(NOW.minus(Duration.ofMinutes(2)), 1L),
+                        KeyValue.pair(NOW.minus(Duration.ofMinutes(1)), 1L));
+    }
+
+    @Test
+    void countsEachContractOnceWithinTheLastMinutes() {
+        WindowedStatsView tumbling = query(5, TUMBLING, NOW);
+        assertThat(tumbling.from()).isEqualTo(NOW.minus(Duration.ofMinutes(5)));
+        assertThat(tumbling.count()).isEqualTo(2);
+        assertThat(tumbling.amount()).isEqualByComparingTo(AMOUNT.multiply(BigDecimal.valueOf(2)));
+        assertThat(tumbling.windows()).extracting(WindowedStatsView.Point::start)
+                .containsExactly(NOW.minus(Duration.ofMinutes(3)), NOW.minus(Duration.ofMinutes(1)));
+
+        WindowedStatsView hopping = query(5, HOPPING, NOW);
+        assertThat(hopping.from()).isEqualTo(NOW.minus(Duration.ofMinutes(5)));
+        assertThat(hopping.count()).isEqualTo(2);
+        assertThat(hopping.windows()).extracting(WindowedStatsView.Point::start)
+                .containsExactly(NOW.minus(Duration.ofMinutes(5)));
+    }
+
+    /**
+     * Au-delà de hopping-size, la période est pavée de fenêtres glissantes
+     * bout à bout : le total est celui des fenêtres fixes.
+     */
+    @Test
+    void coversPeriodsLongerThanAHoppingWindow() {
+        WindowedStatsView tumbling = query(10, TUMBLING, NOW);
+        WindowedStatsView hopping = query(10, HOPPING, NOW);
+
+        assertThat(tumbling.count()).isEqualTo(4);
+        assertThat(hopping.count()).isEqualTo(4);
+        assertThat(hopping.amount()).isEqualByComparingTo(AMOUNT.multiply(BigDecimal.valueOf(4)));
+        assertThat(hopping.windows()).extracting(WindowedStatsView.Point::start)
+                .containsExactly(NOW.minus(Duration.ofMinutes(10)), NOW.minus(Duration.ofMinutes(5)));
+        assertThat(hopping.windows()).extracting(WindowedStatsView.Point::end)
+                .containsExactly(NOW.minus(Duration.ofMinutes(5)), NOW);
+    }
+
+    /**
+     * Maintenant − N tombe au milieu d'une fenêtre : la période commence au
+     * début de cette fenêtre, qui est incluse en entier.
+     */
+    @Test
+    void startsAtTheWindowContainingTheRequestedStart() {
+        Instant to = NOW.plusSeconds(20);
+
+        WindowedStatsView tumbling = query(7, TUMBLING, to);
+        WindowedStatsView hopping = query(7, HOPPING, to);
+
+        assertThat(tumbling.from()).isEqualTo(NOW.minus(Duration.ofMinutes(7)));
+        assertThat(tumbling.count()).isEqualTo(3);
+        assertThat(hopping.from()).isEqualTo(NOW.minus(Duration.ofMinutes(7)));
+        assertThat(hopping.count()).isEqualTo(3);
+        assertThat(hopping.windows()).extracting(WindowedStatsView.Point::start)
+                .containsExactly(NOW.minus(Duration.ofMinutes(7)), NOW.minus(Duration.ofMinutes(2)));
+    }
+
+    @Test
+    void rejectsHoppingSizesThatAreNotAMultipleOfTheAdvance() {
+        kafkaDemoProperties.getStreams().getWindows().setHoppingAdvance(Duration.ofMinutes(2));
+        KstreamWindowedStats windowedStats = new KstreamWindowedStats(objectMapper, kafkaDemoProperties);
+
+        assertThatThrownBy(() -> windowedStats.eligibleStatsHopping(null))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("hopping-advance");
+    }
+
+    private WindowedStatsView query(int minutes, String window, Instant to) {
+        String storeName = TUMBLING.equals(window) ? ELIGIBLE_STATS_TUMBLING_STORE : ELIGIBLE_STATS_HOPPING_STORE;
+        return queryService.lastMinutes(driver.getWindowStore(storeName), CLIENT, minutes, window, to);
+    }
+
+    private List<KeyValue<Instant, Long>> windows(String storeName, Instant from, Instant to) {
+        WindowStore<String, EligibleStats> store = driver.getWindowStore(storeName);
+        List<KeyValue<Instant, Long>> windows = new ArrayList<>();
+        try (WindowStoreIterator<EligibleStats> it = store.fetch(CLIENT, from, to)) {
+            it.forEachRemaining(entry -> windows.add(KeyValue.pair(Instant.ofEpochMilli(entry.key),
+                    entry.value.count())));
+        }
+        return windows;
+    }
+}
@@ -0,0 +1,192 @@
+package com.harington.devops_training.kafka.streams;
+
+import static com.harington.devops_training.kafka.constants.KafkaConstants.DEVOPS_TRAINING_STREAMING_TOPIC;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.Topology;
+import org.apache.kafka.streams.TopologyDescription;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.kstream.KStream;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harington.devops_training.config.JacksonConfig;
+import com.harington.devops_training.kafka.config.KafkaDemoProperties;
+import com.harington.devops_training.kafka.model.ContractDto;
+import com.harington.devops_training.kafka.model.ContractVerdict;
+import com.harington.devops_training.kafka.serde.ContractAvroSerde;
+import com.harington.devops_training.kafka.serde.ContractBatchReader;
+import com.harington.devops_training.kafka.serde.ContractJsonSerde;
+import com.harington.devops_training.kafka.serde.ContractListSerde;
+import com.harington.devops_training.service.ContractEligibilityService;
+
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Topologie complète des contrats (routage, comptage, fenêtres) construite
+ * comme le fait Spring, puis exécutée avec TopologyTestDriver.
+ */
+class KstreamProcessAndRouteTest {
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final KafkaDemoProperties kafkaDemoProperties = new KafkaDemoProperties();
+    private final ContractEligibilityService eligibilityService = spy(new ContractEligibilityService());
+    private final ContractListSerde contractListSerde = new ContractListSerde(objectMapper,
+            new ContractBatchReader(objectMapper), new ContractAvroSerde(new MockSchemaRegistryClient()),
+            kafkaDemoProperties, meterRegistry);
+    private final ContractJsonSerde contractJsonSerde = new ContractJsonSerde(objectMapper);
+    private final KstreamProcessAndRoute processAndRoute = new KstreamProcessAndRoute(objectMapper,
+            eligibilityService, contractListSerde, contractJsonSerde);
+
+    @Test
+    void readsContractTopicFromASingleSource() {
+        TopologyDescription description = topology().describe();
+
+        long sources = description.subtopologies().stream()
+                .flatMap(subtopology -> subtopology.nodes().stream())
+                .filter(TopologyDescription.Source.class::isInstance)
+                .map(TopologyDescription.Source.class::cast)
+                .filter(source -> source.topicSet().contains(DEVOPS_TRAINING_STREAMING_TOPIC))
+                .count();
+        assertThat(sources).isEqualTo(1);
+    }
+
+    @Test
+    void deserializesEachBatchOnce() {
+        try (TopologyTestDriver driver = new TopologyTestDriver(topology(), config())) {
+            TestInputTopic<String, List<ContractDto>> input = input(driver);
+            input.pipeInput("client-1", List.of(contract("1", 20_000_000L, 30)));
+            input.pipeInput("client-2", List.of(contract("2", 1_000L, 30), contract("3", 20_000_000L, 30)));
+        }
+
+        double decoded = meterRegistry.get("kafka.demo.serde.batches.decoded")
+                .tag("topic", DEVOPS_TRAINING_STREAMING_TOPIC)
+                .tag("format", "json")
+                .counter()
+                .count();
+        assertThat(decoded).isEqualTo(2);
+    }
+
+    @Test
+    void evaluatesEachContractOncePerBatch() {
+        List<ContractDto> batch = batch();
+        try (TopologyTestDriver driver = new TopologyTestDriver(topology(), config())) {
+            input(driver).pipeInput("client-1", batch);
+        }
+
+        verify(eligibilityService, times(1)).evaluate(anyList());
+        verify(eligibilityService, times(batch.size())).isContractEligible(any(), any(LocalDate.class));
+        verify(eligibilityService, never()).isContractEligible(any());
+    }
+
+    /**
+     * Mêmes contrats dans chaque topic qu'avec les deux filter() d'origine
+     * (isContractEligible par contrat) : contrats éligibles, non éligibles, et
+     * contrats incomplets (sans montant ou sans date de fin), non éligibles.
+     */
+    @Test
+    void routesTheSameContractsAsThePerContractFilters() throws Exception {
+        List<ContractDto> batch = batch();
+        ContractEligibilityService reference = new ContractEligibilityService();
+        List<ContractDto> expectedEligible = batch.stream().filter(reference::isContractEligible).toList();
+        List<ContractDto> expectedIneligible = batch.stream().filter(c -> !reference.isContractEligible(c)).toList();
+
+        try (TopologyTestDriver driver = new TopologyTestDriver(topology(), config())) {
+            input(driver).pipeInput("client-1", batch);
+
+            TestOutputTopic<String, ContractDto> eligible = driver.createOutputTopic("contracts-eligible",
+                    Serdes.String().deserializer(), contractJsonSerde.deserializer());
+            TestOutputTopic<String, ContractDto> ineligible = driver.createOutputTopic("contracts-ineligible",
+                    Serdes.String().deserializer(), contractJsonSerde.deserializer());
+            TestOutputTopic<String, String> stats = driver.createOutputTopic("devops-training-streams-result",
+                    Serdes.String().deserializer(), Serdes.String().deserializer());
+
+            assertThat(eligible.readKeyValuesToList())
+                    .allMatch(kv -> kv.key.equals("client-1"))
+                    .extracting(kv -> kv.value)
+                    .containsExactlyElementsOf(expectedEligible);
+            assertThat(ineligible.readKeyValuesToList())
+                    .allMatch(kv -> kv.key.equals("client-1"))
+                    .extracting(kv -> kv.value)
+                    .containsExactlyElementsOf(expectedIneligible);
+            JsonNode result = objectMapper.readTree(stats.readValue());
+            assertThat(result.get("eligibleCount").asInt()).isEqualTo(expectedEligible.size());
+            assertThat(result.get("ineligibleCount").asInt()).isEqualTo(expectedIneligible.size());
+            assertThat(stats.isEmpty()).isTrue();
+        }
+    }
+
+    /**
+     * Lot couvrant chaque cas : éligible, montant trop faible, contrat expiré,
+     * montant absent, date de fin absente.
+     */
+    static List<ContractDto> batch() {
+        ContractDto noEndDate = contract("5", 20_000_000L, 30);
+        noEndDate.setEndDate(null);
+        return List.of(
+                contract("1", 20_000_000L, 30),
+                contract("2", 1_000L, 30),
+                contract("3", 20_000_000L, -1),
+                contract("4", null, 30),
+                noEndDate,
+                contract("6", 15_000_000L, 1));
+    }
+
+    /**
+     * Construit la topologie comme les beans Spring : une source, passée au
+     * routage, et chaque consommateur du flux des contrats éligibles le reçoit
+     * par injection.
+     */
+    Topology topology() {
+        StreamsBuilder builder = new StreamsBuilder();
+        KStream<String, ContractVerdict> eligible = processAndRoute
+                .processAndRouteContracts(processAndRoute.contractListStream(builder));
+        processAndRoute.eligibleContractsCount(eligible);
+        KstreamWindowedStats windowedStats = new KstreamWindowedStats(objectMapper, kafkaDemoProperties);
+        windowedStats.eligibleStatsTumbling(eligible);
+        windowedStats.eligibleStatsHopping(eligible);
+        return builder.build();
+    }
+
+    TestInputTopic<String, List<ContractDto>> input(TopologyTestDriver driver) {
+        return driver.createInputTopic(DEVOPS_TRAINING_STREAMING_TOPIC, Serdes.String().serializer(),
+                contractListSerde.serializer());
+    }
+
+    static Properties config() {
+        Properties config = new Properties();
+        config.put(StreamsConfig.APPLICATION_ID_CONFIG, "contracts-topology-test");
+        config.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        config.put(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, Serdes.StringSerde.class);
+        config.put(StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG, Serdes.StringSerde.class);
+        return config;
+    }
+
+    static ContractDto contract(String id, Long amount, int daysLeft) {
+        return ContractDto.builder()
+                .id(id)
+                .label("Contrat " + id)
+                .startDate(LocalDate.now().minusDays(10))
+                .endDate(LocalDate.now().plusDays(daysLeft))
+                .amount(amount == null ? null : BigDecimal.valueOf(amount))
+                .build();
+    }
+}
@@ -0,0 +1,66 @@
+package com.harington.devops_training.service;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Suppression des accents : {@link DiacriticFolder} (table précalculée)
+ * contre l'ancienne normalisation (Normalizer NFD puis regex à chaque appel).
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=DiacriticFolder
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiacriticFolderBenchmark {
+    @Param({ "Comment configurer le consumer group Kafka de la formation",
+            "Déploiement à chaud d'un cœur de réseau élevé, crée où ça échoue" })
+    public String text;
+
+    @Benchmark
+    public String folder() {
+        return DiacriticFolder.fold(text);
+    }
+
+    @Benchmark
+    public String regex() {
+        return WikiSearchBenchmark.normalize(text);
+    }
+
+    /**
+     * Mots-clés d'une question, avec le découpage de l'index.
+     */
+    @Benchmark
+    public Set<String> terms() {
+        return WikiIndex.terms(text);
+    }
+
+    /**
+     * Mots-clés d'une question, comme l'ancien extractKeywords.
+     */
+    @Benchmark
+    public Set<String> regexTerms() {
+        Set<String> keywords = new HashSet<>();
+        for (String word : WikiSearchBenchmark.normalize(text).split("\\W+")) {
+            if (word.length() > 3) {
+                keywords.add(word);
+            }
+        }
+        return keywords;
+    }
+}
@@ -0,0 +1,48 @@
+package com.harington.devops_training.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.nio.FloatBuffer;
+
+import org.junit.jupiter.api.Test;
+
+import com.harington.devops_training.config.WikiProperties;
+
+class HashEmbeddingProviderTest {
+    private final HashEmbeddingProvider provider = new HashEmbeddingProvider(new WikiProperties());
+
+    @Test
+    void producesDeterministicUnitVectors() {
+        float[] vector = provider.embed("Déploiement Kubernetes");
+
+        assertThat(vector).hasSize(provider.dimensions()).hasSize(256);
+        assertThat(cosine(vector, vector)).isCloseTo(1f, within(1e-5f));
+        assertThat(provider.embed("deploiement   kubernetes !")).containsExactly(vector);
+    }
+
+    /**
+     * Les trigrammes rapprochent les mots de même racine, que la recherche
+     * par mots-clés ne relie pas.
+     */
+    @Test
+    void bringsWordsWithTheSameRootCloser() {
+        float[] deploiement = provider.embed("déploiement");
+
+        assertThat(cosine(deploiement, provider.embed("déployer")))
+                .isGreaterThan(cosine(deploiement, provider.embed("partition")));
+    }
+
+    @Test
+    void usesTheConfiguredDimension() {
+        WikiProperties wikiProperties = new WikiProperties();
+        wikiProperties.getSemantic().setDimensions(32);
+
+        assertThat(new HashEmbeddingProvider(wikiProperties).embed("kafka")).hasSize(32);
+        assertThat(provider.embed("")).containsOnly(0f);
+    }
+
+    private static float cosine(float[] a, float[] b) {
+        return VectorMath.dot(FloatBuffer.wrap(a), 0, b);
+    }
+}
@@ -0,0 +1,52 @@
+package com.harington.devops_training.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.nio.FloatBuffer;
+
+import org.junit.jupiter.api.Test;
+
+class VectorMathTest {
+
+    @Test
+    void normalizesToUnitLength() {
+        float[] vector = VectorMath.normalize(new float[] { 3, 0, 4 });
+
+        assertThat(vector).containsExactly(new float[] { 0.6f, 0, 0.8f }, within(1e-6f));
+        assertThat(VectorMath.normalize(new float[3])).containsExactly(0, 0, 0);
+    }
+
+    /**
+     * Même résultat que la boucle naïve, y compris pour les dimensions qui ne
+     * sont pas un multiple de 4 et pour une ligne au milieu du buffer.
+     */
+    @Test
+    void dotMatchesTheNaiveLoopAtAnyOffset() {
+        for (int dims : new int[] { 1, 3, 4, 7, 256 }) {
+            float[] query = new float[dims];
+            float[] rows = new float[dims * 3];
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = (float) Math.sin(i + 1);
+            }
+            for (int i = 0; i < dims; i++) {
+                query[i] = (float) Math.cos(i);
+            }
+            double expected = 0;
+            for (int i = 0; i < dims; i++) {
+                expected += rows[dims + i] * query[i];
+            }
+
+            assertThat(VectorMath.dot(FloatBuffer.wrap(rows), dims, query)).isCloseTo((float) expected, within(1e-4f));
+        }
+    }
+
+    @Test
+    void dotOfNormalizedVectorsIsTheCosine() {
+        float[] a = VectorMath.normalize(new float[] { 1, 1, 0, 0 });
+        float[] b = VectorMath.normalize(new float[] { 1, 0, 0, 0 });
+
+        assertThat(VectorMath.dot(FloatBuffer.wrap(a), 0, b)).isCloseTo((float) Math.cos(Math.PI / 4), within(1e-6f));
+        assertThat(VectorMath.dot(FloatBuffer.wrap(a), 0, a)).isCloseTo(1f, within(1e-6f));
+    }
+}
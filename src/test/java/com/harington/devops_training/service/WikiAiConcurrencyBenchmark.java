@@ -0,0 +1,143 @@
+package com.harington.devops_training.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import com.harington.devops_training.config.StubChatClient;
+import com.harington.devops_training.config.WikiProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Rafale de {@link #QUESTIONS} questions différentes sur /api/ask-wiki, avec
+ * un modèle simulé qui répond en {@link #MODEL_LATENCY} et un pool de
+ * {@link #SERVLET_THREADS} threads dans le rôle de Tomcat.
+ *
+ * Avant ({@code servletThreads}) : chaque requête occupe un thread du pool
+ * pendant la recherche et l'appel au modèle ; au plus SERVLET_THREADS
+ * questions avancent en même temps. Après ({@code askAsync}) : le thread est
+ * rendu aussitôt et le plafond devient wiki.ai.max-concurrent-calls
+ * ({@code maxConcurrentCalls}), indépendant de la taille du pool de Tomcat.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=WikiAiConcurrency
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WikiAiConcurrencyBenchmark {
+    private static final int QUESTIONS = 64;
+    private static final int SERVLET_THREADS = 16;
+    private static final Duration MODEL_LATENCY = Duration.ofMillis(50);
+
+    @Param({ "8", "64" })
+    public int maxConcurrentCalls;
+
+    private final AtomicLong questionIds = new AtomicLong();
+    private ExecutorService servletPool;
+    private StubChatClient chatClient;
+    private WikiService wikiService;
+    private WikiAiService wikiAiService;
+
+    @Setup
+    public void setUp() {
+        WikiProperties wikiProperties = new WikiProperties();
+        wikiProperties.setDir(WikiSearchBenchmark.wikiDir().toString());
+        wikiProperties.getAi().setMaxConcurrentCalls(maxConcurrentCalls);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WikiIndex wikiIndex = new WikiIndex(wikiProperties, event -> {
+        }, meterRegistry);
+        wikiIndex.build();
+        wikiService = new WikiService(wikiIndex, null, wikiProperties);
+        chatClient = new StubChatClient(Duration.ZERO) {
+            @Override
+            public ChatResponse call(Prompt prompt) {
+                try {
+                    Thread.sleep(MODEL_LATENCY.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.call(prompt);
+            }
+        };
+        wikiAiService = new WikiAiService(chatClient, chatClient, wikiService,
+                new WikiAnswerCache(wikiProperties, meterRegistry), new ChatCallLimiter(wikiProperties, meterRegistry),
+                wikiProperties, meterRegistry);
+        servletPool = Executors.newFixedThreadPool(SERVLET_THREADS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        servletPool.shutdownNow();
+        wikiAiService.stop();
+    }
+
+    /**
+     * Traitement d'origine : recherche et appel au modèle sur le thread de la
+     * requête.
+     */
+    @Benchmark
+    public List<String> servletThreads() throws Exception {
+        List<Future<String>> answers = new ArrayList<>(QUESTIONS);
+        for (int i = 0; i < QUESTIONS; i++) {
+            String question = question();
+            answers.add(servletPool.submit(() -> chatClient
+                    .call(WikiAiService.buildPrompt(wikiService.searchWikiForQuestion(question), question))));
+        }
+        List<String> result = new ArrayList<>(QUESTIONS);
+        for (Future<String> answer : answers) {
+            result.add(answer.get());
+        }
+        return result;
+    }
+
+    /**
+     * Traitement actuel : le thread de la requête ne fait que confier la
+     * question au pool wiki-ai.
+     */
+    @Benchmark
+    public List<String> askAsync() throws Exception {
+        List<Future<CompletableFuture<String>>> submitted = new ArrayList<>(QUESTIONS);
+        for (int i = 0; i < QUESTIONS; i++) {
+            String question = question();
+            submitted.add(servletPool.submit(() -> wikiAiService.askAsync(question)));
+        }
+        List<String> result = new ArrayList<>(QUESTIONS);
+        for (Future<CompletableFuture<String>> answer : submitted) {
+            result.add(answer.get().get());
+        }
+        return result;
+    }
+
+    /**
+     * Questions toutes différentes : ni le cache des réponses ni le
+     * regroupement des questions identiques n'interviennent.
+     */
+    private String question() {
+        return "Comment déployer Kafka sur Kubernetes, cas " + questionIds.incrementAndGet() + " ?";
+    }
+}
@@ -0,0 +1,137 @@
+package com.harington.devops_training.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.ChatClient;
+import org.springframework.ai.chat.StreamingChatClient;
+
+import com.harington.devops_training.config.WikiProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class WikiAiServiceTest {
+    private static final int CALLERS = 50;
+
+    private final ChatClient chatClient = mock(ChatClient.class);
+    private final WikiService wikiService = mock(WikiService.class);
+    private final WikiProperties wikiProperties = new WikiProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+    private WikiAiService wikiAiService;
+
+    @AfterEach
+    void stop() {
+        callers.shutdownNow();
+        wikiAiService.stop();
+    }
+
+    @Test
+    void concurrentIdenticalQuestionsShareOneModelCall() throws Exception {
+        wikiAiService = newService();
+        CountDownLatch release = new CountDownLatch(1);
+        when(wikiService.searchWikiForQuestion(anyString())).thenReturn("Kafka est un bus de messages.");
+        when(chatClient.call(anyString())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return "Un bus de messages.";
+        });
+
+        CyclicBarrier start = new CyclicBarrier(CALLERS);
+        List<Future<CompletableFuture<String>>> submitted = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            // variantes qui se normalisent vers la même question
+            String question = i % 2 == 0 ? "Qu'est-ce que Kafka ?" : "qu est ce que  kafka";
+            submitted.add(callers.submit(() -> {
+                start.await(5, TimeUnit.SECONDS);
+                return wikiAiService.askAsync(question);
+            }));
+        }
+        List<CompletableFuture<String>> answers = new ArrayList<>();
+        for (Future<CompletableFuture<String>> future : submitted) {
+            answers.add(future.get(5, TimeUnit.SECONDS));
+        }
+        release.countDown();
+
+        for (CompletableFuture<String> answer : answers) {
+            assertThat(answer.get(5, TimeUnit.SECONDS)).isEqualTo("Un bus de messages.");
+        }
+        verify(chatClient, times(1)).call(anyString());
+    }
+
+    /**
+     * Charge : 4 appels simultanés au plus, 20 questions en file. Sur 30
+     * questions différentes, 4 sont traitées, 20 attendent et 6 sont refusées ;
+     * le pool n'a jamais plus de threads que d'appels autorisés.
+     */
+    @Test
+    void boundsModelCallsToThePoolSize() throws Exception {
+        wikiProperties.getAi().setMaxConcurrentCalls(4);
+        wikiProperties.getAi().setQueueCapacity(20);
+        wikiAiService = newService();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch poolBusy = new CountDownLatch(4);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        when(wikiService.searchWikiForQuestion(anyString())).thenReturn("Kafka est un bus de messages.");
+        when(chatClient.call(anyString())).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+            poolBusy.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+                return "réponse";
+            } finally {
+                active.decrementAndGet();
+            }
+        });
+
+        List<CompletableFuture<String>> answers = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            answers.add(wikiAiService.askAsync("question " + i));
+        }
+        long rejected = answers.stream()
+                .filter(answer -> answer.isCompletedExceptionally())
+                .peek(answer -> assertThatThrownBy(answer::join).hasCauseInstanceOf(RejectedExecutionException.class))
+                .count();
+        assertThat(poolBusy.await(5, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+
+        assertThat(rejected).isEqualTo(6);
+        for (CompletableFuture<String> answer : answers) {
+            if (!answer.isCompletedExceptionally()) {
+                assertThat(answer.get(10, TimeUnit.SECONDS)).isEqualTo("réponse");
+            }
+        }
+        assertThat(peak.get()).isEqualTo(4);
+        assertThat(threads).hasSizeLessThanOrEqualTo(4);
+        verify(chatClient, times(24)).call(anyString());
+    }
+
+    private WikiAiService newService() {
+        return new WikiAiService(chatClient, mock(StreamingChatClient.class), wikiService,
+                new WikiAnswerCache(wikiProperties, meterRegistry), new ChatCallLimiter(wikiProperties, meterRegistry),
+                wikiProperties, meterRegistry);
+    }
+}
@@ -0,0 +1,93 @@
+package com.harington.devops_training.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.harington.devops_training.config.WikiProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Lecture du wiki du projet pour l'indexation : {@link WikiMarkdownReader}
+ * (fichier projeté en mémoire, découpage sans regex) contre la lecture
+ * d'origine (readAllBytes, split des lignes, normalisation par regex).
+ * Les allocations se comparent avec -Dbenchmark.args="-prof gc".
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=WikiIndexBuild
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WikiIndexBuildBenchmark {
+    private List<Path> files;
+    private WikiIndex wikiIndex;
+
+    @Setup
+    public void setUp() throws IOException {
+        Path wikiDir = WikiSearchBenchmark.wikiDir();
+        files = WikiSearchBenchmark.markdownFiles(wikiDir);
+        WikiProperties wikiProperties = new WikiProperties();
+        wikiProperties.setDir(wikiDir.toString());
+        wikiIndex = new WikiIndex(wikiProperties, event -> {
+        }, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public int mappedReader() throws IOException {
+        WikiMarkdownReader reader = new WikiMarkdownReader();
+        int passages = 0;
+        for (Path file : files) {
+            passages += reader.read(file).size();
+        }
+        return passages;
+    }
+
+    /**
+     * Lecture d'origine : fichier entier en String, découpage en lignes et
+     * normalisation par regex de chaque ligne.
+     */
+    @Benchmark
+    public int readAllBytes() throws IOException {
+        Map<String, Integer> terms = new HashMap<>();
+        for (Path file : files) {
+            String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            for (String line : content.split("\n")) {
+                for (String word : WikiSearchBenchmark.normalize(line).split("\\W+")) {
+                    if (word.length() >= WikiIndex.MIN_TERM_LENGTH) {
+                        terms.merge(word, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        return terms.size();
+    }
+
+    /**
+     * Construction complète de l'index (lecture, passages, postings).
+     */
+    @Benchmark
+    public WikiIndex build() {
+        wikiIndex.build();
+        return wikiIndex;
+    }
+}
@@ -0,0 +1,80 @@
+package com.harington.devops_training.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.harington.devops_training.config.WikiProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class WikiIndexTest {
+    @TempDir
+    private Path wiki;
+
+    private WikiIndex wikiIndex;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.writeString(wiki.resolve("kubernetes.md"), """
+                # Déploiement Kubernetes
+
+                Un pod Kubernetes regroupe des conteneurs.
+                """);
+        Files.writeString(wiki.resolve("kafka.md"), """
+                # Kafka
+
+                Les partitions d'un topic Kafka sont réparties entre les brokers.
+                """);
+        WikiProperties wikiProperties = new WikiProperties();
+        wikiProperties.setDir(wiki.toString());
+        wikiIndex = new WikiIndex(wikiProperties, event -> {
+        }, new SimpleMeterRegistry());
+        wikiIndex.build();
+    }
+
+    @Test
+    void matchesWholeTerms() {
+        assertThat(files(wikiIndex.search(WikiIndex.terms("Comment fonctionne Kafka ?"), 5)))
+                .containsExactly("kafka.md");
+    }
+
+    @Test
+    void fallsBackToPrefixesWithoutExactMatch() {
+        assertThat(files(wikiIndex.search(WikiIndex.terms("kube"), 5))).containsExactly("kubernetes.md");
+        assertThat(files(wikiIndex.search(WikiIndex.terms("partition"), 5))).containsExactly("kafka.md");
+        assertThat(wikiIndex.search(WikiIndex.terms("ansible"), 5)).isEmpty();
+    }
+
+    /**
+     * Les préfixes ne servent que si aucun terme n'est un mot du wiki : ils ne
+     * diluent pas une recherche qui a déjà des résultats.
+     */
+    @Test
+    void ignoresPrefixesWhenATermMatches() {
+        assertThat(files(wikiIndex.search(WikiIndex.terms("kafka kube"), 5))).containsExactly("kafka.md");
+    }
+
+    @Test
+    void prefixesFollowReindexing() throws IOException {
+        Path helm = wiki.resolve("helm.md");
+        Files.writeString(helm, "# Helm\n\nLes charts Helm décrivent un déploiement.\n");
+        wikiIndex.reindex(List.of(helm));
+        assertThat(files(wikiIndex.search(WikiIndex.terms("chart"), 5))).containsExactly("helm.md");
+
+        Files.delete(helm);
+        wikiIndex.reindex(List.of(helm));
+        assertThat(wikiIndex.search(WikiIndex.terms("chart"), 5)).isEmpty();
+    }
+
+    private static List<String> files(List<WikiPassage> passages) {
+        return passages.stream().map(passage -> passage.path().getFileName().toString()).distinct().toList();
+    }
+}
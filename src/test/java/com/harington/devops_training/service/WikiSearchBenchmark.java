@@ -0,0 +1,148 @@
+package com.harington.devops_training.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.harington.devops_training.config.WikiProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Recherche d'une question dans le wiki : index inversé ({@link WikiIndex})
+ * contre la recherche d'origine, qui relisait et normalisait tout le wiki à
+ * chaque question. {@code syntheticPages} = 0 utilise le wiki du projet ;
+ * sinon un wiki synthétique de ce nombre de pages est généré
+ * ({@link WikiVectorSearchBenchmark#syntheticWiki}).
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=WikiSearch
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WikiSearchBenchmark {
+    @Param({ "Comment créer un topic Kafka ?", "déploiement kubernetes avec helm" })
+    public String question;
+
+    @Param({ "0", "10000" })
+    public int syntheticPages;
+
+    private Path syntheticDir;
+    private Path wikiDir;
+    private WikiIndex wikiIndex;
+
+    @Setup
+    public void setUp() throws IOException {
+        if (syntheticPages > 0) {
+            syntheticDir = Files.createTempDirectory("wiki-search-benchmark");
+            wikiDir = WikiVectorSearchBenchmark.syntheticWiki(syntheticDir, syntheticPages);
+        } else {
+            wikiDir = wikiDir();
+        }
+        WikiProperties wikiProperties = new WikiProperties();
+        wikiProperties.setDir(wikiDir.toString());
+        wikiIndex = new WikiIndex(wikiProperties, event -> {
+        }, new SimpleMeterRegistry());
+        wikiIndex.build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (syntheticDir == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(syntheticDir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<WikiPassage> index() {
+        return wikiIndex.search(WikiIndex.terms(question), 8);
+    }
+
+    /**
+     * Recherche d'origine de WikiService : parcours du wiki, lecture de chaque
+     * fichier et normalisation (regex) de chaque ligne.
+     */
+    @Benchmark
+    public String lineScan() throws IOException {
+        Set<String> keywords = new HashSet<>();
+        for (String word : normalize(question).split("\\W+")) {
+            if (word.length() > 3) {
+                keywords.add(word);
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Path p : markdownFiles(wikiDir)) {
+            String content = new String(Files.readAllBytes(p));
+            List<String> foundLines = new ArrayList<>();
+            for (String line : content.split("\n")) {
+                String normLine = normalize(line);
+                for (String keyword : keywords) {
+                    if (normLine.contains(keyword)) {
+                        foundLines.add(line);
+                        break;
+                    }
+                }
+            }
+            if (!foundLines.isEmpty()) {
+                sb.append("\n---\n").append(p.getFileName()).append(":\n");
+                foundLines.forEach(l -> sb.append(l).append("\n"));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Normalisation d'origine (avant DiacriticFolder).
+     */
+    static String normalize(String s) {
+        return Normalizer.normalize(s, Normalizer.Form.NFD).replaceAll("\\p{InCombiningDiacriticalMarks}", "")
+                .toLowerCase();
+    }
+
+    /**
+     * Wiki du projet ({@code wiki}, ou la propriété système wiki.dir).
+     */
+    static Path wikiDir() {
+        Path dir = Path.of(System.getProperty("wiki.dir", "wiki"));
+        if (!Files.isDirectory(dir)) {
+            throw new IllegalStateException("Wiki introuvable : " + dir.toAbsolutePath()
+                    + " (lancer depuis la racine du projet, ou -Dwiki.dir=...)");
+        }
+        return dir;
+    }
+
+    static List<Path> markdownFiles(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(WikiIndex::isMarkdown).toList();
+        }
+    }
+}
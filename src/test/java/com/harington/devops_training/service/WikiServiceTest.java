@@ -0,0 +1,74 @@
+package com.harington.devops_training.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.harington.devops_training.config.WikiProperties;
+
+class WikiServiceTest {
+    private final WikiIndex wikiIndex = mock(WikiIndex.class);
+    private final WikiVectorIndex wikiVectorIndex = mock(WikiVectorIndex.class);
+    private final WikiProperties wikiProperties = new WikiProperties();
+    private final WikiService wikiService = new WikiService(wikiIndex, wikiVectorIndex, wikiProperties);
+
+    @BeforeEach
+    void setUp() {
+        wikiProperties.getRetrieval().setMaxContextTokens(10);
+    }
+
+    @Test
+    void truncatesTopPassageLargerThanBudget() {
+        int budget = 10 * WikiService.CHARS_PER_TOKEN;
+        String longText = "kafka ".repeat(50);
+        when(wikiIndex.search(anyCollection(), anyInt())).thenReturn(List.of(
+                new WikiPassage(Path.of("kafka.md"), longText, 3.0),
+                new WikiPassage(Path.of("other.md"), "court", 1.0)));
+
+        String context = wikiService.searchWikiForQuestion("kafka ?");
+
+        assertThat(context).hasSize(budget).contains("kafka.md").doesNotContain("other.md");
+        verify(wikiIndex, never()).firstDocumentContent();
+    }
+
+    @Test
+    void fallsBackToFirstDocumentOnlyWithoutHits() {
+        when(wikiIndex.search(anyCollection(), anyInt())).thenReturn(List.of());
+        when(wikiIndex.firstDocumentContent()).thenReturn(Optional.of("# Accueil du wiki"));
+
+        assertThat(wikiService.searchWikiForQuestion("inconnu ?")).isEqualTo("# Accueil du wiki");
+    }
+
+    /**
+     * Fusion par rang réciproque : un passage présent dans les deux
+     * classements passe devant ceux qui n'arrivent en tête que d'un seul,
+     * quels que soient les scores d'origine. À rang égal, le premier
+     * classement (mots-clés) passe devant.
+     */
+    @Test
+    void fusesRankingsByReciprocalRank() {
+        WikiPassage kafka = new WikiPassage(Path.of("kafka.md"), "kafka", 12.0);
+        WikiPassage helm = new WikiPassage(Path.of("helm.md"), "helm", 9.0);
+        WikiPassage topics = new WikiPassage(Path.of("kafka.md"), "topics", 0.9);
+        WikiPassage vault = new WikiPassage(Path.of("vault.md"), "vault", 0.8);
+        List<WikiPassage> keyword = List.of(kafka, helm, new WikiPassage(topics.path(), topics.text(), 3.0));
+        List<WikiPassage> semantic = List.of(topics, vault);
+
+        List<WikiPassage> fused = WikiService.fuse(keyword, semantic, 3);
+
+        assertThat(fused).extracting(WikiPassage::text).containsExactly("topics", "kafka", "helm");
+        assertThat(fused.get(0).score()).isEqualTo(1.0 / (WikiService.RRF_K + 3) + 1.0 / (WikiService.RRF_K + 1));
+        assertThat(fused.get(1).score()).isEqualTo(1.0 / (WikiService.RRF_K + 1));
+    }
+}
@@ -0,0 +1,189 @@
+package com.harington.devops_training.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.harington.devops_training.config.WikiProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Recherche sémantique avec le fournisseur local (HashEmbeddingProvider) :
+ * classement cosinus, générations du fichier des vecteurs et changement de
+ * dimension du fournisseur.
+ */
+class WikiVectorIndexTest {
+    @TempDir
+    private Path wiki;
+    @TempDir
+    private Path storeDir;
+
+    private final WikiProperties wikiProperties = new WikiProperties();
+    private final CountingProvider embeddingProvider = new CountingProvider();
+    private WikiIndex wikiIndex;
+    private WikiVectorIndex vectorIndex;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.writeString(wiki.resolve("kubernetes.md"), """
+                # Déploiement Kubernetes
+
+                Un pod Kubernetes regroupe des conteneurs déployés ensemble.
+                """);
+        Files.writeString(wiki.resolve("kafka.md"), """
+                # Kafka
+
+                Les partitions d'un topic Kafka sont réparties entre les brokers.
+                """);
+        Files.writeString(wiki.resolve("vault.md"), """
+                # Vault
+
+                Vault conserve les secrets et délivre des jetons temporaires.
+                """);
+        wikiProperties.setDir(wiki.toString());
+        wikiProperties.getRetrieval().setMode(WikiProperties.RetrievalMode.SEMANTIC);
+        wikiProperties.getSemantic().setStoreDir(storeDir.toString());
+        wikiIndex = new WikiIndex(wikiProperties, event -> {
+        }, new SimpleMeterRegistry());
+        wikiIndex.build();
+        vectorIndex = new WikiVectorIndex(wikiIndex, wikiProperties, embeddingProvider);
+    }
+
+    @AfterEach
+    void close() {
+        vectorIndex.close();
+    }
+
+    @Test
+    void ranksPassagesByCosineSimilarity() {
+        vectorIndex.rebuild();
+
+        List<WikiPassage> passages = vectorIndex.search("déployer des pods kubernetes", 3);
+
+        assertThat(passages).hasSize(3);
+        assertThat(passages.get(0).path().getFileName()).hasToString("kubernetes.md");
+        assertThat(passages).extracting(WikiPassage::score).isSortedAccordingTo((a, b) -> Double.compare(b, a));
+        float[] query = embeddingProvider.embed("déployer des pods kubernetes");
+        float[] best = embeddingProvider.embed(passages.get(0).text());
+        assertThat(passages.get(0).score()).isCloseTo(naiveDot(query, best), within(1e-5));
+        assertThat(vectorIndex.search("déployer des pods kubernetes", 1)).containsExactly(passages.get(0));
+        assertThat(vectorIndex.search("kubernetes", 0)).isEmpty();
+    }
+
+    /**
+     * Chaque reconstruction écrit une nouvelle génération et supprime la
+     * précédente ; seuls les passages modifiés sont revectorisés.
+     */
+    @Test
+    void rebuildsANewGenerationAndEmbedsOnlyChangedPassages() throws IOException {
+        vectorIndex.rebuild();
+        List<Path> first = storeFiles();
+        assertThat(first).hasSize(1);
+        assertThat(embeddingProvider.embedded).hasSize(wikiIndex.passages().size());
+
+        embeddingProvider.embedded.clear();
+        Path helm = wiki.resolve("helm.md");
+        Files.writeString(helm, "# Helm\n\nLes charts Helm décrivent un déploiement.\n");
+        wikiIndex.reindex(List.of(helm));
+        vectorIndex.rebuild();
+
+        List<Path> second = storeFiles();
+        assertThat(second).hasSize(1).doesNotContainAnyElementsOf(first);
+        assertThat(embeddingProvider.embedded).singleElement().asString().contains("charts Helm");
+        assertThat(vectorIndex.search("charts helm", 1)).extracting(passage -> passage.path().getFileName().toString())
+                .containsExactly("helm.md");
+        // les vecteurs recopiés de la génération précédente restent justes
+        assertThat(vectorIndex.search("partitions kafka brokers", 1))
+                .extracting(passage -> passage.path().getFileName().toString())
+                .containsExactly("kafka.md");
+
+        vectorIndex.close();
+        assertThat(storeFiles()).isEmpty();
+    }
+
+    @Test
+    void reembedsEverythingWhenTheDimensionChanges() {
+        vectorIndex.rebuild();
+        embeddingProvider.embedded.clear();
+
+        embeddingProvider.setDimensions(64);
+        // index pas encore reconstruit : pas de comparaison entre dimensions
+        assertThat(vectorIndex.search("kubernetes", 3)).isEmpty();
+
+        vectorIndex.rebuild();
+        assertThat(embeddingProvider.embedded).hasSize(wikiIndex.passages().size());
+        assertThat(vectorIndex.search("kubernetes", 1)).extracting(passage -> passage.path().getFileName().toString())
+                .containsExactly("kubernetes.md");
+    }
+
+    @Test
+    void doesNothingInKeywordMode() throws IOException {
+        wikiProperties.getRetrieval().setMode(WikiProperties.RetrievalMode.KEYWORD);
+
+        vectorIndex.rebuild();
+
+        assertThat(storeFiles()).isEmpty();
+        assertThat(vectorIndex.search("kubernetes", 3)).isEmpty();
+    }
+
+    private List<Path> storeFiles() throws IOException {
+        try (Stream<Path> files = Files.list(storeDir)) {
+            return files.toList();
+        }
+    }
+
+    private static double naiveDot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * HashEmbeddingProvider dont on peut changer la dimension, et qui note les
+     * textes vectorisés à l'indexation.
+     */
+    private static final class CountingProvider implements EmbeddingProvider {
+        private final List<String> embedded = new ArrayList<>();
+        private HashEmbeddingProvider delegate = provider(256);
+
+        void setDimensions(int dimensions) {
+            delegate = provider(dimensions);
+        }
+
+        @Override
+        public int dimensions() {
+            return delegate.dimensions();
+        }
+
+        @Override
+        public float[] embed(String text) {
+            return delegate.embed(text);
+        }
+
+        @Override
+        public List<float[]> embedAll(List<String> texts) {
+            embedded.addAll(texts);
+            return delegate.embedAll(texts);
+        }
+
+        private static HashEmbeddingProvider provider(int dimensions) {
+            WikiProperties wikiProperties = new WikiProperties();
+            wikiProperties.getSemantic().setDimensions(dimensions);
+            return new HashEmbeddingProvider(wikiProperties);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.harington.devops_training.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.harington.devops_training.config.WikiProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Recherche sémantique sur un wiki synthétique de {@code pages} pages (trois
+ * passages par page) : {@link WikiVectorIndex} (vecteurs projetés hors du
+ * tas, produit scalaire à quatre accumulateurs, tas borné des topK) contre un
+ * parcours naïf (float[][] sur le tas, une seule somme, tri de tous les
+ * scores). La recherche BM25 ({@link WikiIndex}) sert de repère.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=WikiVectorSearch
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WikiVectorSearchBenchmark {
+    private static final String QUESTION = "Comment déployer un topic Kafka avec Helm ?";
+    private static final int TOP_K = 8;
+    private static final String[] VOCABULARY = { "kafka", "topic", "partition", "broker", "consommateur",
+            "producteur", "kubernetes", "pod", "déploiement", "service", "ingress", "helm", "chart", "valeurs",
+            "jenkins", "pipeline", "étape", "image", "docker", "conteneur", "registre", "vault", "secret", "jeton",
+            "keycloak", "realm", "client", "réseau", "dns", "certificat", "volume", "stockage", "sauvegarde",
+            "supervision", "métrique", "alerte", "journal", "réplique", "namespace", "configuration" };
+
+    @Param({ "1000", "10000" })
+    public int pages;
+
+    private Path dir;
+    private WikiIndex wikiIndex;
+    private WikiVectorIndex vectorIndex;
+    private HashEmbeddingProvider embeddingProvider;
+    private List<WikiPassage> passages;
+    private float[][] heapVectors;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("wiki-vector-benchmark");
+        Path wiki = syntheticWiki(Files.createDirectory(dir.resolve("wiki")), pages);
+        WikiProperties wikiProperties = new WikiProperties();
+        wikiProperties.setDir(wiki.toString());
+        wikiProperties.getRetrieval().setMode(WikiProperties.RetrievalMode.SEMANTIC);
+        wikiProperties.getSemantic().setStoreDir(dir.toString());
+        wikiIndex = new WikiIndex(wikiProperties, event -> {
+        }, new SimpleMeterRegistry());
+        wikiIndex.build();
+        embeddingProvider = new HashEmbeddingProvider(wikiProperties);
+        vectorIndex = new WikiVectorIndex(wikiIndex, wikiProperties, embeddingProvider);
+        vectorIndex.rebuild();
+
+        passages = wikiIndex.passages();
+        heapVectors = new float[passages.size()][];
+        for (int i = 0; i < passages.size(); i++) {
+            heapVectors[i] = embeddingProvider.embed(passages.get(i).text());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        vectorIndex.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<WikiPassage> vectorIndex() {
+        return vectorIndex.search(QUESTION, TOP_K);
+    }
+
+    @Benchmark
+    public List<WikiPassage> naiveScan() {
+        float[] query = embeddingProvider.embed(QUESTION);
+        List<WikiPassage> scored = new ArrayList<>(passages.size());
+        for (int i = 0; i < heapVectors.length; i++) {
+            float score = 0;
+            for (int d = 0; d < query.length; d++) {
+                score += heapVectors[i][d] * query[d];
+            }
+            WikiPassage passage = passages.get(i);
+            scored.add(new WikiPassage(passage.path(), passage.text(), score));
+        }
+        scored.sort(Comparator.comparingDouble(WikiPassage::score).reversed());
+        return scored.subList(0, Math.min(TOP_K, scored.size()));
+    }
+
+    @Benchmark
+    public List<WikiPassage> keyword() {
+        return wikiIndex.search(WikiIndex.terms(QUESTION), TOP_K);
+    }
+
+    /**
+     * Écrit {@code pages} fichiers markdown déterministes dans {@code dir} :
+     * un titre et trois paragraphes de 40 mots tirés d'un vocabulaire DevOps
+     * (trois passages par page).
+     */
+    static Path syntheticWiki(Path dir, int pages) throws IOException {
+        Random random = new Random(42);
+        StringBuilder page = new StringBuilder();
+        for (int p = 0; p < pages; p++) {
+            page.setLength(0);
+            page.append("# Page ").append(p).append(' ').append(word(random)).append("\n\n");
+            for (int paragraph = 0; paragraph < 3; paragraph++) {
+                for (int w = 0; w < 40; w++) {
+                    page.append(w == 0 ? "" : " ").append(word(random));
+                }
+                page.append(".\n\n");
+            }
+            Files.writeString(dir.resolve("page-" + p + ".md"), page);
+        }
+        return dir;
+    }
+
+    private static String word(Random random) {
+        return VOCABULARY[random.nextInt(VOCABULARY.length)];
+    }
+}